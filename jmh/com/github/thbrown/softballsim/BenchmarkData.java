@@ -0,0 +1,54 @@
+package com.github.thbrown.softballsim;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import com.github.thbrown.softballsim.data.gson.DataPlayer;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.util.GsonAccessor;
+
+/**
+ * Loads the example stats file used by the benchmarks and picks lineups out of it.
+ */
+public class BenchmarkData {
+
+  private static final String STATS_FILE = "./stats/exampleData.json";
+
+  public static DataStats getStats() {
+    try {
+      String json = new String(Files.readAllBytes(Paths.get(STATS_FILE)));
+      return GsonAccessor.getInstance().getCustom().fromJson(json, DataStats.class);
+    } catch (IOException e) {
+      throw new RuntimeException("Benchmarks must be run from the project root so they can read " + STATS_FILE, e);
+    }
+  }
+
+  /**
+   * Gets the ids of the first lineupSize players that have plate appearances. The lineup has as many
+   * men as women, plus one extra man for odd lineup sizes, so it can be used with every lineup type.
+   */
+  public static List<String> getPlayerIds(DataStats stats, int lineupSize) {
+    int womenNeeded = lineupSize / 2;
+    int menNeeded = lineupSize - womenNeeded;
+    List<String> ids = new ArrayList<>();
+    for (DataPlayer player : stats.getPlayers()) {
+      if (player.getPlateAppearanceCount() == 0) {
+        continue;
+      }
+      if (player.getGender().equals("M") && menNeeded > 0) {
+        ids.add(player.getId());
+        menNeeded--;
+      } else if (player.getGender().equals("F") && womenNeeded > 0) {
+        ids.add(player.getId());
+        womenNeeded--;
+      }
+    }
+    if (menNeeded > 0 || womenNeeded > 0) {
+      throw new IllegalArgumentException("Not enough players in " + STATS_FILE + " for a lineup of " + lineupSize);
+    }
+    return ids;
+  }
+
+}
@@ -0,0 +1,55 @@
+package com.github.thbrown.softballsim;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
+import com.github.thbrown.softballsim.optimizer.impl.expectedvalue.ExpectedValue;
+
+/**
+ * Benchmarks the expected value optimizer's per lineup scoring. This is slow, so the innings and
+ * batter counts are kept small.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ExpectedValueBenchmark {
+
+  @Param({"6", "9"})
+  public int lineupSize;
+
+  @Param({"1", "2"})
+  public int innings;
+
+  @Param({"1"})
+  public int maxBatters;
+
+  private BattingLineup lineup;
+
+  @Setup
+  public void setup() {
+    DataStats stats = BenchmarkData.getStats();
+    lineup = LineupTypeEnum.ORDINARY.getLineupIndexer(stats, BenchmarkData.getPlayerIds(stats, lineupSize))
+        .getLineup(0);
+  }
+
+  @Benchmark
+  public double getExpectedValue() {
+    return ExpectedValue.getExpectedValue(lineup, innings, maxBatters);
+  }
+
+}
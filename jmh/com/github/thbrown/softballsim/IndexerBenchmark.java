@@ -0,0 +1,77 @@
+package com.github.thbrown.softballsim;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupCursor;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupIndexer;
+import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
+import com.github.thbrown.softballsim.util.CombinatoricsUtil;
+
+/**
+ * Benchmarks for turning lineup indexes into lineups and back.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexerBenchmark {
+
+  @Param({"6", "9", "11"})
+  public int lineupSize;
+
+  @Param({"ORDINARY", "ALTERNATING_GENDER", "NO_CONSECUTIVE_FEMALES"})
+  public LineupTypeEnum lineupType;
+
+  private BattingLineupIndexer indexer;
+  private BattingLineupCursor cursor;
+  private int[] permutation;
+
+  @Setup
+  public void setup() {
+    DataStats stats = BenchmarkData.getStats();
+    indexer = lineupType.getLineupIndexer(stats, BenchmarkData.getPlayerIds(stats, lineupSize));
+    cursor = indexer.getCursor(0, Long.MAX_VALUE);
+    permutation = CombinatoricsUtil.getIthPermutation(lineupSize, CombinatoricsUtil.factorial(lineupSize) / 2);
+  }
+
+  @Benchmark
+  public BattingLineup getLineup() {
+    return indexer.getLineup(ThreadLocalRandom.current().nextLong(indexer.size()));
+  }
+
+  @Benchmark
+  public BattingLineup cursorNext() {
+    if (!cursor.next()) {
+      cursor = indexer.getCursor(0, Long.MAX_VALUE);
+      cursor.next();
+    }
+    return cursor.getLineup();
+  }
+
+  @Benchmark
+  public int[] getIthPermutation() {
+    return CombinatoricsUtil.getIthPermutation(lineupSize,
+        ThreadLocalRandom.current().nextLong(CombinatoricsUtil.factorial(lineupSize)));
+  }
+
+  @Benchmark
+  public int getPermutationIndex() {
+    return CombinatoricsUtil.getPermutationIndex(permutation);
+  }
+
+}
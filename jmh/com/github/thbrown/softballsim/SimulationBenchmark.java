@@ -0,0 +1,126 @@
+package com.github.thbrown.softballsim;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
+import com.github.thbrown.softballsim.optimizer.impl.markovchain.MarkovChain;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BasesUtil;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BatchedGameSimulation;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BitSlicedGameSimulation;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.InningOutcomeTable;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.MonteCarloGameSimulation;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+/**
+ * Benchmarks for scoring a single lineup: simulating one game and the pieces that make up a game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationBenchmark {
+
+  @Param({"6", "9", "11"})
+  public int lineupSize;
+
+  @Param({"7", "9"})
+  public int innings;
+
+  private HitGenerator hitGenerator;
+  private BattingLineup lineup;
+  private int[] battingOrder;
+  private MarkovChain markovChain;
+  private SplitMix64 random;
+  private InningOutcomeTable inningOutcomes;
+
+  private int bases;
+  private int numBases;
+
+  @Setup
+  public void setup() {
+    DataStats stats = BenchmarkData.getStats();
+    List<String> playerIds = BenchmarkData.getPlayerIds(stats, lineupSize);
+    lineup = LineupTypeEnum.ORDINARY.getLineupIndexer(stats, playerIds).getLineup(0);
+    hitGenerator = new HitGenerator(lineup.asList());
+    battingOrder = hitGenerator.getBattingOrder(lineup);
+    markovChain = new MarkovChain(hitGenerator);
+    random = new SplitMix64(0);
+    inningOutcomes = new InningOutcomeTable(battingOrder, hitGenerator);
+  }
+
+  @Benchmark
+  public double simulateGame() {
+    return MonteCarloGameSimulation.simulateGame(battingOrder, innings, hitGenerator);
+  }
+
+  @Benchmark
+  public double simulateGameFromLineup() {
+    return MonteCarloGameSimulation.simulateGame(lineup, innings, hitGenerator);
+  }
+
+  @Benchmark
+  public double simulate64Games() {
+    double totalScore = 0;
+    for (int i = 0; i < BitSlicedGameSimulation.LANES; i++) {
+      totalScore += MonteCarloGameSimulation.simulateGame(battingOrder, innings, hitGenerator, random);
+    }
+    return totalScore;
+  }
+
+  @Benchmark
+  public long simulate64GamesBitSliced() {
+    return BitSlicedGameSimulation.simulateGames(battingOrder, innings, hitGenerator, BitSlicedGameSimulation.LANES,
+        random);
+  }
+
+  @Benchmark
+  public long simulate64GamesBatched() {
+    return BatchedGameSimulation.simulateGames(battingOrder, innings, hitGenerator, BatchedGameSimulation.LANES,
+        random, null);
+  }
+
+  @Benchmark
+  public double simulateGameFromInningTable() {
+    return MonteCarloGameSimulation.simulateGame(inningOutcomes, innings, random);
+  }
+
+  @Benchmark
+  public InningOutcomeTable buildInningOutcomeTable() {
+    return new InningOutcomeTable(battingOrder, hitGenerator);
+  }
+
+  @Benchmark
+  public int hit() {
+    return hitGenerator.hit(battingOrder[0]);
+  }
+
+  @Benchmark
+  public int basesTransition() {
+    // Walk through every base state and hit type so the lookup can't be constant folded
+    bases = (bases + 1) & 7;
+    numBases = (numBases & 3) + 1;
+    return BasesUtil.getTransition(bases, numBases);
+  }
+
+  @Benchmark
+  public double markovChainExpectedRuns() {
+    return markovChain.getExpectedRuns(battingOrder, innings);
+  }
+
+}
@@ -0,0 +1,76 @@
+package com.github.thbrown.softballsim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupIndexer;
+import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.LineupComposite;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.TTestTask;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.TTestTaskResult;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+
+/**
+ * Benchmarks a t-test task that compares a few lineups from scratch, which is the unit of work the
+ * adaptive optimizer hands to its threads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TTestTaskBenchmark {
+
+  private static final int LINEUPS_PER_TASK = 4;
+  private static final double ALPHA = .1;
+
+  @Param({"6", "9", "11"})
+  public int lineupSize;
+
+  @Param({"7", "9"})
+  public int innings;
+
+  private BattingLineupIndexer indexer;
+  private HitGenerator hitGenerator;
+  private TTestTask task;
+
+  @Setup
+  public void setup() {
+    DataStats stats = BenchmarkData.getStats();
+    indexer = LineupTypeEnum.ORDINARY.getLineupIndexer(stats, BenchmarkData.getPlayerIds(stats, lineupSize));
+    hitGenerator = new HitGenerator(indexer.getLineup(0).asList());
+  }
+
+  /**
+   * The task accumulates samples in its lineups, so each call needs fresh ones
+   */
+  @Setup(Level.Invocation)
+  public void setupTask() {
+    List<LineupComposite> lineups = new ArrayList<>();
+    for (int i = 0; i < LINEUPS_PER_TASK; i++) {
+      long index = indexer.size() / LINEUPS_PER_TASK * i;
+      lineups.add(new LineupComposite(indexer.getLineup(index), hitGenerator, index));
+    }
+    task = new TTestTask(lineups, innings, ALPHA);
+  }
+
+  @Benchmark
+  public TTestTaskResult call() {
+    return task.call();
+  }
+
+}
@@ -3,6 +3,7 @@ package com.github.thbrown.softballsim;
 import java.util.Optional;
 import com.github.thbrown.softballsim.lineup.BattingLineup;
 import com.github.thbrown.softballsim.optimizer.OptimizerEnum;
+import com.github.thbrown.softballsim.util.StringUtils;
 
 /**
  * This class contains the output of an optimization. It's used for reporting to the end user as
@@ -16,18 +17,36 @@ import com.github.thbrown.softballsim.optimizer.OptimizerEnum;
  * extend this extend this class. Subclasses should be careful to maintain immutability.
  */
 public class Result {
+
+  /**
+   * Confidence level of every lineupScoreConfidenceInterval
+   */
+  public static final double CONFIDENCE = .95;
+
   private final OptimizerEnum optimizer;
   private final BattingLineup lineup;
   private final double lineupScore;
+  private final Double lineupScoreConfidenceInterval;
   private final long countTotal;
   private final long countCompleted;
   private final long elapsedTimeMs;
 
   public Result(OptimizerEnum optimizer, BattingLineup lineup, double lineupScore, long countTotal, long countCompleted,
       long elapsedTimeMs) {
+    this(optimizer, lineup, lineupScore, null, countTotal, countCompleted, elapsedTimeMs);
+  }
+
+  /**
+   * @param lineupScoreConfidenceInterval - for simulated scores, half the width of the
+   *        {@link #CONFIDENCE} confidence interval around lineupScore. Null if the score is exact or
+   *        the interval isn't known.
+   */
+  public Result(OptimizerEnum optimizer, BattingLineup lineup, double lineupScore, Double lineupScoreConfidenceInterval,
+      long countTotal, long countCompleted, long elapsedTimeMs) {
     this.optimizer = optimizer;
     this.lineup = lineup;
     this.lineupScore = lineupScore;
+    this.lineupScoreConfidenceInterval = lineupScoreConfidenceInterval;
     this.countTotal = countTotal;
     this.countCompleted = countCompleted;
     this.elapsedTimeMs = elapsedTimeMs;
@@ -40,6 +59,7 @@ public class Result {
     this.optimizer = toCopy.optimizer;
     this.lineup = toCopy.lineup;
     this.lineupScore = toCopy.lineupScore;
+    this.lineupScoreConfidenceInterval = toCopy.lineupScoreConfidenceInterval;
     this.countTotal = toCopy.countTotal;
     this.countCompleted = toCopy.countCompleted;
     this.elapsedTimeMs = toCopy.elapsedTimeMs;
@@ -49,15 +69,31 @@ public class Result {
   public String toString() {
     return "Optimal lineup: \n"
         + Optional.ofNullable(lineup).map(v -> v.toString()).orElse("null") + "\n"
-        + "Lineup expected score: " + this.lineupScore + "\n"
+        + "Lineup expected score: " + this.lineupScore + getConfidenceIntervalString() + "\n"
         + getHumanReadableDetails() + "\n"
         + "Elapsed time (ms): " + this.elapsedTimeMs;
   }
 
+  private String getConfidenceIntervalString() {
+    if (lineupScoreConfidenceInterval == null) {
+      return "";
+    }
+    return " +/- " + StringUtils.formatDecimal(lineupScoreConfidenceInterval, 4) + " ("
+        + Math.round(CONFIDENCE * 100) + "% confidence)";
+  }
+
   public double getLineupScore() {
     return lineupScore;
   }
 
+  /**
+   * @return half the width of the confidence interval around {@link #getLineupScore()}, or null if
+   *         the score is exact or the interval isn't known
+   */
+  public Double getLineupScoreConfidenceInterval() {
+    return lineupScoreConfidenceInterval;
+  }
+
   public long getCountTotal() {
     return countTotal;
   }
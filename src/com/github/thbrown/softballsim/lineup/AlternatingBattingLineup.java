@@ -65,6 +65,28 @@ public class AlternatingBattingLineup implements BattingLineup {
     }
   }
 
+  /**
+   * Batters in the smaller group come up more often, so the order only repeats once both groups have
+   * cycled through a whole number of times. This returns a multiple of that period which is safe for
+   * the group indexing used in {@link #getBatter(int)}.
+   */
+  @Override
+  public int getCycleLength() {
+    int groupCycle = lcm(groupA.size(), groupB.size());
+    return 2 * lcm(2, groupCycle);
+  }
+
+  private static int lcm(int a, int b) {
+    int x = a;
+    int y = b;
+    while (y != 0) {
+      int temp = y;
+      y = x % y;
+      x = temp;
+    }
+    return a / x * b;
+  }
+
   @Override
   public String toString() {
     StringBuilder result = new StringBuilder();
@@ -27,6 +27,15 @@ public interface BattingLineup {
    */
   public DataPlayer getBatter(int index);
 
+  /**
+   * Number of plate appearances after which the batting order starts over, i.e. getBatter(i) and
+   * getBatter(i + getCycleLength()) always return the same player. Simulations use this to resolve a
+   * lineup into a fixed size array up front.
+   */
+  public default int getCycleLength() {
+    return size();
+  }
+
   /**
    * String used to identify the type of lineup during serialization/deserialization
    * 
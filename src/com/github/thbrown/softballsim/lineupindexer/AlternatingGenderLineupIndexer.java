@@ -2,6 +2,7 @@ package com.github.thbrown.softballsim.lineupindexer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import org.apache.commons.math3.util.Pair;
 import com.github.thbrown.softballsim.data.gson.DataPlayer;
 import com.github.thbrown.softballsim.data.gson.DataStats;
@@ -65,7 +66,7 @@ public class AlternatingGenderLineupIndexer implements BattingLineupIndexer {
   }
 
   @Override
-  public Pair<Long, BattingLineup> getRandomNeighbor(long index) {
+  public Pair<Long, BattingLineup> getRandomNeighbor(long index, Random random) {
     throw new UnsupportedOperationException();
   }
 
@@ -0,0 +1,36 @@
+package com.github.thbrown.softballsim.lineupindexer;
+
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+
+/**
+ * Walks through a contiguous range of lineup indexes. Implementations can step from one lineup to
+ * the next much more cheaply than {@link BattingLineupIndexer#getLineup(long)} can build a lineup
+ * from an arbitrary index.
+ */
+public interface BattingLineupCursor {
+
+  /**
+   * Moves to the next lineup in the range. This must be called once before the first lineup is
+   * available.
+   * 
+   * @return false if there are no lineups left in the range
+   */
+  public boolean next();
+
+  /**
+   * Index of the current lineup
+   */
+  public long getIndex();
+
+  /**
+   * Gets the current lineup. This may be a view that changes the next time {@link #next()} is called,
+   * so it must not be kept around. Use {@link #getLineupCopy()} for that.
+   */
+  public BattingLineup getLineup();
+
+  /**
+   * Gets a lineup equal to the current lineup that is safe to keep after the cursor moves on.
+   */
+  public BattingLineup getLineupCopy();
+
+}
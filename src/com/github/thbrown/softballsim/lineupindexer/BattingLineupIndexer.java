@@ -1,6 +1,7 @@
 package com.github.thbrown.softballsim.lineupindexer;
 
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 import org.apache.commons.math3.util.Pair;
 import com.github.thbrown.softballsim.lineup.BattingLineup;
@@ -39,8 +40,28 @@ public interface BattingLineupIndexer {
    * 2) It should be possible to reach the optimial lineup from any other lineup by successive calls
    * to getRandomNeighbor(...). The fewer steps required, the better the implementation. Because of
    * this, a single lineup typically has lots of neighbors.
+   * 
+   * The neighbor is chosen using the given random number generator so callers can reproduce a
+   * sequence of neighbors by seeding it.
+   */
+  public Pair<Long, BattingLineup> getRandomNeighbor(long index, Random random);
+
+  /**
+   * Same as {@link #getRandomNeighbor(long, Random)} using ThreadLocalRandom.
+   */
+  public default Pair<Long, BattingLineup> getRandomNeighbor(long index) {
+    return getRandomNeighbor(index, ThreadLocalRandom.current());
+  }
+
+  /**
+   * Gets a cursor over the lineups with indexes from startIndex (inclusive) to endIndex (exclusive).
+   * Prefer this to calling getLineup(...) in a loop when visiting consecutive indexes. The default
+   * implementation just calls getLineup(...), indexers that can step to the next lineup cheaply
+   * should override it.
    */
-  public Pair<Long, BattingLineup> getRandomNeighbor(long index);
+  public default BattingLineupCursor getCursor(long startIndex, long endIndex) {
+    return new UnrankingLineupCursor(this, startIndex, Math.min(endIndex, size()));
+  }
 
 
 }
@@ -0,0 +1,110 @@
+package com.github.thbrown.softballsim.lineupindexer;
+
+import java.util.Collections;
+import java.util.List;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+
+/**
+ * Ways an optimizer can group or cut down the lineups it searches. The indexer contains one lineup
+ * from each class, and every lineup in a class is scored together.
+ */
+public enum LineupEquivalenceEnum {
+
+  /**
+   * Every lineup is searched on its own
+   */
+  NONE {
+    @Override
+    public BattingLineupIndexer getLineupIndexer(LineupTypeEnum lineupType, DataStats stats, List<String> players,
+        String leadoffPlayerId) {
+      return lineupType.getLineupIndexer(stats, players);
+    }
+
+    @Override
+    public int getClassSize(List<String> players) {
+      return 1;
+    }
+
+    @Override
+    public List<BattingLineup> getEquivalentLineups(BattingLineup lineup) {
+      return Collections.singletonList(lineup);
+    }
+  },
+
+  /**
+   * Lineups that are rotations of each other (i.e. same cyclic order, different leadoff hitter) are
+   * grouped. Rotations don't score the same in a game with a fixed number of innings, the leadoff
+   * hitter gets the most plate appearances, so every rotation in a class is scored and the class
+   * counts as its best rotation. This doesn't skip any lineups. Only ordinary lineups are supported.
+   */
+  ROTATION {
+    @Override
+    public BattingLineupIndexer getLineupIndexer(LineupTypeEnum lineupType, DataStats stats, List<String> players,
+        String leadoffPlayerId) {
+      if (lineupType != LineupTypeEnum.ORDINARY) {
+        throw new IllegalArgumentException(
+            "Rotation equivalence is only supported for " + LineupTypeEnum.ORDINARY + " lineups, not " + lineupType);
+      }
+      return new RotationBattingLineupIndexer(stats, players, null);
+    }
+
+    @Override
+    public int getClassSize(List<String> players) {
+      return players.size();
+    }
+
+    @Override
+    public List<BattingLineup> getEquivalentLineups(BattingLineup lineup) {
+      return RotationBattingLineupIndexer.getRotations(lineup);
+    }
+  },
+
+  /**
+   * Only lineups that the given player leads off are searched, that's one lineup from each rotation
+   * class. The best lineup with any other leadoff hitter can't be found. Only ordinary lineups are
+   * supported.
+   */
+  LEADOFF {
+    @Override
+    public BattingLineupIndexer getLineupIndexer(LineupTypeEnum lineupType, DataStats stats, List<String> players,
+        String leadoffPlayerId) {
+      if (lineupType != LineupTypeEnum.ORDINARY) {
+        throw new IllegalArgumentException(
+            "A fixed leadoff hitter is only supported for " + LineupTypeEnum.ORDINARY + " lineups, not "
+                + lineupType);
+      }
+      return new RotationBattingLineupIndexer(stats, players, leadoffPlayerId);
+    }
+
+    @Override
+    public int getClassSize(List<String> players) {
+      return 1;
+    }
+
+    @Override
+    public List<BattingLineup> getEquivalentLineups(BattingLineup lineup) {
+      return Collections.singletonList(lineup);
+    }
+  };
+
+  /**
+   * Gets an indexer that contains one lineup from each class
+   *
+   * @param leadoffPlayerId - id of the player that leads off every lineup, or null for the first
+   *        player. Only used by LEADOFF.
+   */
+  public abstract BattingLineupIndexer getLineupIndexer(LineupTypeEnum lineupType, DataStats stats,
+      List<String> players, String leadoffPlayerId);
+
+  /**
+   * Number of lineups in each class
+   */
+  public abstract int getClassSize(List<String> players);
+
+  /**
+   * Gets every lineup in the same class as the given lineup, including the lineup itself.
+   */
+  public abstract List<BattingLineup> getEquivalentLineups(BattingLineup lineup);
+
+}
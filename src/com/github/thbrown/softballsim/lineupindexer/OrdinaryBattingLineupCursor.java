@@ -0,0 +1,120 @@
+package com.github.thbrown.softballsim.lineupindexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import com.github.thbrown.softballsim.data.gson.DataPlayer;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.lineup.OrdinaryBattingLineup;
+import com.github.thbrown.softballsim.util.PermutationCursor;
+
+/**
+ * Steps through the lineups of an {@link OrdinaryBattingLineupIndexer} using a
+ * {@link PermutationCursor}, so the permutation is only unranked once at the start of the range and
+ * a single player buffer is reused for every lineup.
+ */
+public class OrdinaryBattingLineupCursor implements BattingLineupCursor {
+
+  private final List<DataPlayer> players;
+  private final long endIndex;
+  private final PermutationCursor permutation;
+  private final DataPlayer[] buffer;
+  private final BattingLineup view = new LineupView();
+  private long index;
+  private boolean started;
+
+  public OrdinaryBattingLineupCursor(List<DataPlayer> players, long startIndex, long endIndex) {
+    // Copied so populating the view's stats doesn't change the indexer's players
+    this.players = new ArrayList<>(players);
+    this.endIndex = endIndex;
+    this.permutation = new PermutationCursor(players.size(), startIndex);
+    this.buffer = new DataPlayer[players.size()];
+    this.index = startIndex - 1;
+  }
+
+  @Override
+  public boolean next() {
+    if (index + 1 >= endIndex) {
+      return false;
+    }
+    // The permutation cursor already points at the first lineup in the range
+    if (started) {
+      permutation.next();
+    }
+    started = true;
+    index++;
+    fillBuffer();
+    return true;
+  }
+
+  private void fillBuffer() {
+    int[] order = permutation.getOrder();
+    for (int i = 0; i < buffer.length; i++) {
+      buffer[i] = players.get(order[i]);
+    }
+  }
+
+  @Override
+  public long getIndex() {
+    return index;
+  }
+
+  @Override
+  public BattingLineup getLineup() {
+    return view;
+  }
+
+  @Override
+  public BattingLineup getLineupCopy() {
+    return new OrdinaryBattingLineup(new ArrayList<>(Arrays.asList(buffer)));
+  }
+
+  /**
+   * Read only lineup backed by the cursor's buffer.
+   */
+  private class LineupView implements BattingLineup {
+
+    @Override
+    public List<DataPlayer> asList() {
+      return Collections.unmodifiableList(Arrays.asList(buffer));
+    }
+
+    @Override
+    public DataPlayer getBatter(int index) {
+      return buffer[index % buffer.length];
+    }
+
+    @Override
+    public String getLineupType() {
+      return OrdinaryBattingLineup.getType();
+    }
+
+    /**
+     * Populates the cursor's players, so the lineups the cursor moves to after this one have stats
+     * too.
+     */
+    @Override
+    public void populateStats(DataStats battingData) {
+      for (int i = 0; i < players.size(); i++) {
+        DataPlayer statslessPlayer = players.get(i);
+        DataPlayer statsfullPlayer = battingData.getPlayerById(statslessPlayer.getId());
+        if (statsfullPlayer == null) {
+          throw new RuntimeException("Failed to populate stats for player " + statslessPlayer
+              + " as no stats for this player were found in batting data. Try running the optimization again with"
+              + " the -F flag.");
+        }
+        players.set(i, statsfullPlayer);
+      }
+      fillBuffer();
+    }
+
+    @Override
+    public int size() {
+      return buffer.length;
+    }
+
+  }
+
+}
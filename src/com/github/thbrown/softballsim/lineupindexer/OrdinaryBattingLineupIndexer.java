@@ -2,7 +2,7 @@ package com.github.thbrown.softballsim.lineupindexer;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Random;
 import org.apache.commons.math3.util.Pair;
 import com.github.thbrown.softballsim.CommandLineOptions;
 import com.github.thbrown.softballsim.data.gson.DataPlayer;
@@ -46,7 +46,12 @@ public class OrdinaryBattingLineupIndexer implements BattingLineupIndexer {
   }
 
   @Override
-  public Pair<Long, BattingLineup> getRandomNeighbor(long index) {
+  public BattingLineupCursor getCursor(long startIndex, long endIndex) {
+    return new OrdinaryBattingLineupCursor(players, startIndex, Math.min(endIndex, this.size));
+  }
+
+  @Override
+  public Pair<Long, BattingLineup> getRandomNeighbor(long index, Random random) {
     // Get the current order
     int[] order = CombinatoricsUtil.getIthPermutation(players.size(), index);
 
@@ -57,10 +62,10 @@ public class OrdinaryBattingLineupIndexer implements BattingLineupIndexer {
     }
 
     // Swap any two elements
-    int randomOne = ThreadLocalRandom.current().nextInt(players.size());
+    int randomOne = random.nextInt(players.size());
     int randomTwo = 0;
     do {
-      randomTwo = ThreadLocalRandom.current().nextInt(players.size());
+      randomTwo = random.nextInt(players.size());
     } while (randomOne == randomTwo);
     CombinatoricsUtil.swap(randomOne, randomTwo, order);
 
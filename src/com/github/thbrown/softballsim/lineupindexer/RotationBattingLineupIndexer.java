@@ -0,0 +1,133 @@
+package com.github.thbrown.softballsim.lineupindexer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.math3.util.Pair;
+import com.github.thbrown.softballsim.CommandLineOptions;
+import com.github.thbrown.softballsim.data.gson.DataPlayer;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.lineup.OrdinaryBattingLineup;
+import com.github.thbrown.softballsim.util.CombinatoricsUtil;
+
+/**
+ * Indexes the ordinary lineups that have the given player leading off, the rest of the players are
+ * permuted. That's (n-1)! lineups instead of n!. Every other lineup is a rotation of one of these
+ * (it bats in the same cyclic order and only differs in who leads off), so this also indexes one
+ * lineup from each rotation class.
+ */
+public class RotationBattingLineupIndexer implements BattingLineupIndexer {
+  private List<DataPlayer> players = new ArrayList<>();
+  private List<DataPlayer> rest;
+  private long size;
+
+  /**
+   * @param leadoffPlayerId - id of the player pinned to the leadoff spot, or null for the first
+   *        player
+   */
+  public RotationBattingLineupIndexer(DataStats stats, List<String> players, String leadoffPlayerId) {
+    // Get the DataPlayers by id
+    for (String playerId : players) {
+      this.players.add(stats.getPlayerById(playerId));
+    }
+    if (this.players.isEmpty()) {
+      throw new IllegalArgumentException("You must include at least one player in the lineup.");
+    }
+
+    // Move the leadoff hitter to the front, the rest keep their order
+    if (leadoffPlayerId != null) {
+      int leadoffIndex = players.indexOf(leadoffPlayerId);
+      if (leadoffIndex < 0) {
+        throw new IllegalArgumentException(
+            "The leadoff hitter " + leadoffPlayerId + " must be one of the players in the lineup " + players);
+      }
+      this.players.add(0, this.players.remove(leadoffIndex));
+    }
+    this.rest = this.players.subList(1, this.players.size());
+    try {
+      this.size = CombinatoricsUtil.factorial(rest.size());
+    } catch (RuntimeException r) {
+      throw new RuntimeException("Unable to index all possible lineups with that many players ("
+          + stats.getPlayers().size()
+          + "). If you have not specified a list of players, do so using the '" + CommandLineOptions.LINEUP
+          + "' flag. Otherwise, don't specify more than 21 players", r);
+    }
+  }
+
+  @Override
+  public long size() {
+    return this.size;
+  }
+
+  @Override
+  public BattingLineup getLineup(long index) {
+    if (index >= this.size) {
+      return null;
+    }
+    int[] order = CombinatoricsUtil.getIthPermutation(rest.size(), index);
+    List<DataPlayer> lineup = new ArrayList<>();
+    lineup.add(players.get(0));
+    lineup.addAll(CombinatoricsUtil.mapListToArray(rest, order));
+    return new OrdinaryBattingLineup(lineup);
+  }
+
+  /**
+   * Swaps two of the players after the leadoff spot, the leadoff hitter stays pinned.
+   */
+  @Override
+  public Pair<Long, BattingLineup> getRandomNeighbor(long index, Random random) {
+    // With fewer than two players to swap there are no neighbors
+    if (rest.size() < 2) {
+      return null;
+    }
+    int[] order = CombinatoricsUtil.getIthPermutation(rest.size(), index);
+
+    // Swap any two elements
+    int randomOne = random.nextInt(rest.size());
+    int randomTwo = 0;
+    do {
+      randomTwo = random.nextInt(rest.size());
+    } while (randomOne == randomTwo);
+    CombinatoricsUtil.swap(randomOne, randomTwo, order);
+
+    // Build the Pair
+    long newIndex = CombinatoricsUtil.getPermutationIndex(order);
+    List<DataPlayer> lineup = new ArrayList<>();
+    lineup.add(players.get(0));
+    lineup.addAll(CombinatoricsUtil.mapListToArray(rest, order));
+    return Pair.create(newIndex, new OrdinaryBattingLineup(lineup));
+  }
+
+  /**
+   * Gets the index of the rotation of the given lineup that starts with the leadoff hitter.
+   */
+  @Override
+  public long getIndex(BattingLineup lineup) {
+    List<DataPlayer> listLineup = lineup.asList();
+    int offset = listLineup.indexOf(players.get(0));
+    // The same ordering getLineup maps onto the rest of the players
+    int[] order = new int[rest.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = rest.indexOf(listLineup.get((offset + i + 1) % listLineup.size()));
+    }
+    return CombinatoricsUtil.getPermutationIndex(order);
+  }
+
+  /**
+   * All the lineups in the given lineup's rotation class, starting with the given lineup.
+   */
+  public static List<BattingLineup> getRotations(BattingLineup lineup) {
+    List<DataPlayer> listLineup = lineup.asList();
+    List<BattingLineup> rotations = new ArrayList<>();
+    for (int offset = 0; offset < listLineup.size(); offset++) {
+      List<DataPlayer> rotated = new ArrayList<>();
+      for (int i = 0; i < listLineup.size(); i++) {
+        rotated.add(listLineup.get((offset + i) % listLineup.size()));
+      }
+      rotations.add(new OrdinaryBattingLineup(rotated));
+    }
+    return rotations;
+  }
+
+}
@@ -0,0 +1,48 @@
+package com.github.thbrown.softballsim.lineupindexer;
+
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+
+/**
+ * Cursor that builds each lineup from its index. Works for any indexer, but it is no faster than
+ * calling {@link BattingLineupIndexer#getLineup(long)} in a loop.
+ */
+public class UnrankingLineupCursor implements BattingLineupCursor {
+
+  private final BattingLineupIndexer indexer;
+  private final long endIndex;
+  private long index;
+  private BattingLineup lineup;
+
+  public UnrankingLineupCursor(BattingLineupIndexer indexer, long startIndex, long endIndex) {
+    this.indexer = indexer;
+    this.index = startIndex - 1;
+    this.endIndex = endIndex;
+  }
+
+  @Override
+  public boolean next() {
+    if (index + 1 >= endIndex) {
+      return false;
+    }
+    index++;
+    lineup = indexer.getLineup(index);
+    return true;
+  }
+
+  @Override
+  public long getIndex() {
+    return index;
+  }
+
+  @Override
+  public BattingLineup getLineup() {
+    return lineup;
+  }
+
+  @Override
+  public BattingLineup getLineupCopy() {
+    // Lineups from the indexer are immutable
+    return lineup;
+  }
+
+}
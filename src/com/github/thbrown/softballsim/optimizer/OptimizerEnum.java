@@ -22,10 +22,14 @@ import com.github.thbrown.softballsim.data.gson.DataStats;
 import com.github.thbrown.softballsim.datasource.ProgressTracker;
 import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
 import com.github.thbrown.softballsim.optimizer.gson.OptimizerDefinition;
+import com.github.thbrown.softballsim.optimizer.impl.branchandbound.BranchAndBoundOptimizer;
+import com.github.thbrown.softballsim.optimizer.impl.islandgenetic.IslandGeneticOptimizer;
 import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.MonteCarloExhaustiveOptimizer;
 import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.MonteCarloAdaptiveOptimizer;
 import com.github.thbrown.softballsim.optimizer.impl.montecarloannealing.MonteCarloAnnealingOptimizer;
 import com.github.thbrown.softballsim.optimizer.impl.expectedvalue.ExpectedValueOptimizer;
+import com.github.thbrown.softballsim.optimizer.impl.markovchain.MarkovChainOptimizer;
+import com.github.thbrown.softballsim.optimizer.impl.successivehalving.SuccessiveHalvingOptimizer;
 import com.github.thbrown.softballsim.util.GsonAccessor;
 import com.github.thbrown.softballsim.util.Logger;
 import com.github.thbrown.softballsim.util.StringUtils;
@@ -40,7 +44,11 @@ public enum OptimizerEnum {
   MONTE_CARLO_EXHAUSTIVE(0, new MonteCarloExhaustiveOptimizer()),
   MONTE_CARLO_ADAPTIVE(1, new MonteCarloAdaptiveOptimizer()),
   MONTE_CARLO_ANNEALING(2, new MonteCarloAnnealingOptimizer()),
-  EXPECTED_VALUE(3, new ExpectedValueOptimizer());
+  EXPECTED_VALUE(3, new ExpectedValueOptimizer()),
+  MARKOV_CHAIN(4, new MarkovChainOptimizer()),
+  SUCCESSIVE_HALVING(5, new SuccessiveHalvingOptimizer()),
+  BRANCH_AND_BOUND(6, new BranchAndBoundOptimizer()),
+  ISLAND_GENETIC(7, new IslandGeneticOptimizer());
 
   private final int id;
   private final Optimizer<? extends Result> optimizerImplementation;
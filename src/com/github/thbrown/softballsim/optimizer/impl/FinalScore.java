@@ -0,0 +1,103 @@
+package com.github.thbrown.softballsim.optimizer.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
+import com.github.thbrown.softballsim.Result;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.WelfordSummaryStatistics;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BatchedGameSimulation;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.CommonRandomNumbers;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.MonteCarloGameSimulation;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+/**
+ * Scores the lineup an optimizer settled on with a large number of games. The mean a lineup had
+ * while it was being compared is biased upward (it won partly because it got lucky) and is often
+ * based on too few games to report, so optimizers either top it up or replace it with fresh games.
+ *
+ * The games are split into chunks of CHUNK_SIZE games that run as separate tasks, and each chunk's
+ * stats are merged in chunk order at the end. Each chunk draws from its own stream (or its own range
+ * of common random numbers), so the score for a given seed doesn't depend on the number of threads.
+ */
+public class FinalScore {
+
+  private static final long CHUNK_SIZE = 50000;
+
+  private static final NormalDistribution standardNormal = new NormalDistribution();
+
+  /**
+   * Plays the given number of games of the batting order.
+   *
+   * @param random - root generator, chunk i draws from random.getStream(i). It isn't advanced.
+   * @return the stats of the games played
+   */
+  public static WelfordSummaryStatistics simulate(int[] battingOrder, int inningsPerGame, HitGenerator hitGenerator,
+      long games, int threads, SplitMix64 random) {
+    return simulate(battingOrder, inningsPerGame, hitGenerator, games, threads, random, null, 0);
+  }
+
+  /**
+   * Same as {@link #simulate(int[], int, HitGenerator, long, int, SplitMix64)} but if
+   * commonRandomNumbers is not null the games are drawn from it instead, as games firstGame,
+   * firstGame + 1, etc...
+   */
+  public static WelfordSummaryStatistics simulate(int[] battingOrder, int inningsPerGame, HitGenerator hitGenerator,
+      long games, int threads, SplitMix64 random, CommonRandomNumbers commonRandomNumbers, long firstGame) {
+    List<Callable<WelfordSummaryStatistics>> chunks = new ArrayList<>();
+    for (long start = 0; start < games; start += CHUNK_SIZE) {
+      long chunkGames = Math.min(CHUNK_SIZE, games - start);
+      long chunkFirstGame = firstGame + start;
+      SplitMix64 chunkRandom = random.getStream(chunks.size());
+      chunks.add(() -> {
+        WelfordSummaryStatistics stats = new WelfordSummaryStatistics();
+        if (commonRandomNumbers != null) {
+          int[] plateAppearances = new int[hitGenerator.getPlayerCount()];
+          for (long game = chunkFirstGame; game < chunkFirstGame + chunkGames; game++) {
+            stats.addValue(MonteCarloGameSimulation.simulateGame(battingOrder, inningsPerGame, hitGenerator,
+                commonRandomNumbers, game, plateAppearances));
+          }
+        } else {
+          BatchedGameSimulation.simulateGames(battingOrder, inningsPerGame, hitGenerator, chunkGames, chunkRandom,
+              stats::addValue);
+        }
+        return stats;
+      });
+    }
+
+    WelfordSummaryStatistics total = new WelfordSummaryStatistics();
+    if (chunks.isEmpty()) {
+      return total;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, chunks.size())));
+    try {
+      for (Future<WelfordSummaryStatistics> chunk : executor.invokeAll(chunks)) {
+        total.merge(chunk.get());
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      throw new RuntimeException(e);
+    } finally {
+      executor.shutdown();
+    }
+    return total;
+  }
+
+  /**
+   * @return half the width of the {@link Result#CONFIDENCE} confidence interval for the mean of the
+   *         given stats, using the normal approximation. Null if there are fewer than 2 samples.
+   */
+  public static Double getConfidenceInterval(StatisticalSummary stats) {
+    if (stats.getN() < 2) {
+      return null;
+    }
+    double z = standardNormal.inverseCumulativeProbability(1 - (1 - Result.CONFIDENCE) / 2);
+    return z * stats.getStandardDeviation() / Math.sqrt(stats.getN());
+  }
+
+}
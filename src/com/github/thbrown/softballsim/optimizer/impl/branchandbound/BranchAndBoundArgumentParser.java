@@ -0,0 +1,33 @@
+package com.github.thbrown.softballsim.optimizer.impl.branchandbound;
+
+import java.util.Map;
+
+public class BranchAndBoundArgumentParser {
+
+  public final static String INNINGS = "i";
+  public final static String THREADS = "t";
+
+  public final static String THREADS_DEFAULT_TOKEN = "$getLogicalCPUCores";
+
+  private final int innings;
+  private final int threads;
+
+  public BranchAndBoundArgumentParser(Map<String, String> args) {
+    innings = Integer.parseInt(args.get(INNINGS));
+
+    String threadsString = args.get(THREADS);
+    if (threadsString.equals(THREADS_DEFAULT_TOKEN)) {
+      threads = Runtime.getRuntime().availableProcessors();
+    } else {
+      threads = Integer.parseInt(args.get(THREADS));
+    }
+  }
+
+  public int getInnings() {
+    return innings;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+}
@@ -0,0 +1,204 @@
+package com.github.thbrown.softballsim.optimizer.impl.branchandbound;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import com.github.thbrown.softballsim.Msg;
+import com.github.thbrown.softballsim.Result;
+import com.github.thbrown.softballsim.data.gson.DataPlayer;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.datasource.ProgressTracker;
+import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
+import com.github.thbrown.softballsim.optimizer.Optimizer;
+import com.github.thbrown.softballsim.optimizer.impl.markovchain.MarkovChain;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.TaskResult;
+import com.github.thbrown.softballsim.util.CombinatoricsUtil;
+import com.github.thbrown.softballsim.util.Logger;
+
+/**
+ * Finds the lineup with the highest exact expected score (see {@link MarkovChain}) without scoring
+ * every lineup. Lineups are built one slot at a time, leadoff first, and any partial lineup whose
+ * upper bound (see {@link PartialLineupBound}) can't beat the best complete lineup found so far is
+ * dropped along with every lineup that completes it. The result is the same as
+ * {@link com.github.thbrown.softballsim.optimizer.impl.markovchain.MarkovChainOptimizer}'s.
+ *
+ * The search is split into one task per choice of players for the first PREFIX_LENGTH slots, most
+ * promising first. All the tasks share the best score found so far, so a good lineup found by one
+ * task prunes all the others.
+ */
+public class BranchAndBoundOptimizer implements Optimizer<BranchAndBoundResult> {
+
+  private static final int PREFIX_LENGTH = 2;
+
+  /**
+   * The bound's memory and time grow with 2^(open slots), and n! doesn't fit in a long past this
+   */
+  private static final int MAX_PLAYERS = 20;
+
+  @Override
+  public BranchAndBoundResult optimize(List<String> playersInLineup, LineupTypeEnum lineupType,
+      DataStats battingData, Map<String, String> arguments, ProgressTracker progressTracker,
+      BranchAndBoundResult existingResult) {
+
+    // Start the timer
+    long startTimestamp = System.currentTimeMillis();
+
+    if (lineupType != LineupTypeEnum.ORDINARY) {
+      throw new IllegalArgumentException("The branch and bound optimizer only supports " + LineupTypeEnum.ORDINARY
+          + " lineups, got " + lineupType);
+    }
+
+    // A search can't be resumed part way, but a finished one doesn't need to be run again
+    if (existingResult != null && existingResult.getCountCompleted() == existingResult.getCountTotal()) {
+      return existingResult;
+    }
+
+    // Check that the batting data we have is sufficient to run this optmizer
+    validateData(battingData, playersInLineup);
+
+    // Get the arguments as their expected types
+    BranchAndBoundArgumentParser parsedArguments = new BranchAndBoundArgumentParser(arguments);
+    final int INNINGS = parsedArguments.getInnings();
+
+    List<DataPlayer> players = new ArrayList<>();
+    for (String playerId : playersInLineup) {
+      players.add(battingData.getPlayerById(playerId));
+    }
+    if (players.size() > MAX_PLAYERS) {
+      throw new IllegalArgumentException("Lineups of more than " + MAX_PLAYERS + " players are not supported");
+    }
+    long lineupCount = CombinatoricsUtil.factorial(players.size());
+
+    // Print the details before we start
+    DecimalFormat formatter = new DecimalFormat("#,###");
+    Logger.log("*********************************************************************");
+    Logger.log("Possible lineups: \t\t" + formatter.format(lineupCount));
+    Logger.log("Innings per game: \t\t" + INNINGS);
+    Logger.log("Threads used: \t\t\t" + parsedArguments.getThreads());
+    Logger.log("*********************************************************************");
+
+    // Same outcome probabilities the Markov chain optimizer uses, players are indexed by their slot
+    HitGenerator hitGenerator = new HitGenerator(players);
+    MarkovChain markovChain = new MarkovChain(hitGenerator);
+    List<DataPlayer> playersBySlot = new ArrayList<>();
+    double[][] playerProbabilities = new double[players.size()][];
+    for (int i = 0; i < players.size(); i++) {
+      playersBySlot.add(hitGenerator.getPlayer(i));
+      playerProbabilities[i] = markovChain.getOutcomeProbabilities(i);
+    }
+
+    AtomicLong incumbent = new AtomicLong(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+    LongAdder boundsCalculated = new LongAdder();
+    LongAdder lineupsScored = new LongAdder();
+
+    // Bound every choice of players for the first slots, each one is the root of a task's subtree
+    PartialLineupBound partialLineupBound = new PartialLineupBound(playerProbabilities, INNINGS);
+    double[] rootValues = new double[partialLineupBound.getValuesLength()];
+    double rootBound = partialLineupBound.getRootBound(rootValues);
+    boundsCalculated.increment();
+    Logger.log("No lineup can score more than " + rootBound);
+    int prefixLength = Math.min(PREFIX_LENGTH, players.size());
+    List<Prefix> prefixes = new ArrayList<>();
+    addPrefixes(partialLineupBound, new int[prefixLength], 0, 0L, rootValues, boundsCalculated, prefixes);
+    prefixes.sort(Comparator.comparingDouble((Prefix prefix) -> prefix.bound).reversed());
+    long lineupsPerPrefix = CombinatoricsUtil.factorial(players.size() - prefixLength);
+
+    ExecutorService executor = Executors.newFixedThreadPool(parsedArguments.getThreads());
+    Queue<Future<TaskResult>> results = new LinkedList<>();
+    for (Prefix prefix : prefixes) {
+      results.add(executor.submit(new BranchAndBoundTask(playersBySlot, markovChain, playerProbabilities,
+          prefix.order, prefix.bound, prefix.values, INNINGS, incumbent, boundsCalculated, lineupsScored)));
+    }
+
+    // Lineups that were pruned count as completed, so progress is measured in lineups ruled out
+    TaskResult best = null;
+    long lineupsCompleted = 0;
+    while (!results.isEmpty()) {
+      TaskResult result;
+      try {
+        result = results.poll().get();
+      } catch (InterruptedException | ExecutionException e) {
+        throw new RuntimeException(e);
+      }
+      if (result != null && (best == null || result.getScore() > best.getScore())) {
+        best = result;
+      }
+      lineupsCompleted += lineupsPerPrefix;
+
+      // A task that starts after a better lineup was found elsewhere may have nothing to report yet
+      if (best != null) {
+        progressTracker.updateProgress(new BranchAndBoundResult(best.getLineup(), best.getScore(), lineupCount,
+            lineupsCompleted, System.currentTimeMillis() - startTimestamp));
+      }
+    }
+    executor.shutdown();
+
+    Logger.log("Partial lineups bounded: " + formatter.format(boundsCalculated.sum()));
+    Logger.log("Lineups scored: " + formatter.format(lineupsScored.sum()));
+    BranchAndBoundResult finalResult = new BranchAndBoundResult(best.getLineup(), best.getScore(), lineupCount,
+        lineupCount, System.currentTimeMillis() - startTimestamp);
+    progressTracker.updateProgress(finalResult);
+    return finalResult;
+  }
+
+  /**
+   * The players in the first slots of every lineup a task searches, and their bound
+   */
+  private static class Prefix {
+    private final int[] order;
+    private final double bound;
+    private final double[] values;
+
+    private Prefix(int[] order, double bound, double[] values) {
+      this.order = order;
+      this.bound = bound;
+      this.values = values;
+    }
+  }
+
+  private static void addPrefixes(PartialLineupBound partialLineupBound, int[] order, int slot, long placed,
+      double[] values, LongAdder boundsCalculated, List<Prefix> prefixes) {
+    for (int player = 0; player < partialLineupBound.getPlayerCount(); player++) {
+      if ((placed & 1L << player) != 0) {
+        continue;
+      }
+      order[slot] = player;
+      double[] childValues = new double[values.length];
+      double bound = partialLineupBound.getBound(order, slot + 1, values, childValues);
+      boundsCalculated.increment();
+      if (slot + 1 == order.length) {
+        prefixes.add(new Prefix(order.clone(), bound, childValues));
+      } else {
+        addPrefixes(partialLineupBound, order, slot + 1, placed | 1L << player, childValues, boundsCalculated,
+            prefixes);
+      }
+    }
+  }
+
+  private void validateData(DataStats data, List<String> playersInLineup) {
+    // All players in the lineup must have at least one plate appearance
+    for (String playerId : playersInLineup) {
+      DataPlayer player = data.getPlayerById(playerId);
+      if (player.getPlateAppearanceCount() == 0) {
+        throw new RuntimeException(Msg.PLAYER_HAS_NO_PA.args(player.getName(), player.getId()));
+      }
+    }
+  }
+
+  @Override
+  public Class<? extends Result> getResultClass() {
+    return BranchAndBoundResult.class;
+  }
+
+}
@@ -0,0 +1,18 @@
+package com.github.thbrown.softballsim.optimizer.impl.branchandbound;
+
+import com.github.thbrown.softballsim.Result;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.optimizer.OptimizerEnum;
+
+/**
+ * Nothing beyond a plain Result is saved, but cached results are deserialized by the class
+ * returned from getResultClass(), and that can't be Result itself.
+ */
+public class BranchAndBoundResult extends Result {
+
+  public BranchAndBoundResult(BattingLineup lineup, double lineupScore, long countTotal, long countCompleted,
+      long elapsedTimeMs) {
+    super(OptimizerEnum.BRANCH_AND_BOUND, lineup, lineupScore, countTotal, countCompleted, elapsedTimeMs);
+  }
+
+}
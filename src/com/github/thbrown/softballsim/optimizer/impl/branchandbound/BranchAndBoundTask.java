@@ -0,0 +1,186 @@
+package com.github.thbrown.softballsim.optimizer.impl.branchandbound;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import com.github.thbrown.softballsim.data.gson.DataPlayer;
+import com.github.thbrown.softballsim.lineup.OrdinaryBattingLineup;
+import com.github.thbrown.softballsim.optimizer.impl.markovchain.MarkovChain;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.TaskResult;
+
+/**
+ * Searches every lineup that starts with the given players, depth first. Slots are filled in
+ * batting order, each with any player that hasn't been placed yet. A partial lineup is bounded with
+ * {@link PartialLineupBound} and skipped if that bound can't beat the best lineup found so far by
+ * any task. Once only one player is left the lineup is complete and gets its exact score from the
+ * {@link MarkovChain}.
+ */
+public class BranchAndBoundTask implements Callable<TaskResult> {
+
+  private final List<DataPlayer> players;
+  private final MarkovChain markovChain;
+  private final int[] prefix;
+  private final double prefixBound;
+  private final double[] prefixValues;
+  private final int inningsPerGame;
+  private final AtomicLong incumbent;
+  private final LongAdder boundsCalculated;
+  private final LongAdder lineupsScored;
+
+  private final PartialLineupBound partialLineupBound;
+  // Player index in each slot, only the slots before the one being filled are set
+  private final int[] order;
+  // For each slot, the players that can fill it and their bounds and values, highest bound first
+  private final int[][] childPlayers;
+  private final double[][] childBounds;
+  private final double[][][] childValues;
+  private double bestScore = Double.NEGATIVE_INFINITY;
+  private int[] bestOrder;
+
+  /**
+   * @param players - players indexed like the Markov chain's player slots
+   * @param playerProbabilities - outcome probabilities for each player, indexed like players
+   * @param prefix - player index in each of the first slots for every lineup this task searches
+   * @param prefixBound - bound of the prefix, see {@link PartialLineupBound#getBound}
+   * @param prefixValues - values from bounding the prefix
+   * @param incumbent - bits of the best score found so far (see {@link Double#doubleToLongBits}),
+   *        shared by every task
+   * @param boundsCalculated - incremented for every partial lineup bounded
+   * @param lineupsScored - incremented for every complete lineup scored
+   */
+  public BranchAndBoundTask(List<DataPlayer> players, MarkovChain markovChain, double[][] playerProbabilities,
+      int[] prefix, double prefixBound, double[] prefixValues, int inningsPerGame, AtomicLong incumbent,
+      LongAdder boundsCalculated, LongAdder lineupsScored) {
+    this.players = players;
+    this.markovChain = markovChain;
+    this.prefix = prefix;
+    this.prefixBound = prefixBound;
+    this.prefixValues = prefixValues;
+    this.inningsPerGame = inningsPerGame;
+    this.incumbent = incumbent;
+    this.boundsCalculated = boundsCalculated;
+    this.lineupsScored = lineupsScored;
+
+    int playerCount = players.size();
+    this.partialLineupBound = new PartialLineupBound(playerProbabilities, inningsPerGame);
+    this.order = new int[playerCount];
+    this.childPlayers = new int[playerCount][];
+    this.childBounds = new double[playerCount][];
+    this.childValues = new double[playerCount][][];
+    for (int slot = prefix.length; slot < playerCount; slot++) {
+      int openCount = playerCount - slot;
+      childPlayers[slot] = new int[openCount];
+      childBounds[slot] = new double[openCount];
+      childValues[slot] = new double[openCount][partialLineupBound.getValuesLength()];
+    }
+  }
+
+  /**
+   * @return the best lineup in this task's subtree, or null if none of them beat the incumbent
+   */
+  @Override
+  public TaskResult call() {
+    if (prefixBound <= getIncumbent()) {
+      return null;
+    }
+    long placed = 0;
+    for (int slot = 0; slot < prefix.length; slot++) {
+      order[slot] = prefix[slot];
+      placed |= 1L << prefix[slot];
+    }
+    if (prefix.length + 1 >= order.length) {
+      offerComplete(prefix.length, placed);
+    } else {
+      search(prefix.length, placed, prefixValues);
+    }
+
+    if (bestOrder == null) {
+      return null;
+    }
+    List<DataPlayer> lineup = new ArrayList<>();
+    for (int player : bestOrder) {
+      lineup.add(players.get(player));
+    }
+    return new TaskResult(bestScore, new OrdinaryBattingLineup(lineup));
+  }
+
+  /**
+   * Tries every unplaced player in the given slot, most promising first.
+   *
+   * @param placed - bit set of the players in the slots before this one
+   * @param values - values from bounding the slots before this one
+   */
+  private void search(int slot, long placed, double[] values) {
+    int[] children = childPlayers[slot];
+    double[] bounds = childBounds[slot];
+    double[][] valuesByChild = childValues[slot];
+    int childCount = 0;
+    for (int player = 0; player < order.length; player++) {
+      if ((placed & 1L << player) != 0) {
+        continue;
+      }
+      order[slot] = player;
+      if (slot + 2 >= order.length) {
+        offerComplete(slot + 1, placed | 1L << player);
+        continue;
+      }
+      double[] childValue = valuesByChild[childCount];
+      double bound = partialLineupBound.getBound(order, slot + 1, values, childValue);
+      boundsCalculated.increment();
+
+      // Insertion sort, highest bound first. The values arrays are swapped along with the rest.
+      int position = childCount++;
+      while (position > 0 && bounds[position - 1] < bound) {
+        children[position] = children[position - 1];
+        bounds[position] = bounds[position - 1];
+        valuesByChild[position] = valuesByChild[position - 1];
+        position--;
+      }
+      children[position] = player;
+      bounds[position] = bound;
+      valuesByChild[position] = childValue;
+    }
+
+    for (int i = 0; i < childCount; i++) {
+      // Children are sorted so none of the rest can beat the incumbent either
+      if (bounds[i] <= getIncumbent()) {
+        break;
+      }
+      order[slot] = children[i];
+      search(slot + 1, placed | 1L << children[i], valuesByChild[i]);
+    }
+  }
+
+  /**
+   * Scores the lineup made by putting the last player, if there is one, in the last slot.
+   *
+   * @param placedCount - number of slots that are filled
+   * @param placed - bit set of the players in those slots
+   */
+  private void offerComplete(int placedCount, long placed) {
+    if (placedCount < order.length) {
+      order[placedCount] = Long.numberOfTrailingZeros(~placed);
+    }
+    lineupsScored.increment();
+    double score = markovChain.getExpectedRuns(order, inningsPerGame);
+    if (score <= bestScore) {
+      return;
+    }
+    bestScore = score;
+    bestOrder = order.clone();
+
+    // Raise the shared incumbent if this beats it
+    long current = incumbent.get();
+    while (score > Double.longBitsToDouble(current)
+        && !incumbent.compareAndSet(current, Double.doubleToLongBits(score))) {
+      current = incumbent.get();
+    }
+  }
+
+  private double getIncumbent() {
+    return Double.longBitsToDouble(incumbent.get());
+  }
+
+}
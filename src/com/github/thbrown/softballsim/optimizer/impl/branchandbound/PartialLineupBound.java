@@ -0,0 +1,277 @@
+package com.github.thbrown.softballsim.optimizer.impl.branchandbound;
+
+import java.util.Arrays;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BasesUtil;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitSampler;
+
+/**
+ * Upper bound on the expected runs of any lineup that starts with the given players.
+ *
+ * The bound relaxes the rule that the players who haven't been placed bat in the same order every
+ * time through the lineup. Each time the lineup comes back around, the placed players bat in their
+ * slots as usual and the open slots are filled one at a time, each with whichever unplaced player
+ * hasn't batted yet on this trip through the lineup and scores the most from the current inning,
+ * outs and runners on base. Every real way to fill the open slots is one of the choices the relaxed
+ * game can make, so the best relaxed game scores at least as much as any of them. With no open
+ * slots it's the lineup's exact expected score.
+ *
+ * The best relaxed game is solved backwards from the last inning. The states are (inning, outs,
+ * bases, slot) where an open slot is identified by the set of unplaced players that already batted
+ * this trip, so there are 2^(open slots) of them. Within an inning and a number of outs the values
+ * depend on each other around the lineup, so they are swept around the lineup until they settle.
+ *
+ * The lineup with no players placed is swept from zero until it settles. Adding a player to a
+ * partial lineup only takes choices away, so the values of the shorter lineup are an upper bound to
+ * start its children from, and a couple of sweeps from there is close to settled. Sweeps never go
+ * below the best relaxed game from a start above it, so stopping early only loosens the bound.
+ *
+ * Instances hold scratch space and aren't thread safe, use one per thread.
+ */
+public class PartialLineupBound {
+
+  private static final int OUTS_PER_INNING = 3;
+  private static final int OUTCOME_COUNT = HitSampler.OUTCOME_COUNT;
+  private static final int BASE_STATES = BasesUtil.BASE_STATES;
+
+  /**
+   * Sweeps used to bound a partial lineup from its parent's values
+   */
+  private static final int CHILD_SWEEPS = 2;
+
+  /**
+   * Sweeping from scratch stops once the first slot's values move less than this
+   */
+  private static final double EPSILON = 1e-13;
+
+  /**
+   * Safety valve for lineups that make outs rarely (or never), same idea as the Markov chain's cap
+   */
+  private static final int MAX_SWEEPS = 1000;
+
+  private final double[][] playerProbabilities;
+  private final int inningsPerGame;
+
+  // Expected runs driven in by each player's plate appearance from each base state
+  private final double[][] runsBattedIn;
+  // Base state after a hit worth the given number of bases from each base state
+  private final int[][] basesAfterHit;
+
+  // Open slot masks, most players first, for each number of open slots
+  private final int[][] maskOrders;
+  // Scratch space for each number of placed players, [outs][slot * BASE_STATES + bases]
+  private final double[][][] slotValues;
+  // Value of each slot leading off the next inning
+  private final double[][] leadoffValues;
+  private final int[] openPlayers;
+  private final double[] best = new double[BASE_STATES];
+  private final double[] choice = new double[BASE_STATES];
+  private final double[] firstSlotBefore = new double[BASE_STATES];
+
+  /**
+   * @param playerProbabilities - for each player, the probability of each plate appearance result
+   *        indexed by the number of bases that result is worth
+   */
+  public PartialLineupBound(double[][] playerProbabilities, int inningsPerGame) {
+    this.playerProbabilities = playerProbabilities;
+    this.inningsPerGame = inningsPerGame;
+
+    int playerCount = playerProbabilities.length;
+    this.basesAfterHit = new int[OUTCOME_COUNT][BASE_STATES];
+    int[][] runs = new int[OUTCOME_COUNT][BASE_STATES];
+    for (int numBases = 1; numBases < OUTCOME_COUNT; numBases++) {
+      for (int bases = 0; bases < BASE_STATES; bases++) {
+        int transition = BasesUtil.getTransition(bases, numBases);
+        basesAfterHit[numBases][bases] = BasesUtil.getBases(transition);
+        runs[numBases][bases] = BasesUtil.getRuns(transition);
+      }
+    }
+    this.runsBattedIn = new double[playerCount][BASE_STATES];
+    for (int player = 0; player < playerCount; player++) {
+      for (int bases = 0; bases < BASE_STATES; bases++) {
+        for (int numBases = 1; numBases < OUTCOME_COUNT; numBases++) {
+          runsBattedIn[player][bases] += playerProbabilities[player][numBases] * runs[numBases][bases];
+        }
+      }
+    }
+
+    this.maskOrders = new int[playerCount + 1][];
+    this.slotValues = new double[playerCount + 1][][];
+    this.leadoffValues = new double[playerCount + 1][];
+    this.openPlayers = new int[playerCount];
+  }
+
+  public int getPlayerCount() {
+    return playerProbabilities.length;
+  }
+
+  /**
+   * @return length of the values arrays passed to the other methods
+   */
+  public int getValuesLength() {
+    return inningsPerGame * OUTS_PER_INNING * BASE_STATES;
+  }
+
+  /**
+   * Bounds the lineup with no players placed.
+   *
+   * @param values - output, the expected runs from each state with the first slot due up, used to
+   *        start the bounds of the partial lineups below this one
+   * @return the most runs any lineup can score
+   */
+  public double getRootBound(double[] values) {
+    Arrays.fill(values, 0);
+    return solve(new int[0], 0, values, values, MAX_SWEEPS);
+  }
+
+  /**
+   * Bounds a partial lineup starting from the values of the partial lineup it extends.
+   *
+   * @param order - player index in each slot, only the first placedCount are read
+   * @param parentValues - values from bounding the first placedCount - 1 players
+   * @param values - output, same as {@link #getRootBound}
+   * @return the most runs any lineup that starts with the given players can score
+   */
+  public double getBound(int[] order, int placedCount, double[] parentValues, double[] values) {
+    return solve(order, placedCount, parentValues, values, CHILD_SWEEPS);
+  }
+
+  private double solve(int[] order, int placedCount, double[] startValues, double[] values, int maxSweeps) {
+    int openCount = getOpenPlayers(order, placedCount);
+    int fullMask = (1 << openCount) - 1;
+    int[] masks = getMaskOrder(openCount);
+    double[][] nodeValues = getSlotValues(placedCount, openCount);
+    double[] nextInning = leadoffValues[placedCount];
+    Arrays.fill(nextInning, 0);
+
+    // The open slot after the last placed one is the one where no unplaced player has batted yet
+    int firstOpenSlot = openCount == 0 ? 0 : placedCount;
+
+    for (int inning = inningsPerGame - 1; inning >= 0; inning--) {
+      for (int outs = OUTS_PER_INNING - 1; outs >= 0; outs--) {
+        double[] current = nodeValues[outs];
+        double[] afterOut = outs + 1 < OUTS_PER_INNING ? nodeValues[outs + 1] : null;
+        int offset = (inning * OUTS_PER_INNING + outs) * BASE_STATES;
+        System.arraycopy(startValues, offset, current, 0, BASE_STATES);
+
+        for (int sweep = 0; sweep < maxSweeps; sweep++) {
+          System.arraycopy(current, 0, firstSlotBefore, 0, BASE_STATES);
+
+          // Open slots, each one can be filled by any unplaced player that hasn't batted this trip
+          for (int mask : masks) {
+            Arrays.fill(best, Double.NEGATIVE_INFINITY);
+            for (int i = 0; i < openCount; i++) {
+              if ((mask & 1 << i) != 0) {
+                continue;
+              }
+              int nextMask = mask | 1 << i;
+              int next = nextMask == fullMask ? 0 : placedCount + nextMask;
+              getValues(openPlayers[i], next, current, afterOut, nextInning, choice);
+              for (int bases = 0; bases < BASE_STATES; bases++) {
+                best[bases] = Math.max(best[bases], choice[bases]);
+              }
+            }
+            System.arraycopy(best, 0, current, (placedCount + mask) * BASE_STATES, BASE_STATES);
+          }
+
+          // Placed slots, last to first
+          for (int slot = placedCount - 1; slot >= 0; slot--) {
+            int next = slot + 1 < placedCount ? slot + 1 : firstOpenSlot;
+            getValues(order[slot], next, current, afterOut, nextInning, choice);
+            System.arraycopy(choice, 0, current, slot * BASE_STATES, BASE_STATES);
+          }
+
+          double change = 0;
+          for (int bases = 0; bases < BASE_STATES; bases++) {
+            change = Math.max(change, Math.abs(current[bases] - firstSlotBefore[bases]));
+          }
+          if (change < EPSILON) {
+            break;
+          }
+        }
+        System.arraycopy(current, 0, values, offset, BASE_STATES);
+      }
+
+      // A new inning starts with nobody on and nobody out
+      int slotCount = placedCount + fullMask + 1;
+      for (int slot = 0; slot < slotCount; slot++) {
+        nextInning[slot] = nodeValues[0][slot * BASE_STATES + BasesUtil.EMPTY_BASES];
+      }
+    }
+    return nextInning[0];
+  }
+
+  /**
+   * Fills values with the expected runs from here on when the given player bats from each base
+   * state and the given slot bats next.
+   *
+   * @param afterOut - values with one more out, or null if an out ends the inning
+   * @param nextInning - value of each slot leading off the next inning
+   */
+  private void getValues(int player, int next, double[] current, double[] afterOut, double[] nextInning,
+      double[] values) {
+    double[] probabilities = playerProbabilities[player];
+    double[] runs = runsBattedIn[player];
+    int nextBase = next * BASE_STATES;
+
+    // Triples and home runs clear the bases the same way from every base state
+    double extraBases = probabilities[3] * current[nextBase + basesAfterHit[3][BasesUtil.EMPTY_BASES]]
+        + probabilities[4] * current[nextBase + BasesUtil.EMPTY_BASES];
+    for (int bases = 0; bases < BASE_STATES; bases++) {
+      // Out, the runners stay put
+      double out = afterOut == null ? nextInning[next] : afterOut[nextBase + bases];
+      values[bases] = runs[bases] + probabilities[0] * out + extraBases
+          + probabilities[1] * current[nextBase + basesAfterHit[1][bases]]
+          + probabilities[2] * current[nextBase + basesAfterHit[2][bases]];
+    }
+  }
+
+  /**
+   * Fills openPlayers with the players that aren't in the first placedCount slots.
+   *
+   * @return the number of open players
+   */
+  private int getOpenPlayers(int[] order, int placedCount) {
+    long placed = 0;
+    for (int slot = 0; slot < placedCount; slot++) {
+      placed |= 1L << order[slot];
+    }
+    int openCount = 0;
+    for (int player = 0; player < playerProbabilities.length; player++) {
+      if ((placed & 1L << player) == 0) {
+        openPlayers[openCount++] = player;
+      }
+    }
+    return openCount;
+  }
+
+  /**
+   * @return every mask of openCount players except the full one, the masks with the most players
+   *         first, so each mask comes after every mask it can lead to
+   */
+  private int[] getMaskOrder(int openCount) {
+    if (maskOrders[openCount] == null) {
+      int fullMask = (1 << openCount) - 1;
+      int[] masks = new int[fullMask];
+      int i = 0;
+      for (int bitCount = openCount - 1; bitCount >= 0; bitCount--) {
+        for (int mask = 0; mask < fullMask; mask++) {
+          if (Integer.bitCount(mask) == bitCount) {
+            masks[i++] = mask;
+          }
+        }
+      }
+      maskOrders[openCount] = masks;
+    }
+    return maskOrders[openCount];
+  }
+
+  private double[][] getSlotValues(int placedCount, int openCount) {
+    if (slotValues[placedCount] == null) {
+      int slotCount = placedCount + (1 << openCount);
+      slotValues[placedCount] = new double[OUTS_PER_INNING][slotCount * BASE_STATES];
+      leadoffValues[placedCount] = new double[slotCount];
+    }
+    return slotValues[placedCount];
+  }
+
+}
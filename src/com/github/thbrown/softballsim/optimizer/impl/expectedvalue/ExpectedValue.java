@@ -45,17 +45,19 @@ public class ExpectedValue {
   private static double getExpectedScore(List<Integer> hits) {
     double score = 0;
     int outCounter = 0;
-    BasesUtil.BasesState bases = new BasesUtil.BasesState();
+    int bases = BasesUtil.EMPTY_BASES;
     for (int hit : hits) {
       if (hit == 0) {
         outCounter++;
         // Reset the bases after three outs
         if (outCounter == 3) {
-          bases.clear();
-          continue;
+          bases = BasesUtil.EMPTY_BASES;
         }
+        continue;
       }
-      score += BasesUtil.updateRunsAndBasesAfterHit(hit, bases);
+      int transition = BasesUtil.getTransition(bases, hit);
+      bases = BasesUtil.getBases(transition);
+      score += BasesUtil.getRuns(transition);
     }
     return score;
   }
@@ -0,0 +1,57 @@
+package com.github.thbrown.softballsim.optimizer.impl.islandgenetic;
+
+import java.util.Comparator;
+
+/**
+ * A lineup in a population along with the runs it has scored so far. The order holds player slots
+ * from the optimizer's HitGenerator, so it can be simulated as is.
+ */
+public class Individual {
+
+  /**
+   * Highest mean score first, lineups that haven't played yet go last.
+   */
+  public static final Comparator<Individual> BEST_FIRST = Comparator.comparingDouble(Individual::getMean).reversed();
+
+  private final int[] order;
+  private long runs;
+  private long games;
+
+  public Individual(int[] order) {
+    this.order = order;
+  }
+
+  private Individual(int[] order, long runs, long games) {
+    this.order = order;
+    this.runs = runs;
+    this.games = games;
+  }
+
+  public void addGames(long runs, long games) {
+    this.runs += runs;
+    this.games += games;
+  }
+
+  /**
+   * @return the mean score, or negative infinity if this lineup hasn't played any games
+   */
+  public double getMean() {
+    return games == 0 ? Double.NEGATIVE_INFINITY : (double) runs / games;
+  }
+
+  public long getGames() {
+    return games;
+  }
+
+  public int[] getOrder() {
+    return order;
+  }
+
+  /**
+   * @return a copy that can be given to another island, the games played so far come with it
+   */
+  public Individual copy() {
+    return new Individual(order.clone(), runs, games);
+  }
+
+}
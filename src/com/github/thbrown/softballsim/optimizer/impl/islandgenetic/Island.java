@@ -0,0 +1,182 @@
+package com.github.thbrown.softballsim.optimizer.impl.islandgenetic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BatchedGameSimulation;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.util.CombinatoricsUtil;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+/**
+ * One island's population of lineups. Each generation, every lineup plays more games and the next
+ * generation is bred from the best ones. The best lineups are carried over as is, so they keep
+ * their games and their means get more accurate the longer they survive.
+ *
+ * Islands only exchange lineups through {@link #accept}, which the optimizer calls between calls to
+ * {@link #evolve}. So an island is only ever used by one thread at a time and needs no locking.
+ */
+public class Island {
+
+  // Lineups carried over to the next generation unchanged
+  static final int ELITES = 2;
+
+  private static final int TOURNAMENT_SIZE = 3;
+  private static final double CROSSOVER_PROBABILITY = 0.9;
+  private static final double MUTATION_PROBABILITY = 0.3;
+
+  private final HitGenerator hitGenerator;
+  private final int inningsPerGame;
+  private final long gamesPerGeneration;
+  private final SplitMix64 random;
+
+  private List<Individual> population;
+  private long generations;
+  private long simulations;
+
+  /**
+   * @param populationSize - number of lineups on this island, they start out as random orders of the
+   *        hitGenerator's players
+   * @param gamesPerGeneration - number of games every lineup plays each generation
+   * @param random - generator everything on this island is drawn from
+   */
+  public Island(HitGenerator hitGenerator, int populationSize, int inningsPerGame, long gamesPerGeneration,
+      SplitMix64 random) {
+    this.hitGenerator = hitGenerator;
+    this.inningsPerGame = inningsPerGame;
+    this.gamesPerGeneration = gamesPerGeneration;
+    this.random = random;
+
+    this.population = new ArrayList<>(populationSize);
+    for (int i = 0; i < populationSize; i++) {
+      int[] order = new int[hitGenerator.getPlayerCount()];
+      Arrays.setAll(order, j -> j);
+      for (int j = order.length - 1; j > 0; j--) {
+        CombinatoricsUtil.swap(j, random.nextInt(j + 1), order);
+      }
+      population.add(new Individual(order));
+    }
+  }
+
+  /**
+   * Runs the given number of generations. When this returns every lineup in the population has played
+   * at least one generation's worth of games.
+   */
+  public void evolve(int generationCount) {
+    for (int i = 0; i < generationCount; i++) {
+      if (generations++ > 0) {
+        breed();
+      }
+      for (Individual individual : population) {
+        long runs = BatchedGameSimulation.simulateGames(individual.getOrder(), inningsPerGame, hitGenerator,
+            gamesPerGeneration, random, null);
+        individual.addGames(runs, gamesPerGeneration);
+      }
+      simulations += gamesPerGeneration * population.size();
+    }
+  }
+
+  /**
+   * Replaces this island's worst lineup with a migrant from another island. Nothing happens if the
+   * island already has a lineup with the same order.
+   */
+  public void accept(Individual migrant) {
+    Individual worst = population.get(0);
+    for (Individual individual : population) {
+      if (Arrays.equals(individual.getOrder(), migrant.getOrder())) {
+        return;
+      }
+      if (Individual.BEST_FIRST.compare(individual, worst) > 0) {
+        worst = individual;
+      }
+    }
+    population.set(population.indexOf(worst), migrant);
+  }
+
+  /**
+   * @return a read only view of the lineups on this island
+   */
+  public List<Individual> getPopulation() {
+    return Collections.unmodifiableList(population);
+  }
+
+  public Individual getBest() {
+    return population.stream().min(Individual.BEST_FIRST).get();
+  }
+
+  public long getSimulations() {
+    return simulations;
+  }
+
+  public long getGenerations() {
+    return generations;
+  }
+
+  private void breed() {
+    population.sort(Individual.BEST_FIRST);
+    List<Individual> next = new ArrayList<>(population.size());
+    next.addAll(population.subList(0, ELITES));
+    while (next.size() < population.size()) {
+      int[] parent = select().getOrder();
+      int[] child = random.nextDouble() < CROSSOVER_PROBABILITY ? orderCrossover(parent, select().getOrder(), random)
+          : parent.clone();
+      if (child.length > 1 && random.nextDouble() < MUTATION_PROBABILITY) {
+        // Same move as OrdinaryBattingLineupIndexer.getRandomNeighbor
+        int first = random.nextInt(child.length);
+        int second = (first + 1 + random.nextInt(child.length - 1)) % child.length;
+        CombinatoricsUtil.swap(first, second, child);
+      }
+      next.add(new Individual(child));
+    }
+    population = next;
+  }
+
+  /**
+   * Tournament selection, the best of a few lineups picked at random.
+   */
+  private Individual select() {
+    Individual best = population.get(random.nextInt(population.size()));
+    for (int i = 1; i < TOURNAMENT_SIZE; i++) {
+      Individual contender = population.get(random.nextInt(population.size()));
+      if (Individual.BEST_FIRST.compare(contender, best) < 0) {
+        best = contender;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Order crossover (OX1). The child gets a random run of slots from the first parent as is, then the
+   * rest of the slots are filled with the remaining players in the order they bat for the second
+   * parent, starting right after the run. Batters that follow each other in either parent tend to
+   * follow each other in the child, and the child is always a valid lineup.
+   */
+  public static int[] orderCrossover(int[] first, int[] second, SplitMix64 random) {
+    int length = first.length;
+    int start = random.nextInt(length);
+    int end = random.nextInt(length);
+    if (start > end) {
+      int temp = start;
+      start = end;
+      end = temp;
+    }
+
+    int[] child = new int[length];
+    boolean[] taken = new boolean[length];
+    for (int i = start; i <= end; i++) {
+      child[i] = first[i];
+      taken[first[i]] = true;
+    }
+    int position = (end + 1) % length;
+    for (int i = 0; i < length; i++) {
+      int player = second[(end + 1 + i) % length];
+      if (!taken[player]) {
+        child[position] = player;
+        position = (position + 1) % length;
+      }
+    }
+    return child;
+  }
+
+}
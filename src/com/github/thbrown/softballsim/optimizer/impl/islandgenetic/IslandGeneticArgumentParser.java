@@ -0,0 +1,88 @@
+package com.github.thbrown.softballsim.optimizer.impl.islandgenetic;
+
+import java.util.Map;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+public class IslandGeneticArgumentParser {
+
+  public final static String DURATION = "d";
+  public final static String GAMES = "g";
+  public final static String INNINGS = "i";
+  public final static String POPULATION = "p";
+  public final static String SEED = "s";
+  public final static String THREADS = "t";
+
+  public final static String THREADS_DEFAULT_TOKEN = "$getLogicalCPUCores";
+
+  private final int duration;
+  private final int games;
+  private final int innings;
+  private final int population;
+  private final long seed;
+  private final int threads;
+
+  public IslandGeneticArgumentParser(Map<String, String> args) {
+    duration = Integer.parseInt(args.get(DURATION));
+    games = Integer.parseInt(args.get(GAMES));
+    innings = Integer.parseInt(args.get(INNINGS));
+    population = Integer.parseInt(args.get(POPULATION));
+
+    if (games < 1) {
+      throw new IllegalArgumentException("Each lineup needs at least 1 game per generation, got " + games);
+    }
+    if (population < Island.ELITES + 2) {
+      throw new IllegalArgumentException("Each island needs a population of at least " + (Island.ELITES + 2)
+          + ", got " + population);
+    }
+
+    String threadsString = args.get(THREADS);
+    if (threadsString.equals(THREADS_DEFAULT_TOKEN)) {
+      threads = Runtime.getRuntime().availableProcessors();
+    } else {
+      threads = Integer.parseInt(args.get(THREADS));
+    }
+
+    seed = SplitMix64.parseSeed(args.get(SEED));
+  }
+
+  /**
+   * How long to evolve the populations for, in seconds.
+   */
+  public int getDuration() {
+    return duration;
+  }
+
+  /**
+   * Number of games every lineup plays each generation.
+   */
+  public int getGames() {
+    return games;
+  }
+
+  public int getInnings() {
+    return innings;
+  }
+
+  /**
+   * Number of lineups on each island.
+   */
+  public int getPopulation() {
+    return population;
+  }
+
+  /**
+   * Seed for all the random numbers used by the optimizer. The number of generations depends on how
+   * fast the machine is, so only runs with the same seed that get through the same number of
+   * generations produce the same result.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Number of threads, there is one island per thread.
+   */
+  public int getThreads() {
+    return threads;
+  }
+}
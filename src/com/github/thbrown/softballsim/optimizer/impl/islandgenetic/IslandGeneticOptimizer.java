@@ -0,0 +1,204 @@
+package com.github.thbrown.softballsim.optimizer.impl.islandgenetic;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
+import com.github.thbrown.softballsim.Msg;
+import com.github.thbrown.softballsim.Result;
+import com.github.thbrown.softballsim.data.gson.DataPlayer;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.datasource.ProgressTracker;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.lineup.OrdinaryBattingLineup;
+import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
+import com.github.thbrown.softballsim.optimizer.Optimizer;
+import com.github.thbrown.softballsim.optimizer.impl.FinalScore;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.TTestTask;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BatchedGameSimulation;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.util.CombinatoricsUtil;
+import com.github.thbrown.softballsim.util.Logger;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+/**
+ * Evolves one population of lineups per thread for a fixed amount of time. Islands evolve on their
+ * own for MIGRATION_INTERVAL generations at a time, then each island's best lineup is copied to the
+ * next island in a ring, replacing that island's worst. This spreads good lineups around without
+ * letting one of them take over every island.
+ *
+ * Unlike the other optimizers this never looks at every lineup, so it works on rosters that are much
+ * too big for an exhaustive search. Only normal lineups are supported, the crossover relies on every
+ * order of the players being a valid lineup.
+ */
+public class IslandGeneticOptimizer implements Optimizer<IslandGeneticResult> {
+
+  private static final int MIGRATION_INTERVAL = 5;
+
+  // Each island's best lineup plays this many fresh games to pick the winner, then the winner plays
+  // FINAL_RESULT_GAMES fresh games for its score
+  private static final long PLAYOFF_GAMES = 100000;
+  private static final long FINAL_RESULT_GAMES = TTestTask.MAX_ITERATIONS;
+
+  // Stream keys, islands are keyed by island number
+  private static final long PLAYOFF_STREAM = -1;
+  private static final long FINAL_RESULT_STREAM = -2;
+
+  @Override
+  public IslandGeneticResult optimize(List<String> playersInLineup, LineupTypeEnum lineupType,
+      DataStats battingData, Map<String, String> arguments, ProgressTracker progressTracker,
+      IslandGeneticResult existingResult) {
+
+    // Start the timer
+    long startTimestamp = System.currentTimeMillis();
+
+    if (lineupType != LineupTypeEnum.ORDINARY) {
+      throw new IllegalArgumentException("The island genetic optimizer only supports " + LineupTypeEnum.ORDINARY
+          + " lineups, got " + lineupType);
+    }
+
+    // A run can't be resumed part way, but a finished one (it has a confidence interval) doesn't need
+    // to be run again
+    if (existingResult != null && existingResult.getLineupScoreConfidenceInterval() != null) {
+      return existingResult;
+    }
+
+    // Check that the batting data we have is sufficient to run this optmizer
+    validateData(battingData, playersInLineup);
+
+    // Get the arguments as their expected types
+    IslandGeneticArgumentParser parsedArguments = new IslandGeneticArgumentParser(arguments);
+    final int INNINGS = parsedArguments.getInnings();
+
+    List<DataPlayer> players = new ArrayList<>();
+    for (String playerId : playersInLineup) {
+      players.add(battingData.getPlayerById(playerId));
+    }
+
+    // Print the details before we start
+    DecimalFormat formatter = new DecimalFormat("#,###");
+    Logger.log("*********************************************************************");
+    Logger.log("Players: \t\t\t" + players.size());
+    Logger.log("Islands: \t\t\t" + parsedArguments.getThreads());
+    Logger.log("Population per island: \t" + parsedArguments.getPopulation());
+    Logger.log("Games per generation: \t\t" + formatter.format(parsedArguments.getGames()));
+    Logger.log("Duration: \t\t\t" + parsedArguments.getDuration() + " seconds");
+    Logger.log("Innings per game: \t\t" + INNINGS);
+    Logger.log("Seed: \t\t\t\t" + parsedArguments.getSeed());
+    Logger.log("*********************************************************************");
+
+    // Lineup orders are indexes into players, which are the same as this generator's player slots
+    HitGenerator hitGenerator = new HitGenerator(players);
+
+    SplitMix64 random = new SplitMix64(parsedArguments.getSeed());
+    List<Island> islands = new ArrayList<>();
+    for (int i = 0; i < parsedArguments.getThreads(); i++) {
+      islands.add(new Island(hitGenerator, parsedArguments.getPopulation(), INNINGS, parsedArguments.getGames(),
+          random.getStream(i)));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(parsedArguments.getThreads());
+    long durationMs = parsedArguments.getDuration() * 1000L;
+    long elapsedTime;
+    do {
+      List<Callable<Void>> tasks = new ArrayList<>();
+      for (Island island : islands) {
+        tasks.add(() -> {
+          island.evolve(MIGRATION_INTERVAL);
+          return null;
+        });
+      }
+      invokeAll(executor, tasks);
+
+      // Take all the migrants before placing any of them so a lineup only moves one island per migration
+      List<Individual> migrants = new ArrayList<>();
+      for (Island island : islands) {
+        migrants.add(island.getBest().copy());
+      }
+      for (int i = 0; i < islands.size(); i++) {
+        islands.get((i + 1) % islands.size()).accept(migrants.get(i));
+      }
+
+      Individual best = migrants.stream().min(Individual.BEST_FIRST).get();
+      elapsedTime = System.currentTimeMillis() - startTimestamp;
+      progressTracker.updateProgress(new IslandGeneticResult(getLineup(players, best), best.getMean(), durationMs,
+          Math.min(elapsedTime, durationMs), elapsedTime));
+    } while (elapsedTime < durationMs);
+
+    // Island means are biased upward, the best lineups are partly the luckiest ones, so pick the
+    // winner with fresh games
+    List<Individual> finalists = new ArrayList<>();
+    for (Island island : islands) {
+      Individual best = island.getBest();
+      if (finalists.stream().noneMatch(finalist -> Arrays.equals(finalist.getOrder(), best.getOrder()))) {
+        finalists.add(new Individual(best.getOrder()));
+      }
+    }
+    SplitMix64 playoffRandom = random.getStream(PLAYOFF_STREAM);
+    List<Callable<Void>> playoff = new ArrayList<>();
+    for (int i = 0; i < finalists.size(); i++) {
+      Individual finalist = finalists.get(i);
+      SplitMix64 finalistRandom = playoffRandom.getStream(i);
+      playoff.add(() -> {
+        finalist.addGames(BatchedGameSimulation.simulateGames(finalist.getOrder(), INNINGS, hitGenerator,
+            PLAYOFF_GAMES, finalistRandom, null), PLAYOFF_GAMES);
+        return null;
+      });
+    }
+    invokeAll(executor, playoff);
+    executor.shutdown();
+
+    Individual winner = finalists.stream().min(Individual.BEST_FIRST).get();
+    StatisticalSummary finalStats = FinalScore.simulate(winner.getOrder(), INNINGS, hitGenerator, FINAL_RESULT_GAMES,
+        parsedArguments.getThreads(), random.getStream(FINAL_RESULT_STREAM));
+
+    long generations = islands.stream().mapToLong(Island::getGenerations).sum();
+    long simulationsRun = islands.stream().mapToLong(Island::getSimulations).sum()
+        + PLAYOFF_GAMES * finalists.size() + FINAL_RESULT_GAMES;
+    Logger.log("Generations: " + formatter.format(generations) + " across all islands");
+    Logger.log("Simulations required: " + formatter.format(simulationsRun));
+
+    elapsedTime = System.currentTimeMillis() - startTimestamp;
+    IslandGeneticResult finalResult = new IslandGeneticResult(getLineup(players, winner), finalStats.getMean(),
+        FinalScore.getConfidenceInterval(finalStats), durationMs, durationMs, elapsedTime);
+    progressTracker.updateProgress(finalResult);
+    return finalResult;
+  }
+
+  private static BattingLineup getLineup(List<DataPlayer> players, Individual individual) {
+    return new OrdinaryBattingLineup(CombinatoricsUtil.mapListToArray(players, individual.getOrder()));
+  }
+
+  private static void invokeAll(ExecutorService executor, List<Callable<Void>> tasks) {
+    try {
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void validateData(DataStats data, List<String> playersInLineup) {
+    // All players in the lineup must have at least one plate appearance
+    for (String playerId : playersInLineup) {
+      DataPlayer player = data.getPlayerById(playerId);
+      if (player.getPlateAppearanceCount() == 0) {
+        throw new RuntimeException(Msg.PLAYER_HAS_NO_PA.args(player.getName(), player.getId()));
+      }
+    }
+  }
+
+  @Override
+  public Class<? extends Result> getResultClass() {
+    return IslandGeneticResult.class;
+  }
+
+}
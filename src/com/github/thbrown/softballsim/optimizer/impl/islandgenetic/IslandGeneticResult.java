@@ -0,0 +1,24 @@
+package com.github.thbrown.softballsim.optimizer.impl.islandgenetic;
+
+import com.github.thbrown.softballsim.Result;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.optimizer.OptimizerEnum;
+
+/**
+ * Nothing beyond a plain Result is saved, but cached results are deserialized by the class
+ * returned from getResultClass(), and that can't be Result itself.
+ */
+public class IslandGeneticResult extends Result {
+
+  public IslandGeneticResult(BattingLineup lineup, double lineupScore, long countTotal, long countCompleted,
+      long elapsedTimeMs) {
+    this(lineup, lineupScore, null, countTotal, countCompleted, elapsedTimeMs);
+  }
+
+  public IslandGeneticResult(BattingLineup lineup, double lineupScore, Double lineupScoreConfidenceInterval,
+      long countTotal, long countCompleted, long elapsedTimeMs) {
+    super(OptimizerEnum.ISLAND_GENETIC, lineup, lineupScore, lineupScoreConfidenceInterval, countTotal,
+        countCompleted, elapsedTimeMs);
+  }
+
+}
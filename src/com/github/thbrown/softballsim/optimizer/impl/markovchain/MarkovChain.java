@@ -0,0 +1,184 @@
+package com.github.thbrown.softballsim.optimizer.impl.markovchain;
+
+import java.util.Arrays;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BasesUtil;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitSampler;
+
+/**
+ * Calculates the exact expected number of runs a lineup scores in a game by treating an inning as a
+ * Markov chain over (outs, base occupancy) instead of simulating it.
+ * 
+ * Because the batter always advances by one after a plate appearance, all the probability mass of
+ * an inning that started with a given leadoff slot is at the same batter after k plate appearances.
+ * For each leadoff slot we push the mass forward one plate appearance at a time, accumulating the
+ * expected runs and the probability that the inning ends with each slot due up next. Then a second
+ * pass carries the distribution of the leadoff slot through the innings of the game.
+ * 
+ * This uses the same per-player outcome probabilities as {@link HitGenerator} so the results are
+ * directly comparable to the Monte Carlo optimizers. This class is immutable so the same instance
+ * can be used from multiple threads.
+ */
+public class MarkovChain {
+
+  private static final int OUTS_PER_INNING = 3;
+  private static final int STATES = OUTS_PER_INNING * BasesUtil.BASE_STATES;
+
+  /**
+   * Stop following an inning once less than this much probability mass is still in play.
+   */
+  private static final double EPSILON = 1e-12;
+
+  /**
+   * Safety valve for lineups that make outs rarely (or never). Any mass left after this many plate
+   * appearances is treated as a completed inning. The Monte Carlo simulation has a similar cap.
+   */
+  private static final int MAX_PLATE_APPEARANCES_PER_INNING = 1000;
+
+  private final double[][] outcomeProbabilities;
+
+  public MarkovChain(HitGenerator hitGenerator) {
+    this(getOutcomeCounts(hitGenerator));
+  }
+
+  /**
+   * @param outcomeCounts - for each player slot, the number of times the player got each plate
+   *        appearance result indexed by the number of bases that result is worth
+   */
+  public MarkovChain(int[][] outcomeCounts) {
+    this.outcomeProbabilities = new double[outcomeCounts.length][];
+    for (int i = 0; i < outcomeCounts.length; i++) {
+      int total = 0;
+      for (int count : outcomeCounts[i]) {
+        total += count;
+      }
+      if (total == 0) {
+        throw new IllegalArgumentException("Player in slot " + i + " has no plate appearances");
+      }
+      double[] probabilities = new double[HitSampler.OUTCOME_COUNT];
+      for (int j = 0; j < probabilities.length; j++) {
+        probabilities[j] = (double) outcomeCounts[i][j] / total;
+      }
+      outcomeProbabilities[i] = probabilities;
+    }
+  }
+
+  /**
+   * @return the probability of each plate appearance result for the player in the given player slot,
+   *         indexed by the number of bases that result is worth
+   */
+  public double[] getOutcomeProbabilities(int playerSlot) {
+    return outcomeProbabilities[playerSlot].clone();
+  }
+
+  private static int[][] getOutcomeCounts(HitGenerator hitGenerator) {
+    int[][] outcomeCounts = new int[hitGenerator.getPlayerCount()][];
+    for (int i = 0; i < outcomeCounts.length; i++) {
+      outcomeCounts[i] = HitGenerator.getOutcomeCounts(hitGenerator.getPlayer(i));
+    }
+    return outcomeCounts;
+  }
+
+  /**
+   * @param battingOrder - player slots, as returned by {@link HitGenerator#getBattingOrder}
+   * @param inningsPerGame - number of innings in the game
+   * @return the expected number of runs scored in a game
+   */
+  public double getExpectedRuns(int[] battingOrder, int inningsPerGame) {
+    int cycleLength = battingOrder.length;
+
+    // Expected runs and next leadoff distribution for an inning started by each slot
+    double[] inningRuns = new double[cycleLength];
+    double[][] nextLeadoff = new double[cycleLength][cycleLength];
+    double[] current = new double[STATES];
+    double[] next = new double[STATES];
+    for (int leadoff = 0; leadoff < cycleLength; leadoff++) {
+      inningRuns[leadoff] = getInningRuns(battingOrder, leadoff, nextLeadoff[leadoff], current, next);
+    }
+
+    // The first inning is always started by the first batter
+    double[] leadoffDistribution = new double[cycleLength];
+    double[] nextLeadoffDistribution = new double[cycleLength];
+    leadoffDistribution[0] = 1;
+    double expectedRuns = 0;
+    for (int inning = 0; inning < inningsPerGame; inning++) {
+      Arrays.fill(nextLeadoffDistribution, 0);
+      for (int leadoff = 0; leadoff < cycleLength; leadoff++) {
+        double probability = leadoffDistribution[leadoff];
+        if (probability == 0) {
+          continue;
+        }
+        expectedRuns += probability * inningRuns[leadoff];
+        double[] transitions = nextLeadoff[leadoff];
+        for (int j = 0; j < cycleLength; j++) {
+          nextLeadoffDistribution[j] += probability * transitions[j];
+        }
+      }
+      double[] temp = leadoffDistribution;
+      leadoffDistribution = nextLeadoffDistribution;
+      nextLeadoffDistribution = temp;
+    }
+    return expectedRuns;
+  }
+
+  /**
+   * Follows a single inning started by the given slot.
+   * 
+   * @param nextLeadoff - output, filled with the probability that each slot leads off the next inning
+   * @param current - scratch space of size STATES
+   * @param next - scratch space of size STATES
+   * @return the expected number of runs scored in the inning
+   */
+  private double getInningRuns(int[] battingOrder, int leadoff, double[] nextLeadoff, double[] current,
+      double[] next) {
+    int cycleLength = battingOrder.length;
+    Arrays.fill(current, 0);
+    current[BasesUtil.EMPTY_BASES] = 1; // No outs, nobody on
+
+    double expectedRuns = 0;
+    double remaining = 1;
+    int slot = leadoff;
+    for (int pa = 0; pa < MAX_PLATE_APPEARANCES_PER_INNING && remaining > EPSILON; pa++) {
+      double[] probabilities = outcomeProbabilities[battingOrder[slot]];
+      slot = slot + 1 == cycleLength ? 0 : slot + 1;
+      Arrays.fill(next, 0);
+      for (int outs = 0; outs < OUTS_PER_INNING; outs++) {
+        for (int bases = 0; bases < BasesUtil.BASE_STATES; bases++) {
+          double mass = current[outs * BasesUtil.BASE_STATES + bases];
+          if (mass == 0) {
+            continue;
+          }
+
+          // Out, the runners stay put
+          double outMass = mass * probabilities[0];
+          if (outs + 1 == OUTS_PER_INNING) {
+            nextLeadoff[slot] += outMass;
+          } else {
+            next[(outs + 1) * BasesUtil.BASE_STATES + bases] += outMass;
+          }
+
+          // Hits
+          for (int numBases = 1; numBases < HitSampler.OUTCOME_COUNT; numBases++) {
+            double hitMass = mass * probabilities[numBases];
+            int transition = BasesUtil.getTransition(bases, numBases);
+            next[outs * BasesUtil.BASE_STATES + BasesUtil.getBases(transition)] += hitMass;
+            expectedRuns += hitMass * BasesUtil.getRuns(transition);
+          }
+        }
+      }
+      double[] temp = current;
+      current = next;
+      next = temp;
+
+      remaining = 0;
+      for (int i = 0; i < STATES; i++) {
+        remaining += current[i];
+      }
+    }
+
+    // Whatever is left over (almost always nothing) ends the inning with the current batter due up
+    nextLeadoff[slot] += remaining;
+    return expectedRuns;
+  }
+
+}
@@ -0,0 +1,40 @@
+package com.github.thbrown.softballsim.optimizer.impl.markovchain;
+
+import java.util.Map;
+
+public class MarkovChainArgumentParser {
+
+  public final static String INNINGS = "i";
+  public final static String LOWEST_SCORE = "l";
+  public final static String THREADS = "t";
+
+  public final static String THREADS_DEFAULT_TOKEN = "$getLogicalCPUCores";
+
+  private final int innings;
+  private final int threads;
+  private final boolean lowestScore;
+
+  public MarkovChainArgumentParser(Map<String, String> args) {
+    innings = Integer.parseInt(args.get(INNINGS));
+    lowestScore = Boolean.parseBoolean(args.get(LOWEST_SCORE));
+
+    String threadsString = args.get(THREADS);
+    if (threadsString.equals(THREADS_DEFAULT_TOKEN)) {
+      threads = Runtime.getRuntime().availableProcessors();
+    } else {
+      threads = Integer.parseInt(args.get(THREADS));
+    }
+  }
+
+  public int getInnings() {
+    return innings;
+  }
+
+  public boolean isLowestScore() {
+    return lowestScore;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+}
@@ -0,0 +1,140 @@
+package com.github.thbrown.softballsim.optimizer.impl.markovchain;
+
+import java.text.DecimalFormat;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import com.github.thbrown.softballsim.Msg;
+import com.github.thbrown.softballsim.Result;
+import com.github.thbrown.softballsim.data.gson.DataPlayer;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.datasource.ProgressTracker;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupIndexer;
+import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
+import com.github.thbrown.softballsim.optimizer.Optimizer;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.ExhaustiveAccumulator;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.MonteCarloExhaustiveResult;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.TaskResult;
+import com.github.thbrown.softballsim.util.Logger;
+
+/**
+ * Exhaustive optimizer that scores every possible lineup by its exact expected runs per game (see
+ * {@link MarkovChain}). There is no sampling involved so the result is deterministic.
+ */
+public class MarkovChainOptimizer implements Optimizer<MonteCarloExhaustiveResult> {
+
+  private static final int LINEUPS_PER_TASK = 5000;
+  private static final int TASKS_PER_THREAD = 4;
+
+  @Override
+  public MonteCarloExhaustiveResult optimize(List<String> playersInLineup, LineupTypeEnum lineupType,
+      DataStats battingData, Map<String, String> arguments, ProgressTracker progressTracker,
+      MonteCarloExhaustiveResult existingResult) {
+
+    // Start the timer
+    long startTimestamp = System.currentTimeMillis();
+
+    // Check that the batting data we have is sufficient to run this optmizer
+    validateData(battingData, playersInLineup);
+
+    // Get the arguments as their expected types
+    MarkovChainArgumentParser parsedArguments = new MarkovChainArgumentParser(arguments);
+
+    // Since this optimizer involves iterating over all possible lineups, we'll use the lineup indexer
+    BattingLineupIndexer indexer = lineupType.getLineupIndexer(battingData, playersInLineup);
+
+    // Print the details before we start
+    DecimalFormat formatter = new DecimalFormat("#,###");
+    Logger.log("*********************************************************************");
+    Logger.log("Possible lineups: \t\t" + formatter.format(indexer.size()));
+    Logger.log("Innings per game: \t\t" + parsedArguments.getInnings());
+    Logger.log("Threads used: \t\t\t" + parsedArguments.getThreads());
+    Logger.log("*********************************************************************");
+
+    /*
+     * Build a hitGenerator and a Markov chain that can be used across threads, this way we only have
+     * to parse the stats data once. We're using the first lineup here (index 0) to get a list of
+     * players, but we could have used any lineup.
+     */
+    List<DataPlayer> someLineup = indexer.getLineup(0).asList();
+    HitGenerator hitGenerator = new HitGenerator(someLineup);
+    MarkovChain markovChain = new MarkovChain(hitGenerator);
+
+    // Our optimizer is parallelizable so we want to take advantage of multiple cores
+    ExecutorService executor = Executors.newFixedThreadPool(parsedArguments.getThreads());
+    Queue<Future<ExhaustiveAccumulator>> results = new LinkedList<>();
+
+    // Queue up a few tasks to process, each task scores a contiguous range of lineups
+    long startIndex = Optional.ofNullable(existingResult).map(v -> v.getCountCompleted()).orElse(0L);
+    long lineupQueueCounter = startIndex; // Lineups ready to be enqueued
+    for (int i = 0; i < parsedArguments.getThreads() * TASKS_PER_THREAD && lineupQueueCounter < indexer.size(); i++) {
+      long endIndex = Math.min(lineupQueueCounter + LINEUPS_PER_TASK, indexer.size());
+      results.add(executor.submit(new MarkovChainTask(indexer, lineupQueueCounter, endIndex, hitGenerator,
+          markovChain, parsedArguments.getInnings())));
+      lineupQueueCounter = endIndex;
+    }
+
+    // Seed the accumulator with the previous run's result, if there was one
+    ExhaustiveAccumulator total = new ExhaustiveAccumulator();
+    if (existingResult != null) {
+      BattingLineup initialLineup = existingResult.getLineup();
+      initialLineup.populateStats(battingData);
+      total = new ExhaustiveAccumulator(new TaskResult(existingResult.getLineupScore(), initialLineup),
+          existingResult.getWorstScore(), existingResult.getHistogram(), existingResult.getCountCompleted());
+    }
+
+    // Process results in the order they were submitted so the completed count is always a prefix
+    while (!results.isEmpty()) {
+      // Wait for the result
+      try {
+        total.merge(results.poll().get());
+      } catch (InterruptedException | ExecutionException e) {
+        throw new RuntimeException(e);
+      }
+
+      // Update the progress tracker
+      long elapsedTime = (System.currentTimeMillis() - startTimestamp)
+          + Optional.ofNullable(existingResult).map(v -> v.getElapsedTimeMs()).orElse(0l);
+      MarkovChainResult partialResult = new MarkovChainResult(total.getBestResult().getLineup(),
+          total.getBestResult().getScore(), indexer.size(), total.getCount(), elapsedTime, total.getHistogram(),
+          total.getWorstScore());
+      progressTracker.updateProgress(partialResult);
+
+      // Add another task to the buffer if there are any lineups left
+      if (lineupQueueCounter < indexer.size()) {
+        long endIndex = Math.min(lineupQueueCounter + LINEUPS_PER_TASK, indexer.size());
+        results.add(executor.submit(new MarkovChainTask(indexer, lineupQueueCounter, endIndex, hitGenerator,
+            markovChain, parsedArguments.getInnings())));
+        lineupQueueCounter = endIndex;
+      }
+    }
+    executor.shutdown();
+    long elapsedTime = (System.currentTimeMillis() - startTimestamp)
+        + Optional.ofNullable(existingResult).map(v -> v.getElapsedTimeMs()).orElse(0l);
+    return new MarkovChainResult(total.getBestResult().getLineup(), total.getBestResult().getScore(),
+        indexer.size(), total.getCount(), elapsedTime, total.getHistogram(), total.getWorstScore());
+  }
+
+  private void validateData(DataStats data, List<String> playersInLineup) {
+    // All players in the lineup must have at least one plate appearance
+    for (String playerId : playersInLineup) {
+      DataPlayer player = data.getPlayerById(playerId);
+      if (player.getPlateAppearanceCount() == 0) {
+        throw new RuntimeException(Msg.PLAYER_HAS_NO_PA.args(player.getName(), player.getId()));
+      }
+    }
+  }
+
+  @Override
+  public Class<? extends Result> getResultClass() {
+    return MonteCarloExhaustiveResult.class;
+  }
+}
@@ -0,0 +1,16 @@
+package com.github.thbrown.softballsim.optimizer.impl.markovchain;
+
+import java.util.Map;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.optimizer.OptimizerEnum;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.MonteCarloExhaustiveResult;
+
+public class MarkovChainResult extends MonteCarloExhaustiveResult {
+
+  public MarkovChainResult(BattingLineup lineup, double lineupScore, long countTotal, long countCompleted,
+      long elapsedTimeMs, Map<Long, Long> histogram, double worstScore) {
+    super(OptimizerEnum.MARKOV_CHAIN, lineup, lineupScore, countTotal, countCompleted, elapsedTimeMs,
+        histogram, worstScore);
+  }
+
+}
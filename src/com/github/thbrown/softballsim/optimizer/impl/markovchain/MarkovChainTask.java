@@ -0,0 +1,47 @@
+package com.github.thbrown.softballsim.optimizer.impl.markovchain;
+
+import java.util.concurrent.Callable;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupCursor;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupIndexer;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.ExhaustiveAccumulator;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+
+/**
+ * Scores a contiguous range of lineup indexes. Scoring one lineup only takes a few microseconds, so
+ * each task handles many lineups to keep the executor overhead small.
+ */
+public class MarkovChainTask implements Callable<ExhaustiveAccumulator> {
+
+  private final BattingLineupIndexer indexer;
+  private final long startIndex;
+  private final long endIndex;
+  private final HitGenerator hitGenerator;
+  private final MarkovChain markovChain;
+  private final int inningsPerGame;
+
+  /**
+   * @param startIndex - first lineup index to score (inclusive)
+   * @param endIndex - last lineup index to score (exclusive)
+   */
+  public MarkovChainTask(BattingLineupIndexer indexer, long startIndex, long endIndex, HitGenerator hitGenerator,
+      MarkovChain markovChain, int inningsPerGame) {
+    this.indexer = indexer;
+    this.startIndex = startIndex;
+    this.endIndex = endIndex;
+    this.hitGenerator = hitGenerator;
+    this.markovChain = markovChain;
+    this.inningsPerGame = inningsPerGame;
+  }
+
+  @Override
+  public ExhaustiveAccumulator call() {
+    ExhaustiveAccumulator accumulator = new ExhaustiveAccumulator();
+    BattingLineupCursor cursor = indexer.getCursor(startIndex, endIndex);
+    while (cursor.next()) {
+      int[] battingOrder = hitGenerator.getBattingOrder(cursor.getLineup());
+      accumulator.accept(markovChain.getExpectedRuns(battingOrder, inningsPerGame), cursor);
+    }
+    return accumulator;
+  }
+
+}
@@ -1,40 +1,47 @@
 package com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Objects;
-import org.apache.commons.math3.stat.descriptive.AggregateSummaryStatistics;
 import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
-import org.apache.commons.math3.stat.descriptive.StatisticalSummaryValues;
-import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 import com.github.thbrown.softballsim.lineup.BattingLineup;
 import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
 
 /**
  * POJO that allows us to keep track of a lineup and it's associated objects (index, stats,
- * hitGenerator) in a single class.
+ * hitGenerator, batting order) in a single class.
  */
 public class LineupComposite {
-  private StatisticalSummary stats;
-  private final SummaryStatistics modifiableStats;
+  private final WelfordSummaryStatistics stats;
   private final BattingLineup lineup;
   private final HitGenerator hitGenerator;
+  private final int[] battingOrder;
   private final Long lineupIndex;
 
   public LineupComposite(BattingLineup lineup, HitGenerator hitGenerator, Long lineupIndex) {
-    this.modifiableStats = new SummaryStatistics();
-    this.stats = new StatisticalSummaryValues(0, 0, 0, 0, 0, 0); // Empty
+    this.stats = new WelfordSummaryStatistics();
     this.lineup = lineup;
     this.hitGenerator = hitGenerator;
+    this.battingOrder = hitGenerator.getBattingOrder(lineup);
     this.lineupIndex = lineupIndex;
   }
 
+  /**
+   * For optimizers that work on batting orders directly. There is no lineup or index, so equality
+   * falls back to comparing batting orders. The batting order is used as is, not copied.
+   */
+  public LineupComposite(int[] battingOrder, HitGenerator hitGenerator) {
+    this.stats = new WelfordSummaryStatistics();
+    this.lineup = null;
+    this.hitGenerator = hitGenerator;
+    this.battingOrder = battingOrder;
+    this.lineupIndex = null;
+  }
+
   public LineupComposite(LineupComposite toCopy) {
-    this.modifiableStats = new SummaryStatistics();
-    mergeModStatsIntoStats();
-    this.stats = toCopy.stats;
+    this.stats = new WelfordSummaryStatistics(toCopy.stats);
     this.lineup = toCopy.lineup;
     this.hitGenerator = toCopy.hitGenerator;
+    this.battingOrder = toCopy.battingOrder;
     this.lineupIndex = toCopy.lineupIndex;
   }
 
@@ -43,11 +50,13 @@ public class LineupComposite {
    */
 
   public void addSample(double value) {
-    modifiableStats.addValue(value);
+    stats.addValue(value);
   }
 
+  /**
+   * The stats of all the samples added so far. This is a live view, it changes as samples are added.
+   */
   public StatisticalSummary getStats() {
-    mergeModStatsIntoStats();
     return stats;
   }
 
@@ -59,6 +68,14 @@ public class LineupComposite {
     return hitGenerator;
   }
 
+  /**
+   * The lineup resolved into hitGenerator player slots, see
+   * {@link HitGenerator#getBattingOrder(BattingLineup)}. Shared between copies, do not modify.
+   */
+  public int[] getBattingOrder() {
+    return battingOrder;
+  }
+
   public Long lineupIndex() {
     return lineupIndex;
   }
@@ -76,16 +93,21 @@ public class LineupComposite {
 
   @Override
   public int hashCode() {
-    return Objects.hash(lineup);
+    return lineup == null ? Arrays.hashCode(battingOrder) : Objects.hash(lineup);
   }
 
   /**
-   * When testing for equality, we only care if the lineups are the same
+   * When testing for equality, we only care if the lineups are the same (or the batting orders, for
+   * composites without a lineup)
    */
   @Override
   public boolean equals(Object other) {
     if (other instanceof LineupComposite) {
-      if (((LineupComposite) other).lineup.equals(this.lineup)) {
+      LineupComposite otherComposite = (LineupComposite) other;
+      if (lineup == null || otherComposite.lineup == null) {
+        return lineup == otherComposite.lineup && Arrays.equals(battingOrder, otherComposite.battingOrder);
+      }
+      if (otherComposite.lineup.equals(this.lineup)) {
         return true;
       }
     }
@@ -97,27 +119,7 @@ public class LineupComposite {
   }
 
   public void incorperateAdditionalStats(StatisticalSummary additionalData) {
-    List<StatisticalSummary> combo = new ArrayList<>(3);
-    combo.add(modifiableStats);
-    combo.add(additionalData);
-    combo.add(stats);
-
-    this.stats = AggregateSummaryStatistics.aggregate(combo);
-
-    modifiableStats.clear();
-  }
-
-  private void mergeModStatsIntoStats() {
-    if (modifiableStats.getN() > 0) {
-      List<StatisticalSummary> combo = new ArrayList<>(2);
-      combo.add(modifiableStats);
-      combo.add(stats);
-
-      this.stats = AggregateSummaryStatistics.aggregate(combo);
-
-      modifiableStats.clear();
-    }
+    stats.merge(additionalData);
   }
 
-
 }
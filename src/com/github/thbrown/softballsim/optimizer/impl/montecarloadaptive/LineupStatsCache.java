@@ -0,0 +1,139 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
+
+/**
+ * Bounded cache of the stats lineups have accumulated so far, for optimizers that visit the same
+ * lineups over and over (e.g. annealing). A lineup that is visited again can start from the games it
+ * has already played instead of from nothing, so it only plays more games if a t-test needs them.
+ *
+ * Lineups are batting orders of player slots 0 to n - 1 and are keyed by their rank among all
+ * orders of n players, so at most MAX_PLAYERS players are supported. Entries are split into stripes
+ * by key, each stripe is a LinkedHashMap in access order guarded by its own lock, and each stripe
+ * drops its least recently used entry once it's full. Threads working on different lineups rarely
+ * wait on each other.
+ *
+ * Stats with fewer than minGames games aren't stored. A t-test stops as soon as its games say the
+ * lineups are different, so a lineup that was rejected after a handful of games is often just one
+ * that started out unlucky. Reusing those games would repeat the same rejection on every visit
+ * without playing another game. The more games a lineup has, the less that matters, and those are
+ * the lineups that are expensive to test again.
+ *
+ * Stats are copied in and out, so callers can keep adding samples to what they got. If two threads
+ * put the same lineup, the last put wins. Samples can be lost that way but never counted twice.
+ */
+public class LineupStatsCache {
+
+  // Ranks of orders with more players than this don't fit in a long
+  public static final int MAX_PLAYERS = 20;
+
+  private static final int STRIPES = 16;
+
+  private final Stripe[] stripes = new Stripe[STRIPES];
+  private final long minGames;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * @param capacity - maximum number of lineups to keep stats for
+   * @param minGames - stats with fewer games than this are not stored
+   */
+  public LineupStatsCache(int capacity, long minGames) {
+    this.minGames = minGames;
+    int stripeCapacity = Math.max(1, capacity / STRIPES);
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe(stripeCapacity);
+    }
+  }
+
+  /**
+   * @return a copy of the stats stored for the given batting order, or null if there aren't any
+   */
+  public StatisticalSummary get(int[] battingOrder) {
+    long key = getKey(battingOrder);
+    StatisticalSummary stats;
+    Stripe stripe = getStripe(key);
+    synchronized (stripe) {
+      stats = stripe.get(key);
+      stats = stats == null ? null : new WelfordSummaryStatistics(stats);
+    }
+    if (stats == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return stats;
+  }
+
+  /**
+   * Replaces the stats stored for the given batting order with a copy of the given stats, if they
+   * have at least minGames games.
+   */
+  public void put(int[] battingOrder, StatisticalSummary stats) {
+    if (stats.getN() < minGames) {
+      return;
+    }
+    long key = getKey(battingOrder);
+    WelfordSummaryStatistics copy = new WelfordSummaryStatistics(stats);
+    Stripe stripe = getStripe(key);
+    synchronized (stripe) {
+      stripe.put(key, copy);
+    }
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  private Stripe getStripe(long key) {
+    // Neighboring lineups have close ranks, mix the bits so they land in different stripes
+    long mixed = (key ^ (key >>> 31)) * 0x9E3779B97F4A7C15L;
+    return stripes[(int) (mixed >>> 60) & (STRIPES - 1)];
+  }
+
+  /**
+   * Lexicographic rank of the batting order (its Lehmer code), every order of n players gets a
+   * different key from 0 to n! - 1.
+   */
+  static long getKey(int[] battingOrder) {
+    if (battingOrder.length > MAX_PLAYERS) {
+      throw new IllegalArgumentException(
+          "Can't cache lineups with more than " + MAX_PLAYERS + " players, got " + battingOrder.length);
+    }
+    long key = 0;
+    for (int i = 0; i < battingOrder.length; i++) {
+      int smallerAfter = 0;
+      for (int j = i + 1; j < battingOrder.length; j++) {
+        if (battingOrder[j] < battingOrder[i]) {
+          smallerAfter++;
+        }
+      }
+      key = key * (battingOrder.length - i) + smallerAfter;
+    }
+    return key;
+  }
+
+  private static class Stripe extends LinkedHashMap<Long, WelfordSummaryStatistics> {
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+
+    Stripe(int capacity) {
+      super(16, .75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, WelfordSummaryStatistics> eldest) {
+      return size() > capacity;
+    }
+  }
+
+}
@@ -1,6 +1,7 @@
 package com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive;
 
 import java.util.Map;
+import com.github.thbrown.softballsim.util.SplitMix64;
 
 public class MonteCarloAdaptiveArgumentParser {
 
@@ -8,18 +9,28 @@ public class MonteCarloAdaptiveArgumentParser {
   public final static String LOWEST_SCORE = "l";
   public final static String THREADS = "t";
   public final static String ALPHA = "a";
+  public final static String COMMON_RANDOM_NUMBERS = "c";
+  public final static String SEED = "s";
+  public final static String SIGNIFICANCE_TEST = "m";
+  public final static String INDIFFERENCE = "d";
 
   public final static String THREADS_DEFAULT_TOKEN = "$getLogicalCPUCores";
+  public final static double INDIFFERENCE_DEFAULT = 0.1;
 
   private final int innings;
   private final boolean lowestScore;
   private final int threads;
   private final double alpha;
+  private final boolean commonRandomNumbers;
+  private final long seed;
+  private final SignificanceTestEnum significanceTest;
+  private final double indifference;
 
   public MonteCarloAdaptiveArgumentParser(Map<String, String> args) {
     innings = Integer.parseInt(args.get(INNINGS));
     lowestScore = Boolean.parseBoolean(args.get(LOWEST_SCORE));
     alpha = Double.parseDouble(args.get(ALPHA));
+    commonRandomNumbers = Boolean.parseBoolean(args.get(COMMON_RANDOM_NUMBERS));
 
     String threadsString = args.get(THREADS);
     if (threadsString.equals(THREADS_DEFAULT_TOKEN)) {
@@ -27,6 +38,18 @@ public class MonteCarloAdaptiveArgumentParser {
     } else {
       threads = Integer.parseInt(args.get(THREADS));
     }
+
+    seed = SplitMix64.parseSeed(args.get(SEED));
+
+    String significanceTestString = args.get(SIGNIFICANCE_TEST);
+    significanceTest = significanceTestString == null ? SignificanceTestEnum.TTEST
+        : SignificanceTestEnum.valueOf(significanceTestString);
+    String indifferenceString = args.get(INDIFFERENCE);
+    indifference = indifferenceString == null ? INDIFFERENCE_DEFAULT : Double.parseDouble(indifferenceString);
+    if (significanceTest == SignificanceTestEnum.SPRT && !(indifference > 0)) {
+      throw new IllegalArgumentException("The SPRT significance test requires a positive indifference, was "
+          + indifferenceString);
+    }
   }
 
   public int getInnings() {
@@ -44,4 +67,28 @@ public class MonteCarloAdaptiveArgumentParser {
   public double getAlpha() {
     return alpha;
   }
+
+  public boolean isCommonRandomNumbers() {
+    return commonRandomNumbers;
+  }
+
+  /**
+   * Seed for all the random numbers used by the optimizer. It fixes the random streams each t-test
+   * task draws from, but which lineups are grouped into a task depends on thread timing, so runs with
+   * the same seed and arguments can still differ.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  public SignificanceTestEnum getSignificanceTest() {
+    return significanceTest;
+  }
+
+  /**
+   * Difference in mean runs per game below which the SPRT doesn't need to reliably tell lineups apart.
+   */
+  public double getIndifference() {
+    return indifference;
+  }
 }
@@ -3,18 +3,22 @@ package com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 import com.github.thbrown.softballsim.Msg;
 import com.github.thbrown.softballsim.Result;
@@ -22,22 +26,30 @@ import com.github.thbrown.softballsim.data.gson.DataPlayer;
 import com.github.thbrown.softballsim.data.gson.DataStats;
 import com.github.thbrown.softballsim.datasource.ProgressTracker;
 import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupCursor;
 import com.github.thbrown.softballsim.lineupindexer.BattingLineupIndexer;
 import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
 import com.github.thbrown.softballsim.optimizer.Optimizer;
+import com.github.thbrown.softballsim.optimizer.impl.FinalScore;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.CommonRandomNumbers;
 import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
-import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.MonteCarloGameSimulation;
 import com.github.thbrown.softballsim.util.Logger;
+import com.github.thbrown.softballsim.util.SplitMix64;
 
 public class MonteCarloAdaptiveOptimizer implements Optimizer<MonteCarloAdaptiveResult> {
 
   private static final int TASK_MAX_LINEUP_COUNT = 10;
   private static final int TASK_MIN_LINEUP_COUNT = 1;
 
-  // Maximum number of tasks that should be queued up at once.
+  // Maximum number of tasks queued up or running at once.
   private static final int TASK_BUFFER_SIZE = 200;
 
+  // Stream key used for the final simulations of the best lineup, tasks are keyed by task number
+  private static final long FINAL_RESULT_STREAM = -1;
+
   private long lineupIndex = 0;
+  private long taskCount = 0;
+  private BattingLineupCursor lineupCursor;
 
   @Override
   public MonteCarloAdaptiveResult optimize(List<String> playersInLineup, LineupTypeEnum lineupType,
@@ -82,7 +94,6 @@ public class MonteCarloAdaptiveOptimizer implements Optimizer<MonteCarloAdaptive
 
     // Our optimizer is parallelizable so we want to take advantage of multiple cores
     ExecutorService executor = Executors.newFixedThreadPool(parsedArguments.getThreads());
-    Queue<Future<TTestTaskResult>> results = new LinkedList<>();
 
     /*
      * Build a hitGenerator that can be used across threads, this way we only have to parse the stats
@@ -92,6 +103,18 @@ public class MonteCarloAdaptiveOptimizer implements Optimizer<MonteCarloAdaptive
     List<DataPlayer> someLineup = indexer.getLineup(0).asList();
     HitGenerator hitGenerator = new HitGenerator(someLineup);
 
+    // Each task draws its games from a stream keyed by the order the task was created in. Which
+    // lineups end up in a task depends on how the running tasks interleave with this thread, so a
+    // seed doesn't make the search reproducible, only the streams it draws from.
+    SplitMix64 random = new SplitMix64(parsedArguments.getSeed());
+    Logger.log("Seed: " + parsedArguments.getSeed());
+    Logger.log("Significance test: " + parsedArguments.getSignificanceTest());
+
+    // With common random numbers, lineups are compared by playing the same games and running a
+    // paired t-test on the differences
+    CommonRandomNumbers commonRandomNumbers =
+        parsedArguments.isCommonRandomNumbers() ? new CommonRandomNumbers(parsedArguments.getSeed()) : null;
+
     // This section involves setting up variables used by the simulation including restoring a paused
     // simulation
     long simulationsRun = Optional.ofNullable(existingResult).map(v -> v.getCountCompleted()).orElse(0L);
@@ -125,40 +148,55 @@ public class MonteCarloAdaptiveOptimizer implements Optimizer<MonteCarloAdaptive
       winnersPool.add(composite);
     }
 
-    // Queue up a few tasks to process (number of tasks is capped by TASK_BUFFER_SIZE)
-    long startIndex = Optional.ofNullable(existingResult).map(v -> v.getCountCompleted()).orElse(1L); // 0th lineup will
-                                                                                                      // already be
-                                                                                                      // added
+    // 0th lineup will already be added
+    long startIndex = Optional.ofNullable(existingResult).map(v -> v.getCountCompleted()).orElse(1L);
     lineupIndex = startIndex;
-
-    for (int i = 0; i < TASK_BUFFER_SIZE; i++) {
-      int taskSize = getNumberOfLineupsToAddToTask(indexer.size() - lineupIndex, parsedArguments.getThreads());
-      long savedLineupIndexerIndex = this.lineupIndex;
-      List<LineupComposite> lineupsToTest = getLineupsToTest(taskSize, winnersPool, hitGenerator, indexer);
-      long newLineupsAdded = this.lineupIndex - savedLineupIndexerIndex;
-      if (lineupsToTest.size() > 0) {
+    taskCount = 0;
+    lineupCursor = indexer.getCursor(startIndex, indexer.size());
+
+    // Results are processed in the order tasks finish, not the order they were submitted, so one task
+    // stuck on a close comparison doesn't hold up the results behind it. Each task in flight maps to the
+    // index of the first fresh lineup it was given. Lineups are only counted as completed once every
+    // task with an earlier fresh lineup has finished, so a paused optimization never skips a lineup
+    // that a slow task was still working on.
+    CompletionService<TTestTaskResult> completionService = new ExecutorCompletionService<>(executor);
+    Map<Future<TTestTaskResult>, Long> tasksInFlight = new HashMap<>();
+    NavigableMap<Long, Long> finishedFreshLineups = new TreeMap<>();
+    long completedThrough = startIndex;
+    while (true) {
+      // Keep up to TASK_BUFFER_SIZE tasks in flight, new tasks are only submitted as results come in
+      while (tasksInFlight.size() < TASK_BUFFER_SIZE) {
+        int taskSize = getNumberOfLineupsToAddToTask(indexer.size() - lineupIndex, parsedArguments.getThreads());
+        long savedLineupIndexerIndex = this.lineupIndex;
+        List<LineupComposite> lineupsToTest = getLineupsToTest(taskSize, winnersPool, hitGenerator, indexer);
+        long newLineupsAdded = this.lineupIndex - savedLineupIndexerIndex;
+        if (lineupsToTest.isEmpty()) {
+          break;
+        }
         TTestTask task =
-            new TTestTaskWithBestLineup(bestLineupComposite, lineupsToTest, INNINGS, ALPHA, newLineupsAdded);
-        results.add(executor.submit(task));
+            new TTestTaskWithBestLineup(bestLineupComposite, lineupsToTest, INNINGS, ALPHA,
+                parsedArguments.getSignificanceTest(), parsedArguments.getIndifference(), newLineupsAdded,
+                commonRandomNumbers, random.getStream(taskCount++));
+        tasksInFlight.put(completionService.submit(task), savedLineupIndexerIndex);
+      }
+      if (tasksInFlight.isEmpty()) {
+        break;
       }
-    }
 
-    // Process results, in order of submission, as soon as the earliest submitted task finishes
-    // executing
-    long progressCounter = startIndex;
-    while (!results.isEmpty()) {
-      // Wait for the result
-      TTestTaskResult result = null;
+      // Wait for the next task to finish, whichever one that is
+      TTestTaskResultWithNewLineups result = null;
+      long firstFreshLineup;
       try {
-        Future<TTestTaskResult> future = results.poll();
-        if (future != null) {
-          result = future.get();
-        }
+        Future<TTestTaskResult> future = completionService.take();
+        firstFreshLineup = tasksInFlight.remove(future);
+        result = (TTestTaskResultWithNewLineups) future.get();
       } catch (InterruptedException | ExecutionException e) {
         throw new RuntimeException(e);
       }
 
-      // Replace the best lineup if necessary
+      // Replace the best lineup if necessary. This only depends on the current best lineup, not on which
+      // results came in before this one. The result's best lineup replaces the current best lineup if
+      // this task eliminated it, otherwise it still has to be compared to the current best lineup.
       if (result.getBestLineupComposite() != null) { // Null means do nothing
         // If the bestLineup is in the elimination list, update the bestLineup
         boolean wasReplaced = bestLineupComposite.replaceIfCurrentIsInCollection(result.getBestLineupComposite(),
@@ -179,46 +217,31 @@ public class MonteCarloAdaptiveOptimizer implements Optimizer<MonteCarloAdaptive
       // Keep track of the number of simulations run so far
       simulationsRun += result.getSimulationsRequired();
 
+      // Advance past this task's fresh lineups and any later ones that were waiting on them
+      if (result.getNewLineupsProcessed() > 0) {
+        finishedFreshLineups.put(firstFreshLineup, firstFreshLineup + result.getNewLineupsProcessed());
+        Long next;
+        while ((next = finishedFreshLineups.remove(completedThrough)) != null) {
+          completedThrough = next;
+        }
+      }
+
       // Update the progress tracker
       LineupComposite bestLineupCopy = bestLineupComposite.getCopyOfBestLineupComposite();
 
-      // Ugly cast :(
-      progressCounter += ((TTestTaskResultWithNewLineups) result).getNewLineupsProcessed();
-      // Logger.log(progressCounter + " of " + indexer.size() + " " +
-      // (result.getEliminatedLineupComposites().size()));
-
       Set<Long> candidateLineupIndexes =
           candidateLineups.stream().map(LineupComposite::lineupIndex).collect(Collectors.toSet());
+      final long completedThroughFinal = completedThrough;
+      long candidatesBefore = candidateLineupIndexes.stream().filter(v -> v < completedThroughFinal).count();
 
       long elapsedTime = (System.currentTimeMillis() - startTimestamp)
           + Optional.ofNullable(existingResult).map(MonteCarloAdaptiveResult::getElapsedTimeMs).orElse(0l);
 
       MonteCarloAdaptiveResult partialResult = new MonteCarloAdaptiveResult(bestLineupCopy.getLineup(),
-          bestLineupCopy.getStats().getMean(), indexer.size(), progressCounter - candidateLineups.size(), elapsedTime,
+          bestLineupCopy.getStats().getMean(), indexer.size(), completedThrough - candidatesBefore, elapsedTime,
           candidateLineupIndexes, simulationsRun);
 
       progressTracker.updateProgress(partialResult);
-
-      // Add new tasks
-      int taskSize = getNumberOfLineupsToAddToTask(indexer.size() - lineupIndex, parsedArguments.getThreads());
-      long savedLineupIndexerIndex = this.lineupIndex;
-      List<LineupComposite> lineupsToTest = getLineupsToTest(taskSize, winnersPool, hitGenerator, indexer);
-      long newLineupsAdded = this.lineupIndex - savedLineupIndexerIndex;
-
-      if (lineupsToTest.size() > 0) {
-        TTestTask task =
-            new TTestTaskWithBestLineup(bestLineupComposite, lineupsToTest, INNINGS, ALPHA, newLineupsAdded);
-        results.add(executor.submit(task));
-      }
-
-      // Print a warning if the buffer gets low
-      ThreadPoolExecutor ex = (ThreadPoolExecutor) executor;
-      if (ex.getQueue().size() < parsedArguments.getThreads()
-          && (indexer.size() - lineupIndex) > parsedArguments.getThreads()) {
-        Logger.log("WARNING: Task buffer is low and this may affect multithreaded performance. TaskSize "
-            + ex.getQueue().size() + " " + (indexer.size() - lineupIndex));
-      }
-
     }
     executor.shutdown();
 
@@ -235,12 +258,10 @@ public class MonteCarloAdaptiveOptimizer implements Optimizer<MonteCarloAdaptive
     // This is especially important when using a cached result. Since stats objects can't be serialized
     // and cached, a final result will have a score of NaN
     if (bestLineupCopy.getStats().getN() < TTestTask.MAX_ITERATIONS) {
-      for (int i = 0; i < TTestTask.MAX_ITERATIONS - bestLineupCopy.getStats().getN(); i++) {
-        double score =
-            MonteCarloGameSimulation.simulateGame(bestLineupCopy.getLineup(), INNINGS,
-                bestLineupCopy.getHitGenerator());
-        bestLineupCopy.addSample(score);
-      }
+      long firstGame = bestLineupCopy.getStats().getN();
+      bestLineupCopy.incorperateAdditionalStats(FinalScore.simulate(bestLineupCopy.getBattingOrder(), INNINGS,
+          bestLineupCopy.getHitGenerator(), TTestTask.MAX_ITERATIONS - firstGame, parsedArguments.getThreads(),
+          random.getStream(FINAL_RESULT_STREAM), commonRandomNumbers, firstGame));
     }
 
     Set<Long> candidateLineupIndexes =
@@ -248,8 +269,8 @@ public class MonteCarloAdaptiveOptimizer implements Optimizer<MonteCarloAdaptive
     long elapsedTime = (System.currentTimeMillis() - startTimestamp)
         + Optional.ofNullable(existingResult).map(v -> v.getElapsedTimeMs()).orElse(0l);
     MonteCarloAdaptiveResult finalResult = new MonteCarloAdaptiveResult(bestLineupCopy.getLineup(),
-        bestLineupCopy.getStats().getMean(), indexer.size(), indexer.size(), elapsedTime,
-        candidateLineupIndexes, simulationsRun);
+        bestLineupCopy.getStats().getMean(), FinalScore.getConfidenceInterval(bestLineupCopy.getStats()),
+        indexer.size(), indexer.size(), elapsedTime, candidateLineupIndexes, simulationsRun);
 
     progressTracker.updateProgress(finalResult);
     return finalResult;
@@ -276,7 +297,8 @@ public class MonteCarloAdaptiveOptimizer implements Optimizer<MonteCarloAdaptive
 
       // Second, get fresh lineups
       if (lineupIndex < indexer.size()) {
-        LineupComposite composite = new LineupComposite(indexer.getLineup(lineupIndex), hitGenerator, lineupIndex);
+        lineupCursor.next();
+        LineupComposite composite = new LineupComposite(lineupCursor.getLineupCopy(), hitGenerator, lineupIndex);
         lineupsToTest.add(composite);
         lineupIndex++;
       }
@@ -19,7 +19,13 @@ public class MonteCarloAdaptiveResult extends Result {
 
   public MonteCarloAdaptiveResult(BattingLineup lineup, double lineupScore, long countTotal, long countCompleted,
       long elapsedTimeMs, Set<Long> candidateLineups, long simulationsRequired) {
-    super(OptimizerEnum.MONTE_CARLO_ADAPTIVE, lineup, lineupScore, countTotal, countCompleted, elapsedTimeMs);
+    this(lineup, lineupScore, null, countTotal, countCompleted, elapsedTimeMs, candidateLineups, simulationsRequired);
+  }
+
+  public MonteCarloAdaptiveResult(BattingLineup lineup, double lineupScore, Double lineupScoreConfidenceInterval,
+      long countTotal, long countCompleted, long elapsedTimeMs, Set<Long> candidateLineups, long simulationsRequired) {
+    super(OptimizerEnum.MONTE_CARLO_ADAPTIVE, lineup, lineupScore, lineupScoreConfidenceInterval, countTotal,
+        countCompleted, elapsedTimeMs);
     this.candidateLineups = candidateLineups;
     this.simulationsRequired = simulationsRequired;
   }
@@ -0,0 +1,102 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
+import org.apache.commons.math3.stat.inference.TTest;
+
+/**
+ * Decides when {@link TTestTask} has simulated enough games to tell which of two lineups scores
+ * more. Either way the lineup with the higher mean wins once the test says to stop.
+ */
+public enum SignificanceTestEnum {
+
+  /**
+   * Welch's t-test, repeated after every chunk of games until the p-value drops to alpha. The
+   * indifference value isn't used.
+   */
+  TTEST {
+    @Override
+    public boolean isDifferent(StatisticalSummary a, StatisticalSummary b, double alpha, double indifference) {
+      return tester.tTest(a, b) <= alpha;
+    }
+
+    @Override
+    public boolean isDifferentFromZero(StatisticalSummary differences, double alpha, double indifference) {
+      return tester.tTest(0.0, differences) <= alpha;
+    }
+
+    @Override
+    public double getStoppingVariance(double difference, double alpha, double indifference) {
+      // Normal approximation of the two sided test, the t distribution is close enough at these
+      // sample sizes
+      double z = standardNormal.inverseCumulativeProbability(1 - alpha / 2);
+      return difference * difference / (z * z);
+    }
+  },
+
+  /**
+   * Wald's sequential probability ratio test of "b scores indifference more than a" against "a scores
+   * indifference more than b", using the normal approximation for the difference in means. Its log
+   * likelihood ratio is 2 * indifference * difference / variance of the difference, so each check
+   * is a few arithmetic operations. Testing stops once the ratio crosses log((1 - alpha) / alpha)
+   * in either direction, which keeps the chance of picking the worse lineup to about alpha when the
+   * lineups are at least indifference apart, no matter how often the test is checked.
+   *
+   * The number of games needed grows with 1 / (indifference * difference) instead of the t-test's
+   * 1 / difference^2, so close lineups (up to roughly four times indifference apart) are decided
+   * with fewer games than the t-test needs and lineups further apart take somewhat more. Lineups
+   * closer than indifference are decided too, but the winner is close to a coin flip.
+   */
+  SPRT {
+    @Override
+    public boolean isDifferent(StatisticalSummary a, StatisticalSummary b, double alpha, double indifference) {
+      double difference = b.getMean() - a.getMean();
+      double variance = a.getVariance() / a.getN() + b.getVariance() / b.getN();
+      return crossesBoundary(difference, variance, alpha, indifference);
+    }
+
+    @Override
+    public boolean isDifferentFromZero(StatisticalSummary differences, double alpha, double indifference) {
+      double variance = differences.getVariance() / differences.getN();
+      return crossesBoundary(differences.getMean(), variance, alpha, indifference);
+    }
+
+    @Override
+    public double getStoppingVariance(double difference, double alpha, double indifference) {
+      return 2 * indifference * Math.abs(difference) / Math.log((1 - alpha) / alpha);
+    }
+
+    private boolean crossesBoundary(double difference, double variance, double alpha, double indifference) {
+      // With no spread (yet) there's no way to tell how much the difference can be trusted
+      if (!(variance > 0)) {
+        return false;
+      }
+      double logLikelihoodRatio = 2 * indifference * difference / variance;
+      return Math.abs(logLikelihoodRatio) >= Math.log((1 - alpha) / alpha);
+    }
+  };
+
+  private final static TTest tester = new TTest();
+  private final static NormalDistribution standardNormal = new NormalDistribution();
+
+  /**
+   * @return true if the scores summarized by a and b are different enough to stop simulating
+   */
+  public abstract boolean isDifferent(StatisticalSummary a, StatisticalSummary b, double alpha,
+      double indifference);
+
+  /**
+   * Same as {@link #isDifferent} for paired games, differences summarizes the per game score
+   * differences between the two lineups.
+   */
+  public abstract boolean isDifferentFromZero(StatisticalSummary differences, double alpha, double indifference);
+
+  /**
+   * Used to estimate how many more games a comparison needs.
+   * 
+   * @return how small the variance of the estimated difference in means has to get before this test
+   *         stops, assuming the true difference is the given one. 0 if the difference is 0.
+   */
+  public abstract double getStoppingVariance(double difference, double alpha, double indifference);
+
+}
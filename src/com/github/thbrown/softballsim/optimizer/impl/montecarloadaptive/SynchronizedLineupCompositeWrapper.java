@@ -3,7 +3,6 @@ package com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive;
 import java.util.Collection;
 import java.util.List;
 import org.apache.commons.math3.exception.NumberIsTooSmallException;
-import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
 import org.apache.commons.math3.stat.inference.TTest;
 import com.github.thbrown.softballsim.lineup.BattingLineup;
 
@@ -34,13 +33,18 @@ public class SynchronizedLineupCompositeWrapper {
   }
 
   /**
-   * If the lineups are the same, merge the stats objects
+   * If the lineups are the same, keep whichever stats have more games. Every task extends its own
+   * copy of the best lineup's stats and tasks can finish in any order, so the copies share the games
+   * the best lineup had when they were made. Merging them would count those games twice (and with
+   * common random numbers the copies play the same games), and a task that finishes late shouldn't
+   * replace stats that are already ahead of it.
    */
   public boolean updateIfEqual(LineupComposite bestResult) {
-    StatisticalSummary additionalData = bestResult.getStats();
     synchronized (this) {
       if (bestResult.equals(best)) {
-        bestResult.incorperateAdditionalStats(additionalData);
+        if (bestResult.getStats().getN() > best.getStats().getN()) {
+          this.best = new LineupComposite(bestResult);
+        }
         return true;
       }
       return false;
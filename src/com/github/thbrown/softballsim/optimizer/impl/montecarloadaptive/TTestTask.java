@@ -1,6 +1,5 @@
 package com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive;
 
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -8,11 +7,13 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
-import org.apache.commons.math3.stat.inference.TTest;
 import org.apache.commons.math3.util.Pair;
 import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.statstransform.SummaryStatisticsTransform;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BatchedGameSimulation;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.CommonRandomNumbers;
 import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.MonteCarloGameSimulation;
 import com.github.thbrown.softballsim.util.Logger;
+import com.github.thbrown.softballsim.util.SplitMix64;
 
 /**
  * Manages the relationship between two results and acts as the judge between a best result so far
@@ -23,8 +24,8 @@ public class TTestTask implements Callable<TTestTaskResult> {
   // TODO: make these configurable
   public static int MAX_ITERATIONS = 1000000;
   private static int INITIAL_GAMES_TO_SIMULATE = 10;
-  private static int SAMPLE_CHUNK_SIZE = 1000;
-  private final static TTest tester = new TTest();
+  private static int MIN_CHUNK_SIZE = 100;
+  private static int MAX_CHUNK_SIZE = 10000;
 
   protected final List<LineupComposite> toTest;
   private final int inningsPerGame;
@@ -33,21 +34,60 @@ public class TTestTask implements Callable<TTestTaskResult> {
   private long simulationsRequired = 0;
 
   private SummaryStatisticsTransform transform;
+  private CommonRandomNumbers commonRandomNumbers;
+  private SplitMix64 random;
+  private SignificanceTestEnum significanceTest = SignificanceTestEnum.TTEST;
+  private double indifference;
+
+  // Scratch space for common random number games, tasks run on one thread so this is reused by all
+  // of the task's games
+  private int[] plateAppearances;
 
   public TTestTask(List<LineupComposite> toTest, int inningsPerGame, double alpha,
       SummaryStatisticsTransform transform) {
+    this(toTest, inningsPerGame, alpha, transform, null);
+  }
+
+  /**
+   * @param random - generator all of this task's games are drawn from, or null to use
+   *        ThreadLocalRandom. The task draws from it sequentially so it should not be shared.
+   */
+  public TTestTask(List<LineupComposite> toTest, int inningsPerGame, double alpha,
+      SummaryStatisticsTransform transform, SplitMix64 random) {
     this.inningsPerGame = inningsPerGame;
     this.toTest = toTest;
     this.alpha = alpha;
     this.transform = transform;
+    this.random = random;
   }
 
   public TTestTask(List<LineupComposite> toTest, int inningsPerGame, double alpha) {
-    this(toTest, inningsPerGame, alpha, null);
+    this(toTest, inningsPerGame, alpha, (SummaryStatisticsTransform) null);
+  }
+
+  /**
+   * If commonRandomNumbers is not null, lineups are compared with a paired test. Both lineups in a
+   * comparison play games 0, 1, 2... drawn from the common random numbers and the test is run on the
+   * per game score differences. Otherwise games are drawn from random as usual.
+   * 
+   * @param significanceTest - decides when enough games have been simulated to pick a lineup
+   * @param indifference - difference in mean score the significance test should resolve, if it uses
+   *        one
+   */
+  public TTestTask(List<LineupComposite> toTest, int inningsPerGame, double alpha,
+      SignificanceTestEnum significanceTest, double indifference, CommonRandomNumbers commonRandomNumbers,
+      SplitMix64 random) {
+    this(toTest, inningsPerGame, alpha, (SummaryStatisticsTransform) null, random);
+    this.significanceTest = significanceTest;
+    this.indifference = indifference;
+    this.commonRandomNumbers = commonRandomNumbers;
   }
 
   @Override
   public TTestTaskResult call() {
+    if (commonRandomNumbers != null) {
+      return callPaired();
+    }
 
     // Run simulations for the lineups if they have none.
     for (LineupComposite toEvaluate : toTest) {
@@ -84,28 +124,30 @@ public class TTestTask implements Callable<TTestTaskResult> {
           statsB = transformed.getSecond();
         }
 
-        double pValue = tester.tTest(statsA, statsB);
-        // Logger.log(statsA.getN() + " " + statsB.getN() + " " + statsA.getMean() + " " + statsB.getMean()
-        // + " " + pValue);
+        // Logger.log(statsA.getN() + " " + statsB.getN() + " " + statsA.getMean() + " " + statsB.getMean());
 
         // Check if we have a large enough sample size to determine that populations are different
-        if (pValue <= alpha) {
+        if (significanceTest.isDifferent(statsA, statsB, alpha, indifference)) {
           break;
         }
 
         // Check if we've exceeded the maximum number of allowed samples
         if (statsA.getN() >= MAX_ITERATIONS && statsB.getN() >= MAX_ITERATIONS) {
-          Logger.log("WARN: Reached simulation limit " + statsA.getMean() + " " + statsB.getMean() + " " + pValue);
+          Logger.log("WARN: Reached simulation limit " + statsA.getMean() + " " + statsB.getMean());
           break;
         }
 
-        // We need more samples, lets calculate them for whichever lineup we have less samples for
+        // We need more samples, lets calculate them for whichever lineup we have less samples for.
+        // Aim for the point where both lineups have the same number of games and the test would stop.
+        double stoppingVariance =
+            significanceTest.getStoppingVariance(statsB.getMean() - statsA.getMean(), alpha, indifference);
+        double gamesNeeded = (statsA.getVariance() + statsB.getVariance()) / stoppingVariance;
         if (statsA.getN() < statsB.getN()) {
           // Do more simulations for the "bestSoFar" lineup
-          simulateGames(SAMPLE_CHUNK_SIZE, inningsPerGame, bestSoFar);
+          simulateGames(getChunkSize(gamesNeeded, statsA.getN()), inningsPerGame, bestSoFar);
         } else {
           // Do more simulations for the "toEvaluate" lineup
-          simulateGames(SAMPLE_CHUNK_SIZE, inningsPerGame, toEvaluate);
+          simulateGames(getChunkSize(gamesNeeded, statsB.getN()), inningsPerGame, toEvaluate);
         }
       }
 
@@ -121,15 +163,125 @@ public class TTestTask implements Callable<TTestTaskResult> {
     return new TTestTaskResult(bestSoFar, eliminatedLineups, simulationsRequired);
   }
 
-  private List<Double> simulateGames(int numberOfGamesToSimulate, int inningsPerGame, LineupComposite composite) {
-    List<Double> simulatedGames = new ArrayList<>(numberOfGamesToSimulate);
-    for (int i = 0; i < numberOfGamesToSimulate; i++) {
-      double score =
-          MonteCarloGameSimulation.simulateGame(composite.getLineup(), inningsPerGame, composite.getHitGenerator());
-      composite.addSample(score);
-      simulatedGames.add(score);
+  private TTestTaskResult callPaired() {
+    LineupComposite bestSoFar = null;
+    Set<LineupComposite> eliminatedLineups = new HashSet<>();
+    for (LineupComposite toEvaluate : toTest) {
+      if (bestSoFar == null) {
+        bestSoFar = toEvaluate;
+      }
+
+      // Just in case we have any duplicate lineupComposites
+      if (toEvaluate.equals(bestSoFar)) {
+        continue;
+      }
+
+      // Has the new lineup we are testing de-throned the champion?
+      if (isPairedImprovement(bestSoFar, toEvaluate)) {
+        eliminatedLineups.add(bestSoFar);
+        bestSoFar = toEvaluate;
+      } else {
+        eliminatedLineups.add(toEvaluate);
+      }
     }
+
+    // A task with a single lineup still needs some samples so its mean can be reported
+    if (bestSoFar != null && bestSoFar.getStats().getN() < 2) {
+      long firstGame = bestSoFar.getStats().getN();
+      for (long game = firstGame; game < firstGame + INITIAL_GAMES_TO_SIMULATE; game++) {
+        bestSoFar.addSample(simulatePairedGame(bestSoFar, game));
+      }
+      simulationsRequired += INITIAL_GAMES_TO_SIMULATE;
+    }
+
+    return new TTestTaskResult(bestSoFar, eliminatedLineups, simulationsRequired);
+  }
+
+  /**
+   * Simulates the same games for both lineups until the mean of the score differences is
+   * significantly different from zero.
+   * 
+   * @return true if lineup b scores more than lineup a
+   */
+  private boolean isPairedImprovement(LineupComposite a, LineupComposite b) {
+    SummaryStatistics differences = new SummaryStatistics();
+    simulatePairedGames(a, b, 0, INITIAL_GAMES_TO_SIMULATE, differences);
+    while (true) {
+      // Check if we have a large enough sample size to determine that populations are different
+      if (significanceTest.isDifferentFromZero(differences, alpha, indifference)) {
+        break;
+      }
+
+      // Check if we've exceeded the maximum number of allowed samples
+      if (differences.getN() >= MAX_ITERATIONS) {
+        Logger.log("WARN: Reached simulation limit " + differences.getMean());
+        break;
+      }
+
+      double stoppingVariance = significanceTest.getStoppingVariance(differences.getMean(), alpha, indifference);
+      double gamesNeeded = differences.getVariance() / stoppingVariance;
+      simulatePairedGames(a, b, differences.getN(), getChunkSize(gamesNeeded, differences.getN()), differences);
+    }
+    return differences.getMean() > 0;
+  }
+
+  /**
+   * Simulates the given range of game numbers for both lineups and adds the differences (b - a) to
+   * the differences statistics. Each lineup's own stats only receive games it hasn't played yet so
+   * the same game isn't counted twice when a lineup is compared more than once.
+   */
+  private void simulatePairedGames(LineupComposite a, LineupComposite b, long firstGame, int numberOfGames,
+      SummaryStatistics differences) {
+    long gamesPlayedByA = a.getStats().getN();
+    long gamesPlayedByB = b.getStats().getN();
+    for (long game = firstGame; game < firstGame + numberOfGames; game++) {
+      double scoreA = simulatePairedGame(a, game);
+      double scoreB = simulatePairedGame(b, game);
+      differences.addValue(scoreB - scoreA);
+      if (game >= gamesPlayedByA) {
+        a.addSample(scoreA);
+      }
+      if (game >= gamesPlayedByB) {
+        b.addSample(scoreB);
+      }
+    }
+    simulationsRequired += 2L * numberOfGames;
+  }
+
+  /**
+   * Plays the given game number from the common random numbers, reusing this task's scratch array.
+   */
+  private double simulatePairedGame(LineupComposite composite, long game) {
+    int playerCount = composite.getHitGenerator().getPlayerCount();
+    if (plateAppearances == null || plateAppearances.length < playerCount) {
+      plateAppearances = new int[playerCount];
+    }
+    return MonteCarloGameSimulation.simulateGame(composite.getBattingOrder(), inningsPerGame,
+        composite.getHitGenerator(), commonRandomNumbers, game, plateAppearances);
+  }
+
+  /**
+   * Power analysis based chunk size. The games needed are estimated from the observed difference and
+   * variance, which are noisy early on, so a chunk is at most half the games already played. A
+   * lineup's number of games grows by at most 50% per chunk, so a bad estimate costs a few extra
+   * small chunks rather than thousands of unneeded games.
+   * 
+   * @param gamesNeeded - estimated total games needed for the test to stop, may be infinite
+   * @param gamesPlayed - games played so far
+   */
+  public static int getChunkSize(double gamesNeeded, long gamesPlayed) {
+    if (Double.isNaN(gamesNeeded)) {
+      // No difference and no spread yet, nothing to estimate from
+      gamesNeeded = Double.POSITIVE_INFINITY;
+    }
+    double limit = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, gamesPlayed / 2));
+    double chunk = Math.max(MIN_CHUNK_SIZE, Math.min(limit, Math.ceil(gamesNeeded - gamesPlayed)));
+    return (int) Math.min(chunk, Math.max(1, MAX_ITERATIONS - gamesPlayed));
+  }
+
+  private void simulateGames(int numberOfGamesToSimulate, int inningsPerGame, LineupComposite composite) {
+    BatchedGameSimulation.simulateGames(composite.getBattingOrder(), inningsPerGame, composite.getHitGenerator(),
+        numberOfGamesToSimulate, random, composite::addSample);
     simulationsRequired += numberOfGamesToSimulate;
-    return simulatedGames;
   }
 }
@@ -2,6 +2,8 @@ package com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive;
 
 import java.util.List;
 import java.util.Set;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.CommonRandomNumbers;
+import com.github.thbrown.softballsim.util.SplitMix64;
 
 public class TTestTaskWithBestLineup extends TTestTask {
 
@@ -9,8 +11,9 @@ public class TTestTaskWithBestLineup extends TTestTask {
   long newLineupsAdded;
 
   public TTestTaskWithBestLineup(SynchronizedLineupCompositeWrapper bestLineup, List<LineupComposite> toTest,
-      int inningsPerGame, double alpha, long newLineupsAdded) {
-    super(toTest, inningsPerGame, alpha);
+      int inningsPerGame, double alpha, SignificanceTestEnum significanceTest, double indifference,
+      long newLineupsAdded, CommonRandomNumbers commonRandomNumbers, SplitMix64 random) {
+    super(toTest, inningsPerGame, alpha, significanceTest, indifference, commonRandomNumbers, random);
     this.overallBestLineup = bestLineup;
     this.newLineupsAdded = newLineupsAdded;
   }
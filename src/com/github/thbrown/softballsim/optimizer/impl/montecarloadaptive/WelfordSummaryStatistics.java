@@ -0,0 +1,219 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive;
+
+import java.lang.invoke.VarHandle;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
+
+/**
+ * Running count, mean, variance, min and max of a stream of values, kept in a handful of primitives.
+ * Values are added with Welford's update and other summaries are merged with Chan et al.'s parallel
+ * formula, so neither allocates. Implements StatisticalSummary so it can be passed straight to
+ * commons-math's TTest.
+ *
+ * Updates are guarded by a sequence lock: writers synchronize on this object and bump the sequence
+ * number before and after changing the fields, readers copy the fields without locking and retry if
+ * the sequence number was odd or changed in the meantime. Reads never block and one thread can
+ * merge another thread's statistics while that thread keeps reading its own.
+ *
+ * Like an empty StatisticalSummaryValues, an empty summary reports 0 for everything.
+ */
+public class WelfordSummaryStatistics implements StatisticalSummary {
+
+  private volatile long sequence;
+
+  private long n;
+  private double mean;
+  private double m2; // Sum of squared differences from the mean
+  private double min;
+  private double max;
+  private double sum;
+
+  public WelfordSummaryStatistics() {}
+
+  /**
+   * Creates a copy of the given summary's current values.
+   */
+  public WelfordSummaryStatistics(StatisticalSummary toCopy) {
+    merge(toCopy);
+  }
+
+  public void addValue(double value) {
+    synchronized (this) {
+      beginWrite();
+      n++;
+      double delta = value - mean;
+      mean += delta / n;
+      m2 += delta * (value - mean);
+      sum += value;
+      min = n == 1 || value < min ? value : min;
+      max = n == 1 || value > max ? value : max;
+      endWrite();
+    }
+  }
+
+  /**
+   * Adds all the values summarized by other to this summary. Other can be modified concurrently, a
+   * consistent copy of its values is taken first.
+   */
+  public void merge(StatisticalSummary other) {
+    long otherN;
+    double otherMean;
+    double otherM2;
+    double otherMin;
+    double otherMax;
+    double otherSum;
+    if (other instanceof WelfordSummaryStatistics) {
+      WelfordSummaryStatistics welford = (WelfordSummaryStatistics) other;
+      long seq;
+      do {
+        seq = welford.sequence;
+        otherN = welford.n;
+        otherMean = welford.mean;
+        otherM2 = welford.m2;
+        otherMin = welford.min;
+        otherMax = welford.max;
+        otherSum = welford.sum;
+        VarHandle.loadLoadFence();
+      } while ((seq & 1) != 0 || seq != welford.sequence);
+    } else {
+      otherN = other.getN();
+      otherMean = other.getMean();
+      otherM2 = other.getVariance() * (otherN - 1);
+      otherMin = other.getMin();
+      otherMax = other.getMax();
+      otherSum = other.getSum();
+    }
+    if (otherN == 0) {
+      return;
+    }
+
+    synchronized (this) {
+      beginWrite();
+      long total = n + otherN;
+      double delta = otherMean - mean;
+      m2 += otherM2 + delta * delta * n * otherN / total;
+      mean += delta * otherN / total;
+      sum += otherSum;
+      min = n == 0 ? otherMin : Math.min(min, otherMin);
+      max = n == 0 ? otherMax : Math.max(max, otherMax);
+      n = total;
+      endWrite();
+    }
+  }
+
+  public void clear() {
+    synchronized (this) {
+      beginWrite();
+      n = 0;
+      mean = 0;
+      m2 = 0;
+      min = 0;
+      max = 0;
+      sum = 0;
+      endWrite();
+    }
+  }
+
+  @Override
+  public double getMean() {
+    long seq;
+    double value;
+    do {
+      seq = sequence;
+      value = mean;
+      VarHandle.loadLoadFence();
+    } while ((seq & 1) != 0 || seq != sequence);
+    return value;
+  }
+
+  /**
+   * @return the sample variance (divides by n - 1), 0 if there are fewer than two values
+   */
+  @Override
+  public double getVariance() {
+    long seq;
+    long count;
+    double squares;
+    do {
+      seq = sequence;
+      count = n;
+      squares = m2;
+      VarHandle.loadLoadFence();
+    } while ((seq & 1) != 0 || seq != sequence);
+    return count < 2 ? 0 : squares / (count - 1);
+  }
+
+  @Override
+  public double getStandardDeviation() {
+    return Math.sqrt(getVariance());
+  }
+
+  @Override
+  public double getMax() {
+    long seq;
+    double value;
+    do {
+      seq = sequence;
+      value = max;
+      VarHandle.loadLoadFence();
+    } while ((seq & 1) != 0 || seq != sequence);
+    return value;
+  }
+
+  @Override
+  public double getMin() {
+    long seq;
+    double value;
+    do {
+      seq = sequence;
+      value = min;
+      VarHandle.loadLoadFence();
+    } while ((seq & 1) != 0 || seq != sequence);
+    return value;
+  }
+
+  @Override
+  public long getN() {
+    long seq;
+    long value;
+    do {
+      seq = sequence;
+      value = n;
+      VarHandle.loadLoadFence();
+    } while ((seq & 1) != 0 || seq != sequence);
+    return value;
+  }
+
+  @Override
+  public double getSum() {
+    long seq;
+    double value;
+    do {
+      seq = sequence;
+      value = sum;
+      VarHandle.loadLoadFence();
+    } while ((seq & 1) != 0 || seq != sequence);
+    return value;
+  }
+
+  /**
+   * Must be called while synchronized on this, makes the sequence number odd so readers retry.
+   */
+  private void beginWrite() {
+    sequence = sequence + 1;
+    VarHandle.storeStoreFence();
+  }
+
+  /**
+   * Must be called while synchronized on this, makes the sequence number even again.
+   */
+  private void endWrite() {
+    sequence = sequence + 1;
+  }
+
+  @Override
+  public String toString() {
+    return "n: " + getN() + " mean: " + getMean() + " variance: " + getVariance() + " min: " + getMin() + " max: "
+        + getMax();
+  }
+
+}
@@ -0,0 +1,49 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloannealing;
+
+import com.github.thbrown.softballsim.optimizer.impl.markovchain.MarkovChain;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BatchedGameSimulation;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+/**
+ * How {@link MonteCarloAnnealingOptimizer} scores the random lineups it uses to pick a starting
+ * temperature. The temperature comes from the spread of these scores, so they only need to be
+ * about right.
+ */
+public enum CalibrationEnum {
+
+  /**
+   * The mean score of GAMES simulated games. The spread of the means includes a little simulation
+   * noise on top of the spread between lineups.
+   */
+  SIMULATION {
+    @Override
+    public double getMeanScore(int[] battingOrder, HitGenerator hitGenerator, int inningsPerGame,
+        SplitMix64 random) {
+      return (double) BatchedGameSimulation.simulateGames(battingOrder, inningsPerGame, hitGenerator, GAMES, random,
+          null) / GAMES;
+    }
+  },
+
+  /**
+   * The exact expected score from {@link MarkovChain}, no games are simulated. This is a small fraction
+   * of the cost of simulating GAMES games and has no simulation noise.
+   */
+  MARKOV_CHAIN {
+    @Override
+    public double getMeanScore(int[] battingOrder, HitGenerator hitGenerator, int inningsPerGame,
+        SplitMix64 random) {
+      return new MarkovChain(hitGenerator).getExpectedRuns(battingOrder, inningsPerGame);
+    }
+  };
+
+  private static final int GAMES = 10000;
+
+  /**
+   * @param battingOrder - player slots of the hitGenerator
+   * @param random - generator any games are drawn from, not shared with other threads
+   */
+  public abstract double getMeanScore(int[] battingOrder, HitGenerator hitGenerator, int inningsPerGame,
+      SplitMix64 random);
+
+}
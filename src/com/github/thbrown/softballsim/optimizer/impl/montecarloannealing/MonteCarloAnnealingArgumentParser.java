@@ -1,21 +1,60 @@
 package com.github.thbrown.softballsim.optimizer.impl.montecarloannealing;
 
 import java.util.Map;
+import com.github.thbrown.softballsim.util.SplitMix64;
 
 public class MonteCarloAnnealingArgumentParser {
 
+  public final static String CALIBRATION = "c";
   public final static String DURATION = "d";
   public final static String INNINGS = "i";
   public final static String LOWEST_SCORE = "l";
+  public final static String REPLICAS = "r";
+  public final static String SEED = "s";
+  public final static String THREADS = "t";
 
+  public final static String THREADS_DEFAULT_TOKEN = "$getLogicalCPUCores";
+
+  private final CalibrationEnum calibration;
   private final int duration;
   private final int innings;
   private final boolean lowestScore;
+  private final int replicas;
+  private final long seed;
+  private final int threads;
 
   public MonteCarloAnnealingArgumentParser(Map<String, String> args) {
+    String calibrationString = args.get(CALIBRATION);
+    calibration = calibrationString == null ? CalibrationEnum.SIMULATION : CalibrationEnum.valueOf(calibrationString);
+
     duration = Integer.parseInt(args.get(DURATION));
     innings = Integer.parseInt(args.get(INNINGS));
     lowestScore = Boolean.parseBoolean(args.get(LOWEST_SCORE));
+
+    String replicasString = args.get(REPLICAS);
+    replicas = replicasString == null ? 1 : Integer.parseInt(replicasString);
+    if (replicas < 1) {
+      throw new IllegalArgumentException("At least 1 replica is required, got " + replicas);
+    }
+
+    seed = SplitMix64.parseSeed(args.get(SEED));
+
+    String threadsString = args.get(THREADS);
+    if (threadsString == null || threadsString.equals(THREADS_DEFAULT_TOKEN)) {
+      threads = Runtime.getRuntime().availableProcessors();
+    } else {
+      threads = Integer.parseInt(threadsString);
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("At least 1 thread is required, got " + threads);
+    }
+  }
+
+  /**
+   * How the random lineups that set the starting temperature are scored.
+   */
+  public CalibrationEnum getCalibration() {
+    return calibration;
   }
 
   public long getDuration() {
@@ -29,4 +68,28 @@ public class MonteCarloAnnealingArgumentParser {
   public boolean isLowestScore() {
     return lowestScore;
   }
+
+  /**
+   * Number of chains to run in parallel at different temperatures. With 1 there is a single chain
+   * that cools over time.
+   */
+  public int getReplicas() {
+    return replicas;
+  }
+
+  /**
+   * Seed for all the random numbers used by the optimizer. Runs with the same seed and arguments
+   * produce the same result.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Number of threads the random lineups that set the starting temperature and the final result are
+   * scored on. Replicas always get a thread each.
+   */
+  public int getThreads() {
+    return threads;
+  }
 }
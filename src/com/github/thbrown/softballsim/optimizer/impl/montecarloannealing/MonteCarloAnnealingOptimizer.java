@@ -1,39 +1,51 @@
 package com.github.thbrown.softballsim.optimizer.impl.montecarloannealing;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
-import org.apache.commons.math3.util.Pair;
 import com.github.thbrown.softballsim.Result;
+import com.github.thbrown.softballsim.data.gson.DataPlayer;
 import com.github.thbrown.softballsim.data.gson.DataStats;
 import com.github.thbrown.softballsim.datasource.ProgressTracker;
 import com.github.thbrown.softballsim.lineup.BattingLineup;
-import com.github.thbrown.softballsim.lineupindexer.BattingLineupIndexer;
+import com.github.thbrown.softballsim.lineup.OrdinaryBattingLineup;
 import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
 import com.github.thbrown.softballsim.optimizer.Optimizer;
 import com.github.thbrown.softballsim.optimizer.OptimizerEnum;
+import com.github.thbrown.softballsim.optimizer.impl.FinalScore;
 import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.LineupComposite;
-import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.SynchronizedLineupCompositeWrapper;
-import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.TTestTask;
-import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.TTestTaskResult;
-import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.statstransform.RangeSummaryStatisticsTransform;
-import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.statstransform.SummaryStatisticsTransform;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.LineupStatsCache;
 import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
-import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.MonteCarloGameSimulation;
+import com.github.thbrown.softballsim.util.CombinatoricsUtil;
+import com.github.thbrown.softballsim.util.Logger;
+import com.github.thbrown.softballsim.util.SplitMix64;
 
 public class MonteCarloAnnealingOptimizer implements Optimizer<Result> {
 
   private static final int PRELIMINARY_DATA_SAMPLE_SIZE = 100;
-  private static final int PRELIMINARY_DATA_GAME_SIMULATIONS = 10000;
 
   private static final int FINAL_RESULT_ITERATIONS = 1000000;
+  private static final long FINAL_RESULT_STREAM = -1;
 
   // [0-1] A value closer to 0 results in a steaper decline in temperature near the beginning
   private static final double SKEW = 1;
 
-  private static final double ALPHA = .001;
+  // Iterations each replica runs between swaps
+  private static final int SWAP_INTERVAL = 10;
+
+  // Most lineups whose stats are kept for revisits across all replicas, a few hundred bytes each.
+  // Lineups with fewer games than STATS_CACHE_MIN_GAMES are tested from scratch on every visit, see
+  // LineupStatsCache.
+  private static final int STATS_CACHE_CAPACITY = 50000;
+  private static final long STATS_CACHE_MIN_GAMES = 1000;
 
   @Override
   public Result optimize(List<String> playersInLineup, LineupTypeEnum lineupType, DataStats battingData,
@@ -42,107 +54,218 @@ public class MonteCarloAnnealingOptimizer implements Optimizer<Result> {
     // Start the timer
     long startTimestamp = System.currentTimeMillis();
 
+    // Neighbors are found by swapping two players, which is only defined for normal lineups
+    if (lineupType != LineupTypeEnum.ORDINARY) {
+      throw new IllegalArgumentException("The annealing optimizer only supports " + LineupTypeEnum.ORDINARY
+          + " lineups, got " + lineupType);
+    }
+
     // Check that the batting data we have is sufficient to run this optimizer
     validateData(battingData, playersInLineup);
 
     // Get the arguments as their expected types
     MonteCarloAnnealingArgumentParser parsedArguments = new MonteCarloAnnealingArgumentParser(arguments);
-    BattingLineupIndexer indexer = lineupType.getLineupIndexer(battingData, playersInLineup);
 
-    // Determine some statistical information about the data, we use this to inform our annealing
-    // parameters
-    SummaryStatistics dataStats = new SummaryStatistics();
+    // Lineups are orders of this generator's player slots, which are the same as indexes into players.
+    // It's read only, so every replica shares it.
+    List<DataPlayer> players = new ArrayList<>();
+    for (String playerId : playersInLineup) {
+      players.add(battingData.getPlayerById(playerId));
+    }
+    HitGenerator hitGenerator = new HitGenerator(players);
+
+    // A single chain runs entirely on this thread, so a single seeded stream makes the whole run
+    // reproducible. With replicas, each one gets its own stream.
+    SplitMix64 random = new SplitMix64(parsedArguments.getSeed());
+    Logger.log("Seed: " + parsedArguments.getSeed());
+
+    double maxTemperature = getMaxTemperature(hitGenerator, parsedArguments, random);
+
+    final long iterations = parsedArguments.getDuration();
+    List<Replica> replicas;
+    if (parsedArguments.getReplicas() > 1) {
+      replicas = runParallelTempering(hitGenerator, players, parsedArguments, maxTemperature, random,
+          progressTracker, startTimestamp);
+    } else {
+      // Choose a random lineup
+      Replica replica = new Replica(hitGenerator, parsedArguments.getInnings(), random,
+          getStatsCache(players.size(), 1));
+
+      // long annealingStartTimestamp = System.currentTimeMillis();
+
+      for (int i = 0; i < iterations; i++) {
+        double temperature = this.getTemperature(maxTemperature, 0, iterations, i);
+        replica.step(temperature);
+
+        progressTracker.updateProgress(new Result(OptimizerEnum.MONTE_CARLO_ANNEALING,
+            getLineup(players, replica.getActiveComposite()), replica.getActiveComposite().getStats().getMean(),
+            (long) iterations, (long) i, System.currentTimeMillis() - startTimestamp));
+      }
+      replicas = Collections.singletonList(replica);
+    }
+    LineupComposite activeComposite = replicas.get(0).getActiveComposite();
+    long totalSimulations = replicas.stream().mapToLong(Replica::getSimulations).sum();
+
+    // Make sure the final result has at least FINAL_RESULT_ITERATIONS iterations
+    if (activeComposite.getStats().getN() < FINAL_RESULT_ITERATIONS) {
+      activeComposite.incorperateAdditionalStats(FinalScore.simulate(activeComposite.getBattingOrder(),
+          parsedArguments.getInnings(), hitGenerator, FINAL_RESULT_ITERATIONS - activeComposite.getStats().getN(),
+          parsedArguments.getThreads(), random.getStream(FINAL_RESULT_STREAM)));
+    }
+
+    System.out.println("Simulations Required " + totalSimulations + " which is " + totalSimulations / iterations
+        + " per iteration " + activeComposite.getStats().getN());
+    if (replicas.get(0).getStatsCache() != null) {
+      long hits = replicas.stream().mapToLong(replica -> replica.getStatsCache().getHits()).sum();
+      long misses = replicas.stream().mapToLong(replica -> replica.getStatsCache().getMisses()).sum();
+      Logger.log("Stats cache hits: " + hits + " of " + (hits + misses) + " lineups visited");
+    }
+
+    return new Result(OptimizerEnum.MONTE_CARLO_ANNEALING, getLineup(players, activeComposite),
+        activeComposite.getStats().getMean(), FinalScore.getConfidenceInterval(activeComposite.getStats()),
+        (long) iterations, (long) iterations, System.currentTimeMillis() - startTimestamp);
+  }
+
+  /**
+   * Determine some statistical information about the data, we use this to inform our annealing
+   * parameters. Scores PRELIMINARY_DATA_SAMPLE_SIZE random lineups, spread over the threads argument,
+   * and starts the temperature at 3 standard deviations of their scores.
+   */
+  private double getMaxTemperature(HitGenerator hitGenerator, MonteCarloAnnealingArgumentParser parsedArguments,
+      SplitMix64 random) {
+    long calibrationStartTimestamp = System.currentTimeMillis();
+    CalibrationEnum calibration = parsedArguments.getCalibration();
+
+    // Each lineup gets its own stream so the scores don't depend on the number of threads
+    List<Callable<Double>> tasks = new ArrayList<>(PRELIMINARY_DATA_SAMPLE_SIZE);
     for (int i = 0; i < PRELIMINARY_DATA_SAMPLE_SIZE; i++) {
-      long randomIndex = ThreadLocalRandom.current().nextLong(0, indexer.size());
-      BattingLineup randomLineup = indexer.getLineup(randomIndex);
-      HitGenerator hitGenerator = new HitGenerator(randomLineup.asList());
-      SummaryStatistics lineupSummaryStatistics = new SummaryStatistics();
-      for (int j = 0; j < PRELIMINARY_DATA_GAME_SIMULATIONS; j++) {
-        double score = MonteCarloGameSimulation.simulateGame(randomLineup, parsedArguments.getInnings(), hitGenerator);
-        lineupSummaryStatistics.addValue(score);
+      int[] battingOrder = Replica.getRandomOrder(hitGenerator.getPlayerCount(), random);
+      SplitMix64 lineupRandom = random.getStream(i);
+      tasks.add(() -> calibration.getMeanScore(battingOrder, hitGenerator, parsedArguments.getInnings(),
+          lineupRandom));
+    }
+
+    SummaryStatistics dataStats = new SummaryStatistics();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(parsedArguments.getThreads(), tasks.size()));
+    try {
+      for (Future<Double> score : executor.invokeAll(tasks)) {
+        dataStats.addValue(score.get());
       }
-      dataStats.addValue(lineupSummaryStatistics.getMean());
+    } catch (InterruptedException | ExecutionException e) {
+      throw new RuntimeException(e);
+    } finally {
+      executor.shutdown();
     }
-    double maxTemperature = dataStats.getStandardDeviation() * 3;
 
-    // Choose a random lineup
-    long activeLineupIndex = ThreadLocalRandom.current().nextLong(0, indexer.size());
-    BattingLineup activeLineup = indexer.getLineup(activeLineupIndex);
-    HitGenerator activeLineupHitGenerator = new HitGenerator(activeLineup.asList());
-    LineupComposite activeComposite = new LineupComposite(activeLineup, activeLineupHitGenerator, activeLineupIndex);
+    double maxTemperature = dataStats.getStandardDeviation() * 3;
+    Logger.log("Max temperature: " + maxTemperature + " (" + calibration + " calibration took "
+        + (System.currentTimeMillis() - calibrationStartTimestamp) + "ms)");
+    return maxTemperature;
+  }
 
-    // long annealingStartTimestamp = System.currentTimeMillis();
+  /**
+   * Runs one replica per thread, each at a fixed temperature on a ladder from 0 (the first replica) to
+   * maxTemperature. The ladder is spaced more closely near 0. Every SWAP_INTERVAL iterations,
+   * neighboring replicas may swap lineups (see {@link #shouldSwap}). Good lineups work their way
+   * down to the coldest replica while the hotter ones keep exploring, so a single chain cooling too
+   * fast and getting stuck doesn't decide the result.
+   *
+   * @return the replicas, coldest first
+   */
+  private List<Replica> runParallelTempering(HitGenerator hitGenerator, List<DataPlayer> players,
+      MonteCarloAnnealingArgumentParser parsedArguments, double maxTemperature, SplitMix64 random,
+      ProgressTracker progressTracker, long startTimestamp) {
+    int replicaCount = parsedArguments.getReplicas();
+    double[] temperatures = new double[replicaCount];
+    List<Replica> replicas = new ArrayList<>(replicaCount);
+    for (int i = 0; i < replicaCount; i++) {
+      temperatures[i] = maxTemperature * (Math.pow(2, i) - 1) / (Math.pow(2, replicaCount - 1) - 1);
+      replicas.add(new Replica(hitGenerator, parsedArguments.getInnings(), random.getStream(i),
+          getStatsCache(players.size(), replicaCount)));
+    }
+    Logger.log("Replica temperatures: " + Arrays.toString(temperatures));
 
-    long totalSimulations = 0;
+    ExecutorService executor = Executors.newFixedThreadPool(replicaCount);
     final long iterations = parsedArguments.getDuration();
-    for (int i = 0; i < iterations; i++) {
-      double temperature = this.getTemperature(maxTemperature, 0, iterations, i);
-
-      // Get a random neighbor
-      Pair<Long, BattingLineup> comparisonPair = indexer.getRandomNeighbor(activeComposite.getIndex());
-      long comparisonLinupIndex = comparisonPair.getFirst();
-      BattingLineup comparisonLineup = comparisonPair.getSecond();
-      HitGenerator comparisonLineupHitGenerator = new HitGenerator(comparisonLineup.asList());
-      LineupComposite comparisonComposite =
-          new LineupComposite(comparisonLineup, comparisonLineupHitGenerator, comparisonLinupIndex);
-
-      // Simulate both until we achieve a small enough t-value (or we reach the max number of allowed
-      // optimizations)
-      List<LineupComposite> lineupsToTTest = new ArrayList<>(2);
-      lineupsToTTest.add(activeComposite);
-      lineupsToTTest.add(comparisonComposite);
-
-      // This transform modifies the tTest such that it now tells us the confidence that the mean of the
-      // two populations is within 'temperature' of each other. This requires a smaller a sample size to
-      // determine.
-      SummaryStatisticsTransform transform = new RangeSummaryStatisticsTransform(temperature);
-      TTestTask task = new TTestTask(lineupsToTTest, parsedArguments.getInnings(), ALPHA, transform);
-      TTestTaskResult result = task.call();
-
-      totalSimulations += result.getSimulationsRequired();
-
-      // Update the two lineupComposites under test
-      // TTest returns the best lineup composite, we'll need to check whether that one is the active or
-      // comparison
-      if (result.getBestLineupComposite().equals(activeComposite)) {
-        activeComposite = result.getBestLineupComposite();
-        comparisonComposite = result.getEliminatedLineupComposites().iterator().next(); // Should only have one element
-      } else {
-        comparisonComposite = result.getBestLineupComposite();
-        activeComposite = result.getEliminatedLineupComposites().iterator().next(); // Should only have one element
+    long completed = 0;
+    for (int round = 0; completed < iterations; round++) {
+      final int steps = (int) Math.min(SWAP_INTERVAL, iterations - completed);
+      List<Future<?>> tasks = new ArrayList<>(replicaCount);
+      for (int i = 0; i < replicaCount; i++) {
+        Replica replica = replicas.get(i);
+        double temperature = temperatures[i];
+        tasks.add(executor.submit(() -> {
+          for (int j = 0; j < steps; j++) {
+            replica.step(temperature);
+          }
+        }));
+      }
+      for (Future<?> task : tasks) {
+        try {
+          task.get();
+        } catch (InterruptedException | ExecutionException e) {
+          throw new RuntimeException(e);
+        }
       }
+      completed += steps;
 
-      // Accept the comparisonLineup if the mean difference in runs is less than the temperature
-      // this.getTemperature(maxTemperature, annealingStartTimestamp, annealingStartTimestamp +
-      // parsedArguments.getDuration(), System.currentTimeMillis());
-      double diff = activeComposite.getStats().getMean() - comparisonComposite.getStats().getMean();
-      // Logger.log(temperature + " " + diff + ((diff < temperature) ? " ACCEPT" : " REJECT"));
-      if (diff < temperature) {
-        // Logger.log(comparisonComposite.getStats().getMean() + " is better than " +
-        // activeComposite.getStats().getMean());
-        activeComposite = comparisonComposite;
+      // Alternate between the pairs (0, 1), (2, 3)... and (1, 2), (3, 4)... so every neighboring pair
+      // gets a chance to swap
+      for (int i = round % 2; i + 1 < replicaCount; i += 2) {
+        Replica colder = replicas.get(i);
+        Replica hotter = replicas.get(i + 1);
+        if (shouldSwap(colder.getActiveComposite().getStats().getMean(),
+            hotter.getActiveComposite().getStats().getMean(), temperatures[i], temperatures[i + 1], random)) {
+          LineupComposite temp = colder.getActiveComposite();
+          colder.setActiveComposite(hotter.getActiveComposite());
+          hotter.setActiveComposite(temp);
+        }
       }
 
-      progressTracker.updateProgress(new Result(OptimizerEnum.MONTE_CARLO_ANNEALING, activeComposite.getLineup(),
-          activeComposite.getStats().getMean(), (long) iterations, (long) i,
-          System.currentTimeMillis() - startTimestamp));
+      LineupComposite coldest = replicas.get(0).getActiveComposite();
+      progressTracker.updateProgress(new Result(OptimizerEnum.MONTE_CARLO_ANNEALING, getLineup(players, coldest),
+          coldest.getStats().getMean(), iterations, completed, System.currentTimeMillis() - startTimestamp));
     }
+    executor.shutdown();
+    return replicas;
+  }
 
-    // Make sure the final result has at least FINAL_RESULT_ITERATIONS iterations
-    for (long i = activeComposite.getStats().getN(); i < FINAL_RESULT_ITERATIONS; i++) {
-      double score =
-          MonteCarloGameSimulation.simulateGame(activeComposite.getLineup(), parsedArguments.getInnings(),
-              activeComposite.getHitGenerator());
-      activeComposite.addSample(score);
+  /**
+   * Chains keep coming back to the same lineups, a cache lets them pick up the games they've already
+   * played. Each replica gets its own share of the capacity. A cache shared between replicas would
+   * make the games a lineup starts with depend on thread timing, and with it the result.
+   *
+   * @return a cache for one replica, or null if there are too many players to key the cache by
+   */
+  private static LineupStatsCache getStatsCache(int playerCount, int replicaCount) {
+    if (playerCount > LineupStatsCache.MAX_PLAYERS) {
+      return null;
     }
+    return new LineupStatsCache(STATS_CACHE_CAPACITY / replicaCount, STATS_CACHE_MIN_GAMES);
+  }
 
-    System.out.println("Simulations Required " + totalSimulations + " which is " + totalSimulations / iterations
-        + " per iteration or " + totalSimulations / (indexer.size()) + " per lineup "
-        + activeComposite.getStats().getN());
+  /**
+   * The usual replica exchange rule with runs scored in place of energy. Always swap if the hotter
+   * replica's lineup is better, otherwise swap with probability exp(difference * (1 / colder - 1 /
+   * hotter)). The coldest replica is at temperature 0 so it only ever takes a better lineup.
+   */
+  private static boolean shouldSwap(double colderMean, double hotterMean, double colderTemperature,
+      double hotterTemperature, SplitMix64 random) {
+    double difference = hotterMean - colderMean;
+    if (difference >= 0) {
+      return true;
+    }
+    if (colderTemperature <= 0) {
+      return false;
+    }
+    return random.nextDouble() < Math.exp(difference * (1 / colderTemperature - 1 / hotterTemperature));
+  }
 
-    return new Result(OptimizerEnum.MONTE_CARLO_ANNEALING, activeComposite.getLineup(),
-        activeComposite.getStats().getMean(), (long) iterations, (long) iterations,
-        System.currentTimeMillis() - startTimestamp);
+  /**
+   * Replicas only keep batting orders, this turns one back into a lineup for reporting.
+   */
+  private static BattingLineup getLineup(List<DataPlayer> players, LineupComposite composite) {
+    return new OrdinaryBattingLineup(CombinatoricsUtil.mapListToArray(players, composite.getBattingOrder()));
   }
 
   private double getTemperature(double maxTemperature, long startIndex, long endIndex, long activeIndex) {
@@ -0,0 +1,161 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloannealing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.LineupComposite;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.LineupStatsCache;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.TTestTask;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.TTestTaskResult;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.statstransform.RangeSummaryStatisticsTransform;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.statstransform.SummaryStatisticsTransform;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.util.CombinatoricsUtil;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+/**
+ * A single annealing chain, the lineup it's currently at and the generator its neighbors and games
+ * are drawn from. A replica is only used by one thread at a time.
+ *
+ * Lineups are batting orders of the shared HitGenerator's player slots. A neighbor is the active
+ * order with two players swapped, so a step doesn't go through a lineup indexer or build a new
+ * HitGenerator. Callers turn the active order back into a lineup only when they report it.
+ *
+ * With a {@link LineupStatsCache}, a lineup the chain comes back to keeps the games it played on
+ * earlier visits, so the t-test often needs few or no new games to compare it.
+ */
+public class Replica {
+
+  private static final double ALPHA = .001;
+
+  private final HitGenerator hitGenerator;
+  private final int inningsPerGame;
+  private final SplitMix64 random;
+  private final LineupStatsCache statsCache;
+
+  private LineupComposite activeComposite;
+  private long simulations;
+
+  /**
+   * Starts the chain at a random order of the hitGenerator's players drawn from the given generator.
+   * The hitGenerator isn't modified, so all replicas can share one.
+   *
+   * @param statsCache - where lineups pick up the games they played on earlier visits, or null to
+   *        start every visit from scratch. Only this replica should use it, see
+   *        MonteCarloAnnealingOptimizer.getStatsCache.
+   */
+  public Replica(HitGenerator hitGenerator, int inningsPerGame, SplitMix64 random, LineupStatsCache statsCache) {
+    this.hitGenerator = hitGenerator;
+    this.inningsPerGame = inningsPerGame;
+    this.random = random;
+    this.statsCache = statsCache;
+    this.activeComposite = getComposite(getRandomOrder(hitGenerator.getPlayerCount(), random));
+  }
+
+  /**
+   * @return a uniformly random order of the player slots 0 to playerCount - 1
+   */
+  static int[] getRandomOrder(int playerCount, SplitMix64 random) {
+    int[] order = new int[playerCount];
+    Arrays.setAll(order, i -> i);
+    for (int i = order.length - 1; i > 0; i--) {
+      CombinatoricsUtil.swap(i, random.nextInt(i + 1), order);
+    }
+    return order;
+  }
+
+  /**
+   * Compares the active lineup against a random neighbor and moves to the neighbor if its mean is
+   * less than temperature runs worse.
+   */
+  public void step(double temperature) {
+    // A lineup with one player has no neighbors
+    int[] comparisonOrder = activeComposite.getBattingOrder().clone();
+    if (comparisonOrder.length < 2) {
+      return;
+    }
+
+    // Get a random neighbor, same move as OrdinaryBattingLineupIndexer.getRandomNeighbor. The active
+    // composite's order is shared with its copies so the swap is made on a copy.
+    int first = random.nextInt(comparisonOrder.length);
+    int second = (first + 1 + random.nextInt(comparisonOrder.length - 1)) % comparisonOrder.length;
+    CombinatoricsUtil.swap(first, second, comparisonOrder);
+    LineupComposite comparisonComposite = getComposite(comparisonOrder);
+
+    // Simulate both until we achieve a small enough t-value (or we reach the max number of allowed
+    // optimizations)
+    List<LineupComposite> lineupsToTTest = new ArrayList<>(2);
+    lineupsToTTest.add(activeComposite);
+    lineupsToTTest.add(comparisonComposite);
+
+    // This transform modifies the tTest such that it now tells us the confidence that the mean of the
+    // two populations is within 'temperature' of each other. This requires a smaller a sample size to
+    // determine.
+    SummaryStatisticsTransform transform = new RangeSummaryStatisticsTransform(temperature);
+    TTestTask task = new TTestTask(lineupsToTTest, inningsPerGame, ALPHA, transform, random);
+    TTestTaskResult result = task.call();
+
+    simulations += result.getSimulationsRequired();
+    if (statsCache != null) {
+      statsCache.put(activeComposite.getBattingOrder(), activeComposite.getStats());
+      statsCache.put(comparisonComposite.getBattingOrder(), comparisonComposite.getStats());
+    }
+
+    // Update the two lineupComposites under test
+    // TTest returns the best lineup composite, we'll need to check whether that one is the active or
+    // comparison
+    if (result.getBestLineupComposite().equals(activeComposite)) {
+      activeComposite = result.getBestLineupComposite();
+      comparisonComposite = result.getEliminatedLineupComposites().iterator().next(); // Should only have one element
+    } else {
+      comparisonComposite = result.getBestLineupComposite();
+      activeComposite = result.getEliminatedLineupComposites().iterator().next(); // Should only have one element
+    }
+
+    // Accept the comparisonLineup if the mean difference in runs is less than the temperature
+    double diff = activeComposite.getStats().getMean() - comparisonComposite.getStats().getMean();
+    // Logger.log(temperature + " " + diff + ((diff < temperature) ? " ACCEPT" : " REJECT"));
+    if (diff < temperature) {
+      activeComposite = comparisonComposite;
+    }
+  }
+
+  /**
+   * @return a composite for the order that starts with the games it played on earlier visits, if any
+   */
+  private LineupComposite getComposite(int[] battingOrder) {
+    LineupComposite composite = new LineupComposite(battingOrder, hitGenerator);
+    StatisticalSummary cached = statsCache == null ? null : statsCache.get(battingOrder);
+    if (cached != null) {
+      composite.incorperateAdditionalStats(cached);
+    }
+    return composite;
+  }
+
+  /**
+   * @return this replica's stats cache, or null if it doesn't have one
+   */
+  public LineupStatsCache getStatsCache() {
+    return statsCache;
+  }
+
+  public LineupComposite getActiveComposite() {
+    return activeComposite;
+  }
+
+  /**
+   * Moves this chain to another lineup, used to swap lineups between replicas.
+   */
+  public void setActiveComposite(LineupComposite activeComposite) {
+    this.activeComposite = activeComposite;
+  }
+
+  /**
+   * @return the number of games simulated by {@link #step} so far
+   */
+  public long getSimulations() {
+    return simulations;
+  }
+
+}
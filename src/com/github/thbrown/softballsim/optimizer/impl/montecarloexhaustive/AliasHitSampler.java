@@ -0,0 +1,122 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
+
+/**
+ * Samples plate appearance results using Walker's alias method
+ * (https://en.wikipedia.org/wiki/Alias_method). Sampling takes one table lookup and one comparison
+ * regardless of how many plate appearances the player's stats are made of.
+ * 
+ * The table is padded to eight columns so the column can be picked with a bit mask instead of a
+ * modulo. Padding columns have zero weight and always redirect to their alias.
+ */
+public class AliasHitSampler implements HitSampler {
+
+  public static final int COLUMN_BITS = 3;
+  public static final int COLUMNS = 1 << COLUMN_BITS;
+  private static final int COLUMN_MASK = COLUMNS - 1;
+
+  // Thresholds are compared against the top 31 bits of the random value
+  private static final int THRESHOLD_BITS = 31;
+  private static final long THRESHOLD_ONE = 1L << THRESHOLD_BITS;
+
+  // Flat tables pack both of a column's results into one int
+  private static final int ALIAS_SHIFT = 8;
+  private static final int RESULT_MASK = (1 << ALIAS_SHIFT) - 1;
+
+  private final long[] thresholds = new long[COLUMNS];
+  private final int[] primary = new int[COLUMNS];
+  private final int[] alias = new int[COLUMNS];
+
+  /**
+   * @param outcomeCounts - Number of times the player got each result, indexed by number of bases.
+   */
+  public AliasHitSampler(int[] outcomeCounts) {
+    long total = 0;
+    for (int count : outcomeCounts) {
+      total += count;
+    }
+    if (total <= 0) {
+      throw new IllegalArgumentException("Can't sample from a player with no plate appearances");
+    }
+
+    // Vose's construction using integer weights, so the table is exact up to 31-bit threshold
+    // rounding: each threshold is floored, so each probability is off by less than 2^-31. Every column
+    // holds 'total' units of weight, each outcome brings (count * COLUMNS) units.
+    long[] weights = new long[COLUMNS];
+    int[] small = new int[COLUMNS];
+    int[] large = new int[COLUMNS];
+    int smallSize = 0;
+    int largeSize = 0;
+    for (int i = 0; i < COLUMNS; i++) {
+      weights[i] = i < outcomeCounts.length ? outcomeCounts[i] * (long) COLUMNS : 0;
+      if (weights[i] < total) {
+        small[smallSize++] = i;
+      } else {
+        large[largeSize++] = i;
+      }
+    }
+
+    while (smallSize > 0 && largeSize > 0) {
+      int less = small[--smallSize];
+      int more = large[--largeSize];
+      primary[less] = less;
+      alias[less] = more;
+      thresholds[less] = weights[less] * THRESHOLD_ONE / total;
+
+      weights[more] = weights[more] - (total - weights[less]);
+      if (weights[more] < total) {
+        small[smallSize++] = more;
+      } else {
+        large[largeSize++] = more;
+      }
+    }
+
+    // Whatever is left over fills its column completely
+    while (largeSize > 0) {
+      int column = large[--largeSize];
+      primary[column] = column;
+      alias[column] = column;
+      thresholds[column] = THRESHOLD_ONE;
+    }
+    while (smallSize > 0) {
+      // Only reachable through rounding, which integer weights rule out, but be safe
+      int column = small[--smallSize];
+      primary[column] = column;
+      alias[column] = column;
+      thresholds[column] = THRESHOLD_ONE;
+    }
+  }
+
+  /**
+   * Copies this sampler's table into flat arrays, starting at the given column. Callers that sample
+   * for many players in one loop can copy every player's table into the same arrays and use
+   * {@link #sample(long[], int[], int, long)}, which avoids a virtual call per sample.
+   */
+  public void copyTable(long[] flatThresholds, int[] flatResults, int firstColumn) {
+    for (int i = 0; i < COLUMNS; i++) {
+      flatThresholds[firstColumn + i] = thresholds[i];
+      flatResults[firstColumn + i] = primary[i] | alias[i] << ALIAS_SHIFT;
+    }
+  }
+
+  /**
+   * Same as {@link #sample(long)} for a table copied with {@link #copyTable(long[], int[], int)}.
+   */
+  public static int sample(long[] flatThresholds, int[] flatResults, int firstColumn, long randomBits) {
+    int column = firstColumn + ((int) randomBits & COLUMN_MASK);
+    long uniform = randomBits >>> (Long.SIZE - THRESHOLD_BITS);
+    return flatResults[column] >>> (uniform < flatThresholds[column] ? 0 : ALIAS_SHIFT) & RESULT_MASK;
+  }
+
+  @Override
+  public AliasHitSampler toAliasHitSampler() {
+    return this;
+  }
+
+  @Override
+  public int sample(long randomBits) {
+    int column = (int) randomBits & COLUMN_MASK;
+    long uniform = randomBits >>> (Long.SIZE - THRESHOLD_BITS);
+    return uniform < thresholds[column] ? primary[column] : alias[column];
+  }
+
+}
@@ -1,8 +1,24 @@
 package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
 
+/**
+ * Base running rules for simulations.
+ * 
+ * The runners on base are packed into a single int (the base state). The first three bits represent
+ * if a runner is present (1) on each base or not (0): bit 0 - first, bit 1 - second, bit 2 - third.
+ * 
+ * Every combination of base state and hit is precomputed into a transition table. Each transition is
+ * also a single int: the resulting base state lives in the low three bits and the runs scored by the
+ * hit live in the bits above that. Use {@link #getBases(int)} and {@link #getRuns(int)} to unpack.
+ */
 public class BasesUtil {
 
-  private static HitResult[] hitResults = new HitResult[32];
+  public static final int EMPTY_BASES = 0;
+  public static final int BASE_STATES = 8;
+
+  private static final int BASES_BITS = 3;
+  private static final int BASES_MASK = BASE_STATES - 1;
+
+  private static final int[] transitions = new int[32];
 
   static {
     for (int i = 0; i < 32; i++) {
@@ -24,60 +40,37 @@ public class BasesUtil {
         first = (j == 0) ? true : false;
       }
 
-      // Save the results in a map for quick later lookup
-      hitResults[i] = new HitResult(first, second, third, runsResultingFromHit);
+      // Save the results in a table for quick later lookup
+      int endingBases = (first ? 1 : 0) | (second ? 2 : 0) | (third ? 4 : 0);
+      transitions[i] = endingBases | (runsResultingFromHit << BASES_BITS);
     }
   }
 
-  public static int updateRunsAndBasesAfterHit(int numBases, BasesState bases) {
-    if (numBases == 0) {
-      return 0;
-    }
-    // There 3 bases (2^3) that may or may not be holding a player
-    // There are 4 non-out hit types (single, double, triple, hr) for 32 possibilities
-    // We can enumerate all possibilities here for quick computation.
-    int index = 0;
-    // First three bits represent the presence (1) or absence (0) of runners on each base
-    index |= bases.first ? 1 : 0;
-    index |= bases.second ? 2 : 0;
-    index |= bases.third ? 4 : 0;
-    // Second two bits are the hit type
-    index |= ((numBases - 1) << 3);
-
-    // Lookup the solution in our map
-    HitResult result = hitResults[index];
-    bases.first = result.first;
-    bases.second = result.second;
-    bases.third = result.third;
-    return result.runsScored;
+  /**
+   * There 3 bases (2^3) that may or may not be holding a player and there are 4 non-out hit types
+   * (single, double, triple, hr) for 32 possibilities. All of them are enumerated ahead of time, so
+   * this is a single array read.
+   * 
+   * @param bases - the base state before the hit
+   * @param numBases - the number of bases the hit is worth, must be between 1 and 4 inclusive
+   * @return the packed transition, see {@link #getBases(int)} and {@link #getRuns(int)}
+   */
+  public static int getTransition(int bases, int numBases) {
+    return transitions[bases | ((numBases - 1) << BASES_BITS)];
   }
 
-  // Class that holds info about what the field and score look like.
-  public static class HitResult {
-    HitResult(boolean first, boolean second, boolean third, int runsScored) {
-      this.first = first;
-      this.second = second;
-      this.third = third;
-      this.runsScored = runsScored;
-    }
-
-    public boolean first;
-    public boolean second;
-    public boolean third;
-    public int runsScored;
+  /**
+   * @return the base state after the given transition
+   */
+  public static int getBases(int transition) {
+    return transition & BASES_MASK;
   }
 
-  // Class that holds info about whether or not a player is on each base
-  public static class BasesState {
-    public boolean first = false;
-    public boolean second = false;
-    public boolean third = false;
-
-    public void clear() {
-      first = false;
-      second = false;
-      third = false;
-    }
+  /**
+   * @return the number of runs scored during the given transition
+   */
+  public static int getRuns(int transition) {
+    return transition >>> BASES_BITS;
   }
 
 }
@@ -0,0 +1,152 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+/**
+ * Simulates many games of the same lineup side by side. Follows the same rules as
+ * {@link MonteCarloGameSimulation}.
+ *
+ * Each game in progress is a lane, and the state of every lane (base state, outs, runs, the batter
+ * cursor, etc...) is kept in its own primitive array instead of in local variables. Every step
+ * takes one plate appearance in each lane in a few short passes over those arrays: draw the
+ * results, move the batter cursors, apply the results, then retire lanes whose inning or game is
+ * over. Results are drawn from the hit generator's flat alias tables (built once from whichever
+ * {@link HitSampler} each player has), and outs are looked up in the same transition table as
+ * hits, so the passes make no calls and have no data dependent branches. That gives the JIT loops
+ * it can unroll and vectorize.
+ *
+ * When a game ends its score is passed to the sink and the lane starts the next game, so lanes stay
+ * full until there are fewer games left than lanes.
+ */
+public class BatchedGameSimulation {
+
+  public static final int LANES = 64;
+
+  private static final int MAX_RUNS_PER_INNING = 100;
+  private static final int OUTS_PER_INNING = 3;
+
+  // Like BasesUtil's transitions but indexed by every plate appearance result (0 bases for an out)
+  private static final int RESULT_BITS = 3;
+  private static final int[] transitions = new int[HitSampler.OUTCOME_COUNT << RESULT_BITS];
+
+  static {
+    for (int numBases = 0; numBases < HitSampler.OUTCOME_COUNT; numBases++) {
+      for (int bases = 0; bases < BasesUtil.BASE_STATES; bases++) {
+        transitions[numBases << RESULT_BITS | bases] =
+            numBases == 0 ? bases : BasesUtil.getTransition(bases, numBases);
+      }
+    }
+  }
+
+  /**
+   * Convenience wrapper that resolves the lineup first, see
+   * {@link #simulateGames(int[], int, HitGenerator, long, SplitMix64, IntConsumer)}.
+   */
+  public static long simulateGames(BattingLineup lineup, int inningsPerGame, HitGenerator hitGenerator, long games,
+      SplitMix64 random, IntConsumer sink) {
+    return simulateGames(hitGenerator.getBattingOrder(lineup), inningsPerGame, hitGenerator, games, random, sink);
+  }
+
+  /**
+   * Simulates the given number of games.
+   *
+   * @param random - generator plate appearances are drawn from, or null to use ThreadLocalRandom.
+   * @param sink - receives the score of each game as it finishes, may be null if only the total is
+   *        needed. Games finish in a different order than they start.
+   * @return the total runs scored in all the games
+   */
+  public static long simulateGames(int[] battingOrder, int inningsPerGame, HitGenerator hitGenerator, long games,
+      SplitMix64 random, IntConsumer sink) {
+    if (inningsPerGame <= 0) {
+      for (long i = 0; sink != null && i < games; i++) {
+        sink.accept(0);
+      }
+      return 0;
+    }
+
+    // Every player's sampler as one flat alias table, built once by the hit generator
+    long[] thresholds = hitGenerator.getFlatThresholds();
+    int[] samples = hitGenerator.getFlatResults();
+
+    int activeLanes = (int) Math.min(LANES, games);
+    long gamesStarted = activeLanes;
+    int[] batterIndexes = new int[activeLanes];
+    int[] bases = new int[activeLanes];
+    int[] outs = new int[activeLanes];
+    int[] inningRuns = new int[activeLanes];
+    int[] gameRuns = new int[activeLanes];
+    int[] inningsPlayed = new int[activeLanes];
+    long[] randomBits = new long[activeLanes];
+    int[] results = new int[activeLanes];
+    long totalRuns = 0;
+
+    while (activeLanes > 0) {
+      // Draw a result for the current batter in every lane
+      if (random == null) {
+        for (int i = 0; i < activeLanes; i++) {
+          randomBits[i] = ThreadLocalRandom.current().nextLong();
+        }
+      } else {
+        random.nextLongs(randomBits, activeLanes);
+      }
+      for (int i = 0; i < activeLanes; i++) {
+        int firstColumn = battingOrder[batterIndexes[i]] << AliasHitSampler.COLUMN_BITS;
+        results[i] = AliasHitSampler.sample(thresholds, samples, firstColumn, randomBits[i]);
+      }
+
+      // Move on to the next batters
+      for (int i = 0; i < activeLanes; i++) {
+        int next = batterIndexes[i] + 1;
+        batterIndexes[i] = next == battingOrder.length ? 0 : next;
+      }
+
+      // Apply the results
+      for (int i = 0; i < activeLanes; i++) {
+        int transition = transitions[results[i] << RESULT_BITS | bases[i]];
+        bases[i] = BasesUtil.getBases(transition);
+        inningRuns[i] += BasesUtil.getRuns(transition);
+        outs[i] += results[i] == 0 ? 1 : 0;
+      }
+
+      // End innings and games. Walk backwards so a finished lane can be replaced by the last lane.
+      for (int i = activeLanes - 1; i >= 0; i--) {
+        if (outs[i] < OUTS_PER_INNING && inningRuns[i] < MAX_RUNS_PER_INNING) {
+          continue;
+        }
+        gameRuns[i] += inningRuns[i];
+        bases[i] = BasesUtil.EMPTY_BASES;
+        outs[i] = 0;
+        inningRuns[i] = 0;
+        if (++inningsPlayed[i] < inningsPerGame) {
+          continue;
+        }
+
+        totalRuns += gameRuns[i];
+        if (sink != null) {
+          sink.accept(gameRuns[i]);
+        }
+        if (gamesStarted < games) {
+          // Start a new game in this lane
+          gamesStarted++;
+          batterIndexes[i] = 0;
+          gameRuns[i] = 0;
+          inningsPlayed[i] = 0;
+        } else {
+          // No games left to start, retire the lane
+          activeLanes--;
+          batterIndexes[i] = batterIndexes[activeLanes];
+          bases[i] = bases[activeLanes];
+          outs[i] = outs[activeLanes];
+          inningRuns[i] = inningRuns[activeLanes];
+          gameRuns[i] = gameRuns[activeLanes];
+          inningsPlayed[i] = inningsPlayed[activeLanes];
+        }
+      }
+    }
+    return totalRuns;
+  }
+
+}
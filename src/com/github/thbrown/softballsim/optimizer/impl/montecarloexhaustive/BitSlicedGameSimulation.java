@@ -0,0 +1,180 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+/**
+ * Simulates 64 games at once, one game per bit ("lane") of a long. Follows the same rules as
+ * {@link MonteCarloGameSimulation}.
+ *
+ * Each lane's plate appearance result is still drawn from its batter's {@link HitSampler}, but the
+ * results are collected into one bitmask per hit type and everything else (runners on base, outs,
+ * runs this inning, whose inning/game is over and the runs scored) is updated for all 64 games with
+ * a handful of bitwise operations and popcounts. There are no branches on the result of a plate
+ * appearance, which is where the one game at a time simulation spends much of its time.
+ *
+ * Since runners always advance exactly as many bases as the hit is worth (see {@link BasesUtil})
+ * the base running rules reduce to:
+ *
+ * <pre>
+ * first'  = first & keep | single
+ * second' = second & keep | first & single | double
+ * third'  = third & keep | second & single | first & double | triple
+ * runs    = third & hit + second & (double | triple | hr) + first & (triple | hr) + hr
+ * </pre>
+ *
+ * where keep is the set of lanes that didn't get a hit (they made an out or aren't batting).
+ *
+ * Only the total runs scored across all games is tracked, so this is suited to optimizers that only
+ * need a lineup's mean score.
+ */
+public class BitSlicedGameSimulation {
+
+  public static final int LANES = Long.SIZE;
+
+  private static final int MAX_RUNS_PER_INNING = 100;
+
+  // Runs this inning is a bit-sliced counter, 7 bits is enough to count past MAX_RUNS_PER_INNING
+  private static final int RUN_COUNTER_BITS = 7;
+
+  /**
+   * Convenience wrapper that resolves the lineup first, see
+   * {@link #simulateGames(int[], int, HitGenerator, long, SplitMix64)}.
+   */
+  public static long simulateGames(BattingLineup lineup, int inningsPerGame, HitGenerator hitGenerator, long games,
+      SplitMix64 random) {
+    return simulateGames(hitGenerator.getBattingOrder(lineup), inningsPerGame, hitGenerator, games, random);
+  }
+
+  /**
+   * Simulates the given number of games, 64 at a time.
+   *
+   * @param random - generator plate appearances are drawn from, or null to use ThreadLocalRandom.
+   * @return the total runs scored in all the games
+   */
+  public static long simulateGames(int[] battingOrder, int inningsPerGame, HitGenerator hitGenerator, long games,
+      SplitMix64 random) {
+    int[] batterIndexes = new int[LANES];
+    int[] inningsPlayed = new int[LANES];
+    long totalRuns = 0;
+    for (long remaining = games; remaining > 0; remaining -= LANES) {
+      long lanes = remaining >= LANES ? -1L : (1L << remaining) - 1;
+      totalRuns += simulateLanes(battingOrder, inningsPerGame, hitGenerator, random, lanes, batterIndexes,
+          inningsPlayed);
+    }
+    return totalRuns;
+  }
+
+  /**
+   * Plays one game in each of the given lanes until all of them are over.
+   */
+  private static long simulateLanes(int[] battingOrder, int inningsPerGame, HitGenerator hitGenerator,
+      SplitMix64 random, long lanes, int[] batterIndexes, int[] inningsPlayed) {
+    Arrays.fill(batterIndexes, 0);
+    Arrays.fill(inningsPlayed, 0);
+
+    long active = inningsPerGame > 0 ? lanes : 0;
+    long first = 0;
+    long second = 0;
+    long third = 0;
+    long outsLow = 0;
+    long outsHigh = 0;
+    long[] inningRuns = new long[RUN_COUNTER_BITS];
+    long[] results = new long[HitSampler.OUTCOME_COUNT]; // Lanes that got each result, by bases
+    long totalRuns = 0;
+
+    while (active != 0) {
+      // Draw a result for the current batter of every game that is still going
+      Arrays.fill(results, 0);
+      for (long pending = active; pending != 0; pending &= pending - 1) {
+        int lane = Long.numberOfTrailingZeros(pending);
+        int batterIndex = batterIndexes[lane];
+        int numBases = hitGenerator.hit(battingOrder[batterIndex],
+            random == null ? ThreadLocalRandom.current().nextLong() : random.nextLong());
+        batterIndexes[lane] = batterIndex + 1 == battingOrder.length ? 0 : batterIndex + 1;
+        results[numBases] |= 1L << lane;
+      }
+      long out = results[0];
+      long single = results[1];
+      long doubles = results[2];
+      long triple = results[3];
+      long homerun = results[4];
+
+      // Advance the runners
+      long hit = single | doubles | triple | homerun;
+      long keep = ~hit;
+      long scoredFromThird = third & hit;
+      long scoredFromSecond = second & (doubles | triple | homerun);
+      long scoredFromFirst = first & (triple | homerun);
+      third = (third & keep) | (second & single) | (first & doubles) | triple;
+      second = (second & keep) | (first & single) | doubles;
+      first = (first & keep) | single;
+      totalRuns += Long.bitCount(scoredFromThird) + Long.bitCount(scoredFromSecond)
+          + Long.bitCount(scoredFromFirst) + Long.bitCount(homerun);
+
+      // Count runs this inning, only needed to stop innings that would never end
+      increment(inningRuns, scoredFromThird);
+      increment(inningRuns, scoredFromSecond);
+      increment(inningRuns, scoredFromFirst);
+      increment(inningRuns, homerun);
+
+      // Count outs, the 2 bit counter can't overflow since the inning ends at 3
+      long carry = outsLow & out;
+      outsLow ^= out;
+      outsHigh |= carry;
+
+      long tooManyRuns = atLeast(inningRuns, MAX_RUNS_PER_INNING);
+      long inningOver = ((outsLow & outsHigh) | tooManyRuns) & active;
+      if (inningOver != 0) {
+        long keepInning = ~inningOver;
+        first &= keepInning;
+        second &= keepInning;
+        third &= keepInning;
+        outsLow &= keepInning;
+        outsHigh &= keepInning;
+        for (int i = 0; i < RUN_COUNTER_BITS; i++) {
+          inningRuns[i] &= keepInning;
+        }
+        for (long ended = inningOver; ended != 0; ended &= ended - 1) {
+          int lane = Long.numberOfTrailingZeros(ended);
+          if (++inningsPlayed[lane] == inningsPerGame) {
+            active &= ~(1L << lane);
+          }
+        }
+      }
+    }
+    return totalRuns;
+  }
+
+  /**
+   * @return the lanes where the bit-sliced counter is greater than or equal to value
+   */
+  private static long atLeast(long[] counter, int value) {
+    // Compare from the most significant bit, a lane is decided at the first bit that differs
+    long greater = 0;
+    long equal = -1L;
+    for (int i = counter.length - 1; i >= 0; i--) {
+      if ((value >> i & 1) == 1) {
+        equal &= counter[i];
+      } else {
+        greater |= equal & counter[i];
+        equal &= ~counter[i];
+      }
+    }
+    return greater | equal;
+  }
+
+  /**
+   * Adds one to the bit-sliced counter in every lane that is set in the mask.
+   */
+  private static void increment(long[] counter, long mask) {
+    for (int i = 0; i < counter.length && mask != 0; i++) {
+      long carry = counter[i] & mask;
+      counter[i] ^= mask;
+      mask = carry;
+    }
+  }
+
+}
@@ -0,0 +1,46 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
+
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+/**
+ * Replayable source of random bits for common random number (CRN) simulations.
+ *
+ * Instead of drawing from a shared generator, the random bits for a plate appearance are a hash of
+ * (seed, game number, player slot, the player's plate appearance number in that game). Two lineups
+ * simulated with the same game number see the same sequence of outcomes for each player, just in a
+ * different order, so the difference between their scores has much less variance than the
+ * difference between two independent games. That's what lets a paired t-test separate close
+ * lineups with fewer games.
+ *
+ * Player slots are the ones assigned by a {@link HitGenerator}, so lineups are only paired when they
+ * are simulated with the same generator.
+ *
+ * This class has no mutable state and can be shared between threads.
+ */
+public class CommonRandomNumbers {
+
+  // Odd constants used to spread each part of the key before it's mixed
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+  private static final long GAME_MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+  private static final long PLAYER_MULTIPLIER = 0x165667B19E3779F9L;
+
+  private final long seed;
+
+  public CommonRandomNumbers(long seed) {
+    this.seed = seed;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * @return 64 random bits for the given player's plate appearance. The same arguments always return
+   *         the same bits.
+   */
+  public long getRandomBits(long game, int playerIndex, int plateAppearance) {
+    long key = SplitMix64.mix(seed + GOLDEN_GAMMA + game * GAME_MULTIPLIER);
+    return SplitMix64.mix(key + ((long) playerIndex << 32 | plateAppearance) * PLAYER_MULTIPLIER);
+  }
+
+}
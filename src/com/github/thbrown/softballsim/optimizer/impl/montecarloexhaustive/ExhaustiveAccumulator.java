@@ -0,0 +1,96 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
+
+import java.util.HashMap;
+import java.util.Map;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupCursor;
+
+/**
+ * Running summary (best lineup, worst score, histogram, and count) of a set of scored lineups.
+ * 
+ * This class is not thread safe. Each worker should fill its own accumulator and then combine them
+ * with {@link #merge(ExhaustiveAccumulator)}.
+ */
+public class ExhaustiveAccumulator {
+
+  private TaskResult bestResult;
+  private double worstScore;
+  private final Map<Long, Long> histogram;
+  private long count;
+
+  public ExhaustiveAccumulator() {
+    this(null, Double.MAX_VALUE, new HashMap<>(), 0);
+  }
+
+  /**
+   * Starts from an existing summary, e.g. the values saved by a paused optimization.
+   */
+  public ExhaustiveAccumulator(TaskResult bestResult, double worstScore, Map<Long, Long> histogram, long count) {
+    this.bestResult = bestResult;
+    this.worstScore = worstScore;
+    this.histogram = new HashMap<>(histogram);
+    this.count = count;
+  }
+
+  public void accept(double score, BattingLineup lineup) {
+    if (isBest(score)) {
+      bestResult = new TaskResult(score, lineup);
+    }
+    record(score);
+  }
+
+  /**
+   * Same as {@link #accept(double, BattingLineup)} for the cursor's current lineup. The lineup is only
+   * copied if it's the new best.
+   */
+  public void accept(double score, BattingLineupCursor cursor) {
+    if (isBest(score)) {
+      bestResult = new TaskResult(score, cursor.getLineupCopy());
+    }
+    record(score);
+  }
+
+  private boolean isBest(double score) {
+    return bestResult == null || score > bestResult.getScore();
+  }
+
+  private void record(double score) {
+    if (score < worstScore) {
+      worstScore = score;
+    }
+    histogram.merge((long) (score * 10), 1L, Long::sum);
+    count++;
+  }
+
+  public void merge(ExhaustiveAccumulator other) {
+    if (other.worstScore < worstScore) {
+      worstScore = other.worstScore;
+    }
+    for (Map.Entry<Long, Long> entry : other.histogram.entrySet()) {
+      histogram.merge(entry.getKey(), entry.getValue(), Long::sum);
+    }
+    if (bestResult == null || (other.bestResult != null && other.bestResult.getScore() > bestResult.getScore())) {
+      bestResult = other.bestResult;
+    }
+    count += other.count;
+  }
+
+  /**
+   * @return the highest scoring lineup seen so far, or null if nothing has been accepted
+   */
+  public TaskResult getBestResult() {
+    return bestResult;
+  }
+
+  public double getWorstScore() {
+    return worstScore;
+  }
+
+  public Map<Long, Long> getHistogram() {
+    return histogram;
+  }
+
+  public long getCount() {
+    return count;
+  }
+}
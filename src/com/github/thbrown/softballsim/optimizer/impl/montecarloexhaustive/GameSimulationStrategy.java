@@ -0,0 +1,60 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
+
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+/**
+ * Determines how optimizers simulate a batch of independent games for one lineup. Every strategy
+ * produces the same distribution of scores, they only differ in speed.
+ */
+public enum GameSimulationStrategy {
+
+  /**
+   * Games are simulated side by side one plate appearance at a time, see
+   * {@link BatchedGameSimulation}.
+   */
+  BATCHED {
+    @Override
+    public long simulateGames(int[] battingOrder, int inningsPerGame, HitGenerator hitGenerator, long games,
+        SplitMix64 random) {
+      return BatchedGameSimulation.simulateGames(battingOrder, inningsPerGame, hitGenerator, games, random, null);
+    }
+  },
+
+  /**
+   * Games are simulated 64 at a time, one per bit of a long, see {@link BitSlicedGameSimulation}.
+   */
+  BIT_SLICED {
+    @Override
+    public long simulateGames(int[] battingOrder, int inningsPerGame, HitGenerator hitGenerator, long games,
+        SplitMix64 random) {
+      return BitSlicedGameSimulation.simulateGames(battingOrder, inningsPerGame, hitGenerator, games, random);
+    }
+  },
+
+  /**
+   * The lineup's inning outcome distributions are calculated once and every game is then simulated
+   * with one draw per inning, see {@link InningOutcomeTable}. Building the table costs about as much
+   * as simulating a couple thousand games the usual way, so this only pays off when many more games
+   * than that are simulated for each lineup.
+   */
+  INNING_TABLE {
+    @Override
+    public long simulateGames(int[] battingOrder, int inningsPerGame, HitGenerator hitGenerator, long games,
+        SplitMix64 random) {
+      InningOutcomeTable inningOutcomes = new InningOutcomeTable(battingOrder, hitGenerator);
+      long totalRuns = 0;
+      for (long i = 0; i < games; i++) {
+        totalRuns += (long) MonteCarloGameSimulation.simulateGame(inningOutcomes, inningsPerGame, random);
+      }
+      return totalRuns;
+    }
+  };
+
+  /**
+   * @param random - generator games are drawn from, or null to use ThreadLocalRandom.
+   * @return the total runs scored in the given number of games
+   */
+  public abstract long simulateGames(int[] battingOrder, int inningsPerGame, HitGenerator hitGenerator, long games,
+      SplitMix64 random);
+
+}
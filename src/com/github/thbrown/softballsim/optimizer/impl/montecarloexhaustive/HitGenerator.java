@@ -1,55 +1,133 @@
 package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 import com.github.thbrown.softballsim.data.gson.DataPlayer;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
 
 /**
  * Class that simulates hits for a player based of their stats.
  * 
+ * Each player is assigned a slot (an int index) and a {@link HitSampler} built from their stats when
+ * the generator is built, so sampling costs the same no matter how many plate appearances a player
+ * has. Simulations should resolve a lineup into an array of these slots once (see
+ * {@link #getBattingOrder(BattingLineup)}) and then call {@link #hit(int)} so that the hot loop
+ * never has to hash a player id or unbox an Integer.
+ * 
  * This class must remain immutable so the hit method can be called from multiple threads.
  */
 public class HitGenerator {
 
-  private final Map<String, Integer[]> hitValues = new HashMap<>();
+  private final Map<String, Integer> playerIndexes = new HashMap<>();
+  private final DataPlayer[] players;
+  private final HitSampler[] samplers;
+
+  // Every player's sampler as an alias table in one pair of arrays, player slot i starts at column
+  // i * AliasHitSampler.COLUMNS. Used by simulations that sample in bulk, see getFlatThresholds().
+  private final long[] flatThresholds;
+  private final int[] flatResults;
 
   public HitGenerator(List<DataPlayer> players) {
+    this(players, HitSamplerStrategy.AUTO);
+  }
 
-    for (DataPlayer player : players) {
-      List<Integer> resultBucket = new ArrayList<>();
-
-      for (int i = 0; i < player.getHomerunCount(); i++) {
-        resultBucket.add(4);
-      }
-      for (int i = 0; i < player.getTripleCount(); i++) {
-        resultBucket.add(3);
-      }
-      for (int i = 0; i < player.getDoubleCount(); i++) {
-        resultBucket.add(2);
-      }
-      for (int i = 0; i < (player.getSingleCount() + player.getWalkCount()); i++) {
-        resultBucket.add(1);
-      }
-      for (int i = 0; i < (player.getOutCount() + player.getSacCount()); i++) {
-        resultBucket.add(0);
-      }
-
-      // We get slightly better access performance from an array over an ArrayList
-      Integer[] resultBucketArray = new Integer[resultBucket.size()];
-      hitValues.put(player.getId(), resultBucket.toArray(resultBucketArray));
+  public HitGenerator(List<DataPlayer> players, HitSamplerStrategy samplerStrategy) {
+    this.players = new DataPlayer[players.size()];
+    this.samplers = new HitSampler[players.size()];
+    this.flatThresholds = new long[players.size() * AliasHitSampler.COLUMNS];
+    this.flatResults = new int[players.size() * AliasHitSampler.COLUMNS];
+    for (int i = 0; i < players.size(); i++) {
+      DataPlayer player = players.get(i);
+      this.players[i] = player;
+      this.playerIndexes.put(player.getId(), i);
+      this.samplers[i] = samplerStrategy.getSampler(getOutcomeCounts(player));
+      this.samplers[i].toAliasHitSampler().copyTable(flatThresholds, flatResults, i * AliasHitSampler.COLUMNS);
     }
+  }
 
+  /**
+   * @return the number of times the player got each plate appearance result, indexed by the number of
+   *         bases that result is worth.
+   */
+  public static int[] getOutcomeCounts(DataPlayer player) {
+    int[] counts = new int[HitSampler.OUTCOME_COUNT];
+    counts[0] = player.getOutCount() + player.getSacCount();
+    counts[1] = player.getSingleCount() + player.getWalkCount();
+    counts[2] = player.getDoubleCount();
+    counts[3] = player.getTripleCount();
+    counts[4] = player.getHomerunCount();
+    return counts;
   }
 
+  /**
+   * Simulates a plate appearance for the player with the given id. Prefer {@link #hit(int)} in
+   * performance sensitive code, this method has to look up the player's slot on every call.
+   */
   public int hit(String playerId) {
-    // TODO: Using a length that is a power of 2 is about 25% faster, there could be some optimization
-    // vector here.
-    Integer[] hitBucket = hitValues.get(playerId);
-    int randomValue = ThreadLocalRandom.current().nextInt(hitBucket.length);
-    return hitBucket[randomValue];
+    return hit(getPlayerIndex(playerId));
+  }
+
+  /**
+   * Simulates a plate appearance for the player in the given slot and returns the number of bases
+   * earned (0 for an out, 4 for a homerun).
+   */
+  public int hit(int playerIndex) {
+    return samplers[playerIndex].sample(ThreadLocalRandom.current().nextLong());
+  }
+
+  /**
+   * Same as {@link #hit(int)} but the caller supplies the random bits, see
+   * {@link CommonRandomNumbers}.
+   */
+  public int hit(int playerIndex, long randomBits) {
+    return samplers[playerIndex].sample(randomBits);
+  }
+
+  public int getPlayerIndex(String playerId) {
+    Integer index = playerIndexes.get(playerId);
+    if (index == null) {
+      throw new IllegalArgumentException("No hitting data was provided for player " + playerId);
+    }
+    return index;
+  }
+
+  public DataPlayer getPlayer(int playerIndex) {
+    return players[playerIndex];
+  }
+
+  /**
+   * Thresholds of every player's sampler as one flat alias table, for use with
+   * {@link AliasHitSampler#sample(long[], int[], int, long)}. Player slot i starts at column i *
+   * AliasHitSampler.COLUMNS. Shared by every caller, do not modify.
+   */
+  long[] getFlatThresholds() {
+    return flatThresholds;
+  }
+
+  /**
+   * Results that go with {@link #getFlatThresholds()}. Shared by every caller, do not modify.
+   */
+  int[] getFlatResults() {
+    return flatResults;
+  }
+
+  public int getPlayerCount() {
+    return players.length;
+  }
+
+  /**
+   * Resolves a lineup into the player slots used by this generator. Element i of the returned array
+   * is the slot of the player that takes the i-th plate appearance of a game. The batting order
+   * repeats after the last element.
+   */
+  public int[] getBattingOrder(BattingLineup lineup) {
+    int[] battingOrder = new int[lineup.getCycleLength()];
+    for (int i = 0; i < battingOrder.length; i++) {
+      battingOrder[i] = getPlayerIndex(lineup.getBatter(i).getId());
+    }
+    return battingOrder;
   }
 
 }
@@ -0,0 +1,27 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
+
+/**
+ * Draws the result of a single plate appearance for one player. The result is the number of bases
+ * the hit earns (0 - out, 1 - single/walk, 2 - double, 3 - triple, 4 - homerun).
+ * 
+ * Implementations are handed 64 random bits instead of a random number generator so the caller is
+ * free to decide where randomness comes from. They must remain immutable so one instance can be
+ * shared between threads.
+ */
+public interface HitSampler {
+
+  /**
+   * Number of distinct plate appearance results (out, single, double, triple, homerun).
+   */
+  public static final int OUTCOME_COUNT = 5;
+
+  public int sample(long randomBits);
+
+  /**
+   * @return an alias table with the same result probabilities as this sampler (up to the alias
+   *         table's threshold rounding), for simulations that copy every player's table into flat
+   *         arrays, see {@link AliasHitSampler#copyTable(long[], int[], int)}.
+   */
+  public AliasHitSampler toAliasHitSampler();
+
+}
@@ -0,0 +1,50 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
+
+/**
+ * Determines which {@link HitSampler} implementation {@link HitGenerator} builds for each player.
+ */
+public enum HitSamplerStrategy {
+
+  /**
+   * Use a quantized table when it represents the player's stats exactly and fits in
+   * MAX_EXACT_TABLE_BITS, otherwise use an alias table. Sampling probabilities match the player's
+   * stats exactly with a quantized table and to within 2^-31 with an alias table.
+   */
+  AUTO {
+    @Override
+    public HitSampler getSampler(int[] outcomeCounts) {
+      int exactBits = QuantizedHitSampler.getExactTableBits(outcomeCounts, MAX_EXACT_TABLE_BITS);
+      if (exactBits >= 0) {
+        return new QuantizedHitSampler(outcomeCounts, exactBits);
+      }
+      return new AliasHitSampler(outcomeCounts);
+    }
+  },
+
+  /**
+   * Always use an alias table.
+   */
+  ALIAS {
+    @Override
+    public HitSampler getSampler(int[] outcomeCounts) {
+      return new AliasHitSampler(outcomeCounts);
+    }
+  },
+
+  /**
+   * Always use a fixed size quantized table. This is the cheapest sampler but probabilities may be
+   * off by up to 1/(2^QUANTIZED_TABLE_BITS).
+   */
+  QUANTIZED {
+    @Override
+    public HitSampler getSampler(int[] outcomeCounts) {
+      return new QuantizedHitSampler(outcomeCounts, QUANTIZED_TABLE_BITS);
+    }
+  };
+
+  private static final int MAX_EXACT_TABLE_BITS = 10;
+  private static final int QUANTIZED_TABLE_BITS = 10;
+
+  public abstract HitSampler getSampler(int[] outcomeCounts);
+
+}
@@ -0,0 +1,251 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
+
+import java.util.Arrays;
+
+/**
+ * For a fixed lineup, how an inning turns out only depends on which slot leads it off. This table
+ * holds, for every leadoff slot, the joint distribution of (runs scored in the inning, slot that
+ * leads off the next inning) so a game can be simulated with one draw per inning instead of one
+ * per plate appearance, see {@link MonteCarloGameSimulation#simulateGame(InningOutcomeTable, int,
+ * com.github.thbrown.softballsim.util.SplitMix64)}. Games simulated this way have the same score
+ * distribution as games simulated one plate appearance at a time.
+ *
+ * The distributions are calculated exactly, like
+ * {@link com.github.thbrown.softballsim.optimizer.impl.markovchain.MarkovChain} does, except the
+ * probability mass is tracked over (outs, base state, runs so far) so the number of runs is known
+ * when the inning ends. The same rules as {@link MonteCarloGameSimulation} apply, including the
+ * cap on runs per inning. Mass that is still in play once less than EPSILON remains is dropped.
+ *
+ * Each distribution is sampled with an alias table, so a draw costs the same no matter how many
+ * outcomes the inning has.
+ *
+ * This class is immutable so the same instance can be used from multiple threads.
+ */
+public class InningOutcomeTable {
+
+  private static final int OUTS_PER_INNING = 3;
+  private static final int MAX_RUNS_PER_INNING = 100;
+  private static final int STATES = OUTS_PER_INNING * BasesUtil.BASE_STATES;
+
+  // The inning ends once MAX_RUNS_PER_INNING is reached, the last hit can push it 3 past that
+  private static final int MAX_RUNS = MAX_RUNS_PER_INNING + 3;
+  private static final int MAX_RUNS_PER_HIT = 4;
+
+  /**
+   * Stop following an inning once less than this much probability mass is still in play.
+   */
+  private static final double EPSILON = 1e-12;
+
+  // Outcomes pack the next leadoff slot in the low bits and the runs scored above them
+  private static final int LEADOFF_BITS = 16;
+  private static final int LEADOFF_MASK = (1 << LEADOFF_BITS) - 1;
+
+  // Thresholds are compared against the low 31 bits of the random value, the column is picked with
+  // the high 32 bits
+  private static final int THRESHOLD_BITS = 31;
+  private static final long THRESHOLD_ONE = 1L << THRESHOLD_BITS;
+  private static final long THRESHOLD_MASK = THRESHOLD_ONE - 1;
+
+  private final long[][] thresholds;
+  private final int[][] primary;
+  private final int[][] alias;
+
+  /**
+   * @param battingOrder - player slots, as returned by {@link HitGenerator#getBattingOrder}
+   */
+  public InningOutcomeTable(int[] battingOrder, HitGenerator hitGenerator) {
+    int cycleLength = battingOrder.length;
+    if (cycleLength > LEADOFF_MASK) {
+      throw new IllegalArgumentException("Lineups longer than " + LEADOFF_MASK + " batters are not supported");
+    }
+
+    double[][] outcomeProbabilities = new double[hitGenerator.getPlayerCount()][];
+    for (int i = 0; i < outcomeProbabilities.length; i++) {
+      int[] counts = HitGenerator.getOutcomeCounts(hitGenerator.getPlayer(i));
+      double total = Arrays.stream(counts).sum();
+      outcomeProbabilities[i] = Arrays.stream(counts).mapToDouble(count -> count / total).toArray();
+    }
+
+    this.thresholds = new long[cycleLength][];
+    this.primary = new int[cycleLength][];
+    this.alias = new int[cycleLength][];
+    double[][] outcomes = new double[MAX_RUNS + 1][cycleLength];
+    double[] current = new double[(MAX_RUNS + 1) * STATES];
+    double[] next = new double[(MAX_RUNS + 1) * STATES];
+    for (int leadoff = 0; leadoff < cycleLength; leadoff++) {
+      for (double[] row : outcomes) {
+        Arrays.fill(row, 0);
+      }
+      getInningOutcomes(battingOrder, outcomeProbabilities, leadoff, outcomes, current, next);
+      buildAliasTable(leadoff, outcomes);
+    }
+  }
+
+  /**
+   * Follows a single inning started by the given slot.
+   *
+   * @param outcomes - output, filled with the probability of each [runs][next leadoff slot]
+   * @param current - scratch space of size (MAX_RUNS + 1) * STATES
+   * @param next - scratch space of size (MAX_RUNS + 1) * STATES
+   */
+  private static void getInningOutcomes(int[] battingOrder, double[][] outcomeProbabilities, int leadoff,
+      double[][] outcomes, double[] current, double[] next) {
+    int cycleLength = battingOrder.length;
+    Arrays.fill(current, 0);
+    current[BasesUtil.EMPTY_BASES] = 1; // No runs, no outs, nobody on
+
+    // Every inning reaches MAX_RUNS_PER_INNING or three outs after a bounded number of plate
+    // appearances, so this always ends even for lineups that never make an out
+    int maxRunsSoFar = 0;
+    double remaining = 1;
+    int slot = leadoff;
+    while (remaining > EPSILON) {
+      double[] probabilities = outcomeProbabilities[battingOrder[slot]];
+      slot = slot + 1 == cycleLength ? 0 : slot + 1;
+      Arrays.fill(next, 0, (Math.min(maxRunsSoFar + MAX_RUNS_PER_HIT, MAX_RUNS) + 1) * STATES, 0);
+      for (int runs = 0; runs <= maxRunsSoFar; runs++) {
+        for (int outs = 0; outs < OUTS_PER_INNING; outs++) {
+          for (int bases = 0; bases < BasesUtil.BASE_STATES; bases++) {
+            double mass = current[runs * STATES + outs * BasesUtil.BASE_STATES + bases];
+            if (mass == 0) {
+              continue;
+            }
+
+            // Out, the runners stay put
+            double outMass = mass * probabilities[0];
+            if (outs + 1 == OUTS_PER_INNING) {
+              outcomes[runs][slot] += outMass;
+            } else {
+              next[runs * STATES + (outs + 1) * BasesUtil.BASE_STATES + bases] += outMass;
+            }
+
+            // Hits
+            for (int numBases = 1; numBases < HitSampler.OUTCOME_COUNT; numBases++) {
+              double hitMass = mass * probabilities[numBases];
+              int transition = BasesUtil.getTransition(bases, numBases);
+              int newRuns = runs + BasesUtil.getRuns(transition);
+              if (newRuns >= MAX_RUNS_PER_INNING) {
+                outcomes[newRuns][slot] += hitMass;
+              } else {
+                next[newRuns * STATES + outs * BasesUtil.BASE_STATES + BasesUtil.getBases(transition)] += hitMass;
+              }
+            }
+          }
+        }
+      }
+      double[] temp = current;
+      current = next;
+      next = temp;
+      maxRunsSoFar = Math.min(maxRunsSoFar + MAX_RUNS_PER_HIT, MAX_RUNS_PER_INNING - 1);
+
+      remaining = 0;
+      for (int i = 0; i < (maxRunsSoFar + 1) * STATES; i++) {
+        remaining += current[i];
+      }
+    }
+  }
+
+  /**
+   * Builds the alias table (Vose's method) for the given leadoff slot from the non-zero outcomes.
+   */
+  private void buildAliasTable(int leadoff, double[][] outcomes) {
+    int size = 0;
+    double total = 0;
+    for (double[] row : outcomes) {
+      for (double probability : row) {
+        size += probability > 0 ? 1 : 0;
+        total += probability;
+      }
+    }
+    int[] packed = new int[size];
+    double[] weights = new double[size];
+    int index = 0;
+    for (int runs = 0; runs < outcomes.length; runs++) {
+      for (int nextLeadoff = 0; nextLeadoff < outcomes[runs].length; nextLeadoff++) {
+        if (outcomes[runs][nextLeadoff] > 0) {
+          packed[index] = runs << LEADOFF_BITS | nextLeadoff;
+          weights[index] = outcomes[runs][nextLeadoff] * size / total; // Renormalize the dropped mass
+          index++;
+        }
+      }
+    }
+
+    long[] columnThresholds = new long[size];
+    int[] columnPrimary = new int[size];
+    int[] columnAlias = new int[size];
+    int[] small = new int[size];
+    int[] large = new int[size];
+    int smallSize = 0;
+    int largeSize = 0;
+    for (int i = 0; i < size; i++) {
+      if (weights[i] < 1) {
+        small[smallSize++] = i;
+      } else {
+        large[largeSize++] = i;
+      }
+    }
+    while (smallSize > 0 && largeSize > 0) {
+      int less = small[--smallSize];
+      int more = large[--largeSize];
+      columnPrimary[less] = packed[less];
+      columnAlias[less] = packed[more];
+      columnThresholds[less] = (long) (weights[less] * THRESHOLD_ONE);
+
+      weights[more] = weights[more] - (1 - weights[less]);
+      if (weights[more] < 1) {
+        small[smallSize++] = more;
+      } else {
+        large[largeSize++] = more;
+      }
+    }
+
+    // Whatever is left over fills its column completely, any leftovers in small are rounding error
+    while (largeSize > 0) {
+      int column = large[--largeSize];
+      columnPrimary[column] = columnAlias[column] = packed[column];
+      columnThresholds[column] = THRESHOLD_ONE;
+    }
+    while (smallSize > 0) {
+      int column = small[--smallSize];
+      columnPrimary[column] = columnAlias[column] = packed[column];
+      columnThresholds[column] = THRESHOLD_ONE;
+    }
+
+    thresholds[leadoff] = columnThresholds;
+    primary[leadoff] = columnPrimary;
+    alias[leadoff] = columnAlias;
+  }
+
+  /**
+   * Draws how an inning started by the given slot turns out.
+   *
+   * @return the packed outcome, see {@link #getRuns(int)} and {@link #getNextLeadoff(int)}
+   */
+  public int sample(int leadoff, long randomBits) {
+    long[] columnThresholds = thresholds[leadoff];
+    int column = (int) (((randomBits >>> Integer.SIZE) * columnThresholds.length) >>> Integer.SIZE);
+    return (randomBits & THRESHOLD_MASK) < columnThresholds[column] ? primary[leadoff][column] : alias[leadoff][column];
+  }
+
+  /**
+   * @return the number of runs scored in the given outcome
+   */
+  public static int getRuns(int outcome) {
+    return outcome >>> LEADOFF_BITS;
+  }
+
+  /**
+   * @return the slot that leads off the inning after the given outcome
+   */
+  public static int getNextLeadoff(int outcome) {
+    return outcome & LEADOFF_MASK;
+  }
+
+  /**
+   * @return the number of distinct (runs, next leadoff) outcomes of an inning started by the slot
+   */
+  public int getOutcomeCount(int leadoff) {
+    return thresholds[leadoff].length;
+  }
+
+}
@@ -1,6 +1,8 @@
 package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
 
 import java.util.Map;
+import com.github.thbrown.softballsim.lineupindexer.LineupEquivalenceEnum;
+import com.github.thbrown.softballsim.util.SplitMix64;
 
 public class MonteCarloExhaustiveArgumentParser {
 
@@ -8,13 +10,27 @@ public class MonteCarloExhaustiveArgumentParser {
   public final static String INNINGS = "i";
   public final static String LOWEST_SCORE = "l";
   public final static String THREADS = "t";
+  public final static String WORK_STEALING = "w";
+  public final static String EQUIVALENCE = "e";
+  public final static String LEADOFF = "a";
+  public final static String COMMON_RANDOM_NUMBERS = "c";
+  public final static String SEED = "s";
+  public final static String BIT_SLICED = "b";
+  public final static String INNING_TABLE = "n";
 
   public final static String THREADS_DEFAULT_TOKEN = "$getLogicalCPUCores";
+  public final static String LEADOFF_DEFAULT_TOKEN = "$firstPlayer";
 
   private final long games;
   private final int innings;
   private final boolean lowestScore;
   private final int threads;
+  private final boolean workStealing;
+  private final LineupEquivalenceEnum equivalence;
+  private final String leadoffPlayerId;
+  private final boolean commonRandomNumbers;
+  private final long seed;
+  private final GameSimulationStrategy simulation;
 
   public MonteCarloExhaustiveArgumentParser(Map<String, String> args) {
     games = Long.parseLong(args.get(GAMES));
@@ -27,6 +43,22 @@ public class MonteCarloExhaustiveArgumentParser {
     } else {
       threads = Integer.parseInt(args.get(THREADS));
     }
+    workStealing = Boolean.parseBoolean(args.get(WORK_STEALING));
+    String equivalenceString = args.get(EQUIVALENCE);
+    equivalence =
+        equivalenceString == null ? LineupEquivalenceEnum.NONE : LineupEquivalenceEnum.valueOf(equivalenceString);
+    String leadoffString = args.get(LEADOFF);
+    leadoffPlayerId = leadoffString == null || leadoffString.equals(LEADOFF_DEFAULT_TOKEN) ? null : leadoffString;
+    commonRandomNumbers = Boolean.parseBoolean(args.get(COMMON_RANDOM_NUMBERS));
+
+    seed = SplitMix64.parseSeed(args.get(SEED));
+    if (Boolean.parseBoolean(args.get(INNING_TABLE))) {
+      simulation = GameSimulationStrategy.INNING_TABLE;
+    } else if (Boolean.parseBoolean(args.get(BIT_SLICED))) {
+      simulation = GameSimulationStrategy.BIT_SLICED;
+    } else {
+      simulation = GameSimulationStrategy.BATCHED;
+    }
   }
 
   public long getGames() {
@@ -45,4 +77,40 @@ public class MonteCarloExhaustiveArgumentParser {
     return threads;
   }
 
+  public boolean isWorkStealing() {
+    return workStealing;
+  }
+
+  public LineupEquivalenceEnum getEquivalence() {
+    return equivalence;
+  }
+
+  /**
+   * Id of the player that leads off every lineup when the equivalence is LEADOFF, or null for the
+   * first player
+   */
+  public String getLeadoffPlayerId() {
+    return leadoffPlayerId;
+  }
+
+  public boolean isCommonRandomNumbers() {
+    return commonRandomNumbers;
+  }
+
+  /**
+   * Seed for all the random numbers used by the optimizer. Runs with the same seed and arguments
+   * produce the same result.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * How independent games are simulated. The inning table takes precedence if both it and the bit
+   * sliced simulation are requested.
+   */
+  public GameSimulationStrategy getSimulation() {
+    return simulation;
+  }
+
 }
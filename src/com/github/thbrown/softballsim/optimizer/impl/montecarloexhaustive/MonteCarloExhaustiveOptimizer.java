@@ -10,6 +10,8 @@ import java.util.Queue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
 import com.github.thbrown.softballsim.Msg;
 import com.github.thbrown.softballsim.Result;
@@ -17,16 +19,23 @@ import com.github.thbrown.softballsim.data.gson.DataPlayer;
 import com.github.thbrown.softballsim.data.gson.DataStats;
 import com.github.thbrown.softballsim.datasource.ProgressTracker;
 import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupCursor;
 import com.github.thbrown.softballsim.lineupindexer.BattingLineupIndexer;
+import com.github.thbrown.softballsim.lineupindexer.LineupEquivalenceEnum;
 import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
 import com.github.thbrown.softballsim.optimizer.Optimizer;
 import com.github.thbrown.softballsim.optimizer.OptimizerEnum;
 import com.github.thbrown.softballsim.util.Logger;
+import com.github.thbrown.softballsim.util.SplitMix64;
 
 public class MonteCarloExhaustiveOptimizer implements Optimizer<MonteCarloExhaustiveResult> {
 
   private static int TASK_BUFFER_SIZE = 1000;
 
+  // Work stealing mode only
+  private static int LINEUPS_PER_BLOCK_PER_THREAD = 128;
+  private static int BLOCKS_IN_FLIGHT = 2;
+
   @Override
   public MonteCarloExhaustiveResult optimize(List<String> playersInLineup, LineupTypeEnum lineupType,
       DataStats battingData,
@@ -41,8 +50,12 @@ public class MonteCarloExhaustiveOptimizer implements Optimizer<MonteCarloExhaus
     // Get the arguments as their expected types
     MonteCarloExhaustiveArgumentParser parsedArguments = new MonteCarloExhaustiveArgumentParser(arguments);
 
-    // Since this optimizer involves iterating over all possible lineups, we'll use the lineup indexer
-    BattingLineupIndexer indexer = lineupType.getLineupIndexer(battingData, playersInLineup);
+    // Since this optimizer involves iterating over all possible lineups, we'll use the lineup indexer.
+    // If lineups are grouped, the indexer only contains one lineup from each class.
+    LineupEquivalenceEnum equivalence = parsedArguments.getEquivalence();
+    BattingLineupIndexer indexer = equivalence.getLineupIndexer(lineupType, battingData, playersInLineup,
+        parsedArguments.getLeadoffPlayerId());
+    int equivalenceClassSize = equivalence.getClassSize(playersInLineup);
 
     // Print the details before we start
     DecimalFormat formatter = new DecimalFormat("#,###");
@@ -51,12 +64,16 @@ public class MonteCarloExhaustiveOptimizer implements Optimizer<MonteCarloExhaus
     Logger.log("Games to simulate per lineup: \t" + parsedArguments.getGames());
     Logger.log("Innings per game: \t\t" + parsedArguments.getInnings());
     Logger.log("Threads used: \t\t\t" + parsedArguments.getThreads());
+    Logger.log("Work stealing: \t\t\t" + parsedArguments.isWorkStealing());
+    Logger.log("Lineup equivalence: \t\t" + equivalence + " (" + equivalenceClassSize + " per class)");
+    if (equivalence == LineupEquivalenceEnum.LEADOFF) {
+      Logger.log("Leadoff hitter: \t\t" + indexer.getLineup(0).asList().get(0).getName());
+    }
+    Logger.log("Common random numbers: \t\t" + parsedArguments.isCommonRandomNumbers());
+    Logger.log("Seed: \t\t\t\t" + parsedArguments.getSeed());
+    Logger.log("Game simulation: \t\t" + parsedArguments.getSimulation());
     Logger.log("*********************************************************************");
 
-    // Our optimizer is parallelizable so we want to take advantage of multiple cores
-    ExecutorService executor = Executors.newFixedThreadPool(parsedArguments.getThreads());
-    Queue<Future<TaskResult>> results = new LinkedList<>();
-
     /*
      * Build a hitGenerator that can be used across threads, this way we only have to parse the stats
      * data once. We're using the first lineup here (index 0) to get a list of players, but we could
@@ -66,13 +83,42 @@ public class MonteCarloExhaustiveOptimizer implements Optimizer<MonteCarloExhaus
     List<DataPlayer> someLineup = indexer.getLineup(STARTING_INDEX).asList();
     HitGenerator hitGenerator = new HitGenerator(someLineup);
 
+    // Each lineup's games are drawn from a stream keyed by its index, so the result only depends on
+    // the seed and not on the number of threads or the order lineups finish in
+    SplitMix64 random = new SplitMix64(parsedArguments.getSeed());
+
+    // With common random numbers every lineup plays the same set of games, so differences between
+    // lineup scores come from the lineups rather than from luck
+    CommonRandomNumbers commonRandomNumbers =
+        parsedArguments.isCommonRandomNumbers() ? new CommonRandomNumbers(parsedArguments.getSeed()) : null;
+
+    MonteCarloExhaustiveResult result;
+    if (parsedArguments.isWorkStealing()) {
+      result = optimizeWithWorkStealing(indexer, hitGenerator, random, commonRandomNumbers, parsedArguments,
+          battingData, progressTracker, existingResult, startTimestamp, equivalenceClassSize);
+    } else {
+      result = optimizeWithFutures(indexer, hitGenerator, random, commonRandomNumbers, parsedArguments, battingData,
+          progressTracker, existingResult, startTimestamp, equivalenceClassSize);
+    }
+    return result;
+  }
+
+  private MonteCarloExhaustiveResult optimizeWithFutures(BattingLineupIndexer indexer, HitGenerator hitGenerator,
+      SplitMix64 random, CommonRandomNumbers commonRandomNumbers, MonteCarloExhaustiveArgumentParser parsedArguments,
+      DataStats battingData, ProgressTracker progressTracker, MonteCarloExhaustiveResult existingResult,
+      long startTimestamp, int equivalenceClassSize) {
+    // Our optimizer is parallelizable so we want to take advantage of multiple cores
+    ExecutorService executor = Executors.newFixedThreadPool(parsedArguments.getThreads());
+    Queue<Future<TaskResult>> results = new LinkedList<>();
+
     // Queue up a few tasks to process (number of tasks is capped by TASK_BUFFER_SIZE)
     long startIndex = Optional.ofNullable(existingResult).map(v -> v.getCountCompleted()).orElse(0L);
-    long max = indexer.size() - startIndex > TASK_BUFFER_SIZE ? TASK_BUFFER_SIZE + startIndex : indexer.size();
-    for (long l = startIndex; l < max; l++) {
+    BattingLineupCursor lineupCursor = indexer.getCursor(startIndex, indexer.size()); // Lineups to be enqueued
+    for (int i = 0; i < TASK_BUFFER_SIZE && lineupCursor.next(); i++) {
       MonteCarloMultiGameSimulationTask task =
-          new MonteCarloMultiGameSimulationTask(indexer.getLineup(l), parsedArguments.getGames(),
-              parsedArguments.getInnings(), hitGenerator);
+          new MonteCarloMultiGameSimulationTask(lineupCursor.getLineupCopy(), parsedArguments.getGames(),
+              parsedArguments.getInnings(), hitGenerator, random.getStream(lineupCursor.getIndex()),
+              commonRandomNumbers, parsedArguments.getSimulation(), parsedArguments.getEquivalence());
       results.add(executor.submit(task));
     }
 
@@ -87,7 +133,6 @@ public class MonteCarloExhaustiveOptimizer implements Optimizer<MonteCarloExhaus
     Map<Long, Long> histo =
         Optional.ofNullable(existingResult).map(v -> v.getHistogram()).orElse(new HashMap<Long, Long>());
     long progressCounter = startIndex; // Lineups completed
-    long lineupQueueCounter = max; // Lineups ready to be enqueued
     while (!results.isEmpty()) {
       // Wait for the result
       TaskResult result = null;
@@ -126,16 +171,16 @@ public class MonteCarloExhaustiveOptimizer implements Optimizer<MonteCarloExhaus
       long elapsedTime = (System.currentTimeMillis() - startTimestamp)
           + Optional.ofNullable(existingResult).map(v -> v.getElapsedTimeMs()).orElse(0l);
       MonteCarloExhaustiveResult partialResult =
-          new MonteCarloExhaustiveResult(bestResult.getLineup(),
-              bestResult.getScore(), indexer.size(), progressCounter, elapsedTime, histo, worstScore);
+          new MonteCarloExhaustiveResult(bestResult.getLineup(), bestResult.getScore(), indexer.size(),
+              progressCounter, elapsedTime, histo, worstScore, equivalenceClassSize);
       progressTracker.updateProgress(partialResult);
 
       // Add another task to the buffer if there are any left
-      BattingLineup lineup = indexer.getLineup(lineupQueueCounter);
-      if (lineup != null) {
-        lineupQueueCounter++;
-        MonteCarloMultiGameSimulationTask s = new MonteCarloMultiGameSimulationTask(lineup, parsedArguments.getGames(),
-            parsedArguments.getInnings(), hitGenerator);
+      if (lineupCursor.next()) {
+        MonteCarloMultiGameSimulationTask s = new MonteCarloMultiGameSimulationTask(lineupCursor.getLineupCopy(),
+            parsedArguments.getGames(), parsedArguments.getInnings(), hitGenerator,
+            random.getStream(lineupCursor.getIndex()), commonRandomNumbers, parsedArguments.getSimulation(),
+            parsedArguments.getEquivalence());
         results.add(executor.submit(s));
 
         // Good for debugging
@@ -147,11 +192,80 @@ public class MonteCarloExhaustiveOptimizer implements Optimizer<MonteCarloExhaus
     long elapsedTime = (System.currentTimeMillis() - startTimestamp)
         + Optional.ofNullable(existingResult).map(v -> v.getElapsedTimeMs()).orElse(0l);
     MonteCarloExhaustiveResult finalResult =
-        new MonteCarloExhaustiveResult(bestResult.getLineup(),
-            bestResult.getScore(), indexer.size(), progressCounter, elapsedTime, histo, worstScore);
+        new MonteCarloExhaustiveResult(bestResult.getLineup(), bestResult.getScore(), indexer.size(),
+            progressCounter, elapsedTime, histo, worstScore, equivalenceClassSize);
     return finalResult;
   }
 
+  /**
+   * Splits the remaining lineup indexes into blocks and simulates each block on a ForkJoinPool. Each
+   * block is recursively split into ranges so idle threads can steal work, and every range keeps its
+   * own best/worst/histogram that is merged as the range tasks join. Only whole blocks are merged
+   * here, in index order, so the completed count is always a prefix of the index space and a paused
+   * optimization can resume from it. The next block is queued before waiting on the current one so
+   * the pool doesn't go idle between blocks.
+   */
+  private MonteCarloExhaustiveResult optimizeWithWorkStealing(BattingLineupIndexer indexer,
+      HitGenerator hitGenerator, SplitMix64 random, CommonRandomNumbers commonRandomNumbers,
+      MonteCarloExhaustiveArgumentParser parsedArguments, DataStats battingData, ProgressTracker progressTracker,
+      MonteCarloExhaustiveResult existingResult, long startTimestamp, int equivalenceClassSize) {
+    ForkJoinPool pool = new ForkJoinPool(parsedArguments.getThreads());
+    Queue<ForkJoinTask<ExhaustiveAccumulator>> blocks = new LinkedList<>();
+    long blockSize = (long) LINEUPS_PER_BLOCK_PER_THREAD * parsedArguments.getThreads();
+
+    // Seed the accumulator with the previous run's result, if there was one
+    ExhaustiveAccumulator total = new ExhaustiveAccumulator();
+    if (existingResult != null) {
+      BattingLineup initialLineup = existingResult.getLineup();
+      initialLineup.populateStats(battingData);
+      total = new ExhaustiveAccumulator(new TaskResult(existingResult.getLineupScore(), initialLineup),
+          existingResult.getWorstScore(), existingResult.getHistogram(), existingResult.getCountCompleted());
+    }
+
+    // Queue up a few blocks to process
+    long lineupQueueCounter = total.getCount(); // Lineups ready to be enqueued
+    while (blocks.size() < BLOCKS_IN_FLIGHT && lineupQueueCounter < indexer.size()) {
+      long endIndex = Math.min(lineupQueueCounter + blockSize, indexer.size());
+      blocks.add(pool.submit(new MonteCarloExhaustiveRangeTask(indexer, lineupQueueCounter, endIndex,
+          parsedArguments.getGames(), parsedArguments.getInnings(), hitGenerator, random, commonRandomNumbers,
+          parsedArguments.getSimulation(), parsedArguments.getEquivalence())));
+      lineupQueueCounter = endIndex;
+    }
+
+    while (!blocks.isEmpty()) {
+      // Wait for the oldest block and merge it
+      try {
+        total.merge(blocks.poll().get());
+      } catch (InterruptedException | ExecutionException e) {
+        throw new RuntimeException(e);
+      }
+
+      // Add another block if there are any lineups left
+      if (lineupQueueCounter < indexer.size()) {
+        long endIndex = Math.min(lineupQueueCounter + blockSize, indexer.size());
+        blocks.add(pool.submit(new MonteCarloExhaustiveRangeTask(indexer, lineupQueueCounter, endIndex,
+            parsedArguments.getGames(), parsedArguments.getInnings(), hitGenerator, random, commonRandomNumbers,
+            parsedArguments.getSimulation(), parsedArguments.getEquivalence())));
+        lineupQueueCounter = endIndex;
+      }
+
+      // Update the progress tracker
+      long elapsedTime = (System.currentTimeMillis() - startTimestamp)
+          + Optional.ofNullable(existingResult).map(v -> v.getElapsedTimeMs()).orElse(0l);
+      MonteCarloExhaustiveResult partialResult = new MonteCarloExhaustiveResult(total.getBestResult().getLineup(),
+          total.getBestResult().getScore(), indexer.size(), total.getCount(), elapsedTime, total.getHistogram(),
+          total.getWorstScore(), equivalenceClassSize);
+      progressTracker.updateProgress(partialResult);
+    }
+    pool.shutdown();
+
+    long elapsedTime = (System.currentTimeMillis() - startTimestamp)
+        + Optional.ofNullable(existingResult).map(v -> v.getElapsedTimeMs()).orElse(0l);
+    return new MonteCarloExhaustiveResult(total.getBestResult().getLineup(), total.getBestResult().getScore(),
+        indexer.size(), total.getCount(), elapsedTime, total.getHistogram(), total.getWorstScore(),
+        equivalenceClassSize);
+  }
+
   private void validateData(DataStats data, List<String> playersInLineup) {
     // All players in the lineup must have at least one plate appearance
     for (String playerId : playersInLineup) {
@@ -0,0 +1,93 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
+
+import java.util.concurrent.RecursiveTask;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupCursor;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupIndexer;
+import com.github.thbrown.softballsim.lineupindexer.LineupEquivalenceEnum;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+/**
+ * Simulates games for every lineup in a contiguous range of lineup indexes. Large ranges are split
+ * in half and forked so idle threads in the ForkJoinPool can steal the other half.
+ */
+public class MonteCarloExhaustiveRangeTask extends RecursiveTask<ExhaustiveAccumulator> {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Ranges at or below this size are simulated directly instead of being split.
+   */
+  private static final long LINEUPS_PER_LEAF = 8;
+
+  private final BattingLineupIndexer indexer;
+  private final long startIndex;
+  private final long endIndex;
+  private final long numberOfGamesToSimulate;
+  private final int inningsPerGame;
+  private final HitGenerator hitGenerator;
+  private final SplitMix64 random;
+  private final CommonRandomNumbers commonRandomNumbers;
+  private final GameSimulationStrategy simulation;
+  private final LineupEquivalenceEnum equivalence;
+
+  /**
+   * @param startIndex - first lineup index to simulate (inclusive)
+   * @param endIndex - last lineup index to simulate (exclusive)
+   * @param random - root generator, each lineup's games are drawn from the stream keyed by the
+   *        lineup's index. This is never advanced so it can be shared between tasks.
+   * @param commonRandomNumbers - random numbers shared by every lineup's games, or null for
+   *        independent games
+   * @param simulation - how independent games are simulated
+   * @param equivalence - each indexed lineup is scored as the best lineup in its class
+   */
+  public MonteCarloExhaustiveRangeTask(BattingLineupIndexer indexer, long startIndex, long endIndex,
+      long numberOfGamesToSimulate, int inningsPerGame, HitGenerator hitGenerator, SplitMix64 random,
+      CommonRandomNumbers commonRandomNumbers, GameSimulationStrategy simulation,
+      LineupEquivalenceEnum equivalence) {
+    this.indexer = indexer;
+    this.startIndex = startIndex;
+    this.endIndex = endIndex;
+    this.numberOfGamesToSimulate = numberOfGamesToSimulate;
+    this.inningsPerGame = inningsPerGame;
+    this.hitGenerator = hitGenerator;
+    this.random = random;
+    this.commonRandomNumbers = commonRandomNumbers;
+    this.simulation = simulation;
+    this.equivalence = equivalence;
+  }
+
+  @Override
+  protected ExhaustiveAccumulator compute() {
+    if (endIndex - startIndex <= LINEUPS_PER_LEAF) {
+      ExhaustiveAccumulator accumulator = new ExhaustiveAccumulator();
+      BattingLineupCursor cursor = indexer.getCursor(startIndex, endIndex);
+      int[] plateAppearances = commonRandomNumbers == null ? null : new int[hitGenerator.getPlayerCount()];
+      while (cursor.next()) {
+        TaskResult result = MonteCarloMultiGameSimulationTask.simulateClass(cursor.getLineup(), equivalence,
+            numberOfGamesToSimulate, inningsPerGame, hitGenerator, random.getStream(cursor.getIndex()),
+            commonRandomNumbers, simulation, plateAppearances);
+
+        // The cursor reuses its lineup, so only copy it if it's the new best
+        if (result.getLineup() == cursor.getLineup()) {
+          accumulator.accept(result.getScore(), cursor);
+        } else {
+          accumulator.accept(result.getScore(), result.getLineup());
+        }
+      }
+      return accumulator;
+    }
+
+    long middleIndex = startIndex + (endIndex - startIndex) / 2;
+    MonteCarloExhaustiveRangeTask left = new MonteCarloExhaustiveRangeTask(indexer, startIndex, middleIndex,
+        numberOfGamesToSimulate, inningsPerGame, hitGenerator, random, commonRandomNumbers,
+        simulation, equivalence);
+    MonteCarloExhaustiveRangeTask right = new MonteCarloExhaustiveRangeTask(indexer, middleIndex, endIndex,
+        numberOfGamesToSimulate, inningsPerGame, hitGenerator, random, commonRandomNumbers,
+        simulation, equivalence);
+    right.fork();
+    ExhaustiveAccumulator accumulator = left.compute();
+    accumulator.merge(right.join());
+    return accumulator;
+  }
+
+}
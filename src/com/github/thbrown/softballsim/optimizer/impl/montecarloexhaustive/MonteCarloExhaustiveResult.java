@@ -9,19 +9,32 @@ public class MonteCarloExhaustiveResult extends Result {
 
   private final Map<Long, Long> histogram;
   private double worstScore;
+  private final int equivalenceClassSize;
 
   public MonteCarloExhaustiveResult(BattingLineup lineup, double lineupScore, long countTotal, long countCompleted,
       long elapsedTimeMs, Map<Long, Long> histogram, double worstScore) {
+    this(lineup, lineupScore, countTotal, countCompleted, elapsedTimeMs, histogram, worstScore, 1);
+  }
+
+  public MonteCarloExhaustiveResult(BattingLineup lineup, double lineupScore, long countTotal, long countCompleted,
+      long elapsedTimeMs, Map<Long, Long> histogram, double worstScore, int equivalenceClassSize) {
     this(OptimizerEnum.MONTE_CARLO_EXHAUSTIVE, lineup, lineupScore, countTotal, countCompleted, elapsedTimeMs,
-        histogram, worstScore);
+        histogram, worstScore, equivalenceClassSize);
   }
 
   protected MonteCarloExhaustiveResult(OptimizerEnum optimizerEnum, BattingLineup lineup, double lineupScore,
       long countTotal, long countCompleted,
       long elapsedTimeMs, Map<Long, Long> histogram, double worstScore) {
+    this(optimizerEnum, lineup, lineupScore, countTotal, countCompleted, elapsedTimeMs, histogram, worstScore, 1);
+  }
+
+  protected MonteCarloExhaustiveResult(OptimizerEnum optimizerEnum, BattingLineup lineup, double lineupScore,
+      long countTotal, long countCompleted, long elapsedTimeMs, Map<Long, Long> histogram, double worstScore,
+      int equivalenceClassSize) {
     super(optimizerEnum, lineup, lineupScore, countTotal, countCompleted, elapsedTimeMs);
     this.histogram = histogram;
     this.worstScore = worstScore;
+    this.equivalenceClassSize = equivalenceClassSize;
   }
 
   public Map<Long, Long> getHistogram() {
@@ -31,4 +44,22 @@ public class MonteCarloExhaustiveResult extends Result {
   public double getWorstScore() {
     return worstScore;
   }
+
+  /**
+   * Number of lineups in each class that was counted. This is greater than one when lineups were
+   * grouped (see {@link com.github.thbrown.softballsim.lineupindexer.LineupEquivalenceEnum}), every
+   * lineup in a class is simulated and the class is counted once with its best lineup's score.
+   */
+  public int getEquivalenceClassSize() {
+    // Results saved before this field existed deserialize to 0
+    return Math.max(equivalenceClassSize, 1);
+  }
+
+  @Override
+  public String getHumanReadableDetails() {
+    if (getEquivalenceClassSize() > 1) {
+      return "Lineups per equivalence class: " + getEquivalenceClassSize() + " (scored as the best of them)";
+    }
+    return "";
+  }
 }
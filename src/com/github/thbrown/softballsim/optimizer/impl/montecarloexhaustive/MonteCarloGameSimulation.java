@@ -1,9 +1,10 @@
 package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
 
-import com.github.thbrown.softballsim.data.gson.DataPlayer;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 import com.github.thbrown.softballsim.lineup.BattingLineup;
-import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BasesUtil.BasesState;
 import com.github.thbrown.softballsim.util.Logger;
+import com.github.thbrown.softballsim.util.SplitMix64;
 import com.github.thbrown.softballsim.util.StringUtils;
 
 /**
@@ -17,10 +18,105 @@ public class MonteCarloGameSimulation {
 
   private static final int MAX_RUNS_PER_INNING = 100;
 
+  /**
+   * Convenience wrapper that resolves the lineup on every call. Callers that simulate the same lineup
+   * many times should resolve it once with {@link HitGenerator#getBattingOrder(BattingLineup)} and use
+   * {@link #simulateGame(int[], int, HitGenerator)} instead.
+   */
   public static double simulateGame(BattingLineup lineup, int inningsPerGame, HitGenerator hitGenerator) {
+    return simulateGame(hitGenerator.getBattingOrder(lineup), inningsPerGame, hitGenerator);
+  }
+
+  /**
+   * Simulates one game for a lineup that has already been resolved into hitGenerator player slots.
+   * The loop only touches primitives and arrays.
+   */
+  public static double simulateGame(int[] battingOrder, int inningsPerGame, HitGenerator hitGenerator) {
+    return simulateGame(battingOrder, inningsPerGame, hitGenerator, (SplitMix64) null);
+  }
+
+  /**
+   * Simulates one game drawing every plate appearance from the given generator, so the game can be
+   * reproduced by seeding the generator the same way. If random is null, the game draws from a
+   * generator seeded from ThreadLocalRandom.
+   */
+  public static double simulateGame(int[] battingOrder, int inningsPerGame, HitGenerator hitGenerator,
+      SplitMix64 random) {
+    if (random == null) {
+      // Seed once per game so the plate appearance loop only ever draws from one kind of generator
+      random = new SplitMix64(ThreadLocalRandom.current().nextLong());
+    }
+
+    // Game
+    int bases = BasesUtil.EMPTY_BASES;
+    int gameScore = 0;
+    int batterIndex = 0;
+    for (int inning = 0; inningsPerGame > inning; inning++) {
+
+      // Inning
+      int outs = 0;
+      int runsThisInning = 0;
+      while (outs < 3 && runsThisInning < MAX_RUNS_PER_INNING) {
+        int playerIndex = battingOrder[batterIndex];
+        batterIndex++;
+        if (batterIndex == battingOrder.length) {
+          batterIndex = 0;
+        }
+        int numBases = hitGenerator.hit(playerIndex, random.nextLong());
+        if (numBases > 0) {
+          int transition = BasesUtil.getTransition(bases, numBases);
+          bases = BasesUtil.getBases(transition);
+          runsThisInning += BasesUtil.getRuns(transition);
+        } else {
+          outs++;
+        }
+
+        if (VERBOSE) {
+          logPlateAppearance(hitGenerator, playerIndex, numBases, outs, gameScore + runsThisInning);
+        }
+      }
+      gameScore += runsThisInning;
+      if (VERBOSE) {
+        Logger.log("--------------");
+      }
+      bases = BasesUtil.EMPTY_BASES;
+    }
+    if (VERBOSE) {
+      logGameScore(gameScore);
+    }
+    return gameScore;
+  }
+
+  /**
+   * Simulates one game drawing every plate appearance from common random numbers. Calling this again
+   * with the same game number replays the same outcomes for each player. If commonRandomNumbers is
+   * null, plate appearances are independent random draws and the game number is ignored.
+   * 
+   * This allocates a scratch array for every game, callers that simulate many games should use
+   * {@link #simulateGame(int[], int, HitGenerator, CommonRandomNumbers, long, int[])} instead.
+   */
+  public static double simulateGame(int[] battingOrder, int inningsPerGame, HitGenerator hitGenerator,
+      CommonRandomNumbers commonRandomNumbers, long game) {
+    if (commonRandomNumbers == null) {
+      return simulateGame(battingOrder, inningsPerGame, hitGenerator, (SplitMix64) null);
+    }
+    return simulateGame(battingOrder, inningsPerGame, hitGenerator, commonRandomNumbers, game,
+        new int[hitGenerator.getPlayerCount()]);
+  }
+
+  /**
+   * Same as {@link #simulateGame(int[], int, HitGenerator, CommonRandomNumbers, long)}, but counts
+   * each player's plate appearances in the given scratch array instead of allocating one.
+   * 
+   * @param plateAppearances - scratch space with at least {@link HitGenerator#getPlayerCount()}
+   *        elements, it's overwritten. Don't share it between threads.
+   */
+  public static double simulateGame(int[] battingOrder, int inningsPerGame, HitGenerator hitGenerator,
+      CommonRandomNumbers commonRandomNumbers, long game, int[] plateAppearances) {
+    Arrays.fill(plateAppearances, 0, hitGenerator.getPlayerCount(), 0);
 
     // Game
-    BasesState bases = new BasesState();
+    int bases = BasesUtil.EMPTY_BASES;
     int gameScore = 0;
     int batterIndex = 0;
     for (int inning = 0; inningsPerGame > inning; inning++) {
@@ -29,41 +125,67 @@ public class MonteCarloGameSimulation {
       int outs = 0;
       int runsThisInning = 0;
       while (outs < 3 && runsThisInning < MAX_RUNS_PER_INNING) {
-        DataPlayer p = lineup.getBatter(batterIndex);
+        int playerIndex = battingOrder[batterIndex];
         batterIndex++;
-        int numBases = hitGenerator.hit(p.getId());
+        if (batterIndex == battingOrder.length) {
+          batterIndex = 0;
+        }
+        long randomBits = commonRandomNumbers.getRandomBits(game, playerIndex, plateAppearances[playerIndex]++);
+        int numBases = hitGenerator.hit(playerIndex, randomBits);
         if (numBases > 0) {
-          runsThisInning += BasesUtil.updateRunsAndBasesAfterHit(numBases, bases);
+          int transition = BasesUtil.getTransition(bases, numBases);
+          bases = BasesUtil.getBases(transition);
+          runsThisInning += BasesUtil.getRuns(transition);
         } else {
           outs++;
         }
 
         if (VERBOSE) {
-          String message =
-              StringUtils.padRight(p.getName(), NAME_PADDING) +
-                  "\t hit:" + mapBasesToHitType(numBases) +
-                  "\t outs:" + outs +
-                  "\t score:" + (gameScore + runsThisInning);
-          Logger.log(message);
+          logPlateAppearance(hitGenerator, playerIndex, numBases, outs, gameScore + runsThisInning);
         }
       }
       gameScore += runsThisInning;
       if (VERBOSE) {
         Logger.log("--------------");
       }
-      clearBases(bases);
+      bases = BasesUtil.EMPTY_BASES;
     }
     if (VERBOSE) {
-      Logger.log("Runs Scored: " + gameScore);
-      Logger.log("=============================================================");
+      logGameScore(gameScore);
     }
     return gameScore;
   }
 
-  private static void clearBases(BasesState bases) {
-    bases.first = false;
-    bases.second = false;
-    bases.third = false;
+  /**
+   * Simulates one game with one draw per inning from the lineup's precomputed inning outcomes. The
+   * game's score has the same distribution as a game simulated one plate appearance at a time. If
+   * random is null, draws come from ThreadLocalRandom.
+   */
+  public static double simulateGame(InningOutcomeTable inningOutcomes, int inningsPerGame, SplitMix64 random) {
+    int gameScore = 0;
+    int leadoff = 0;
+    for (int inning = 0; inning < inningsPerGame; inning++) {
+      long randomBits = random == null ? ThreadLocalRandom.current().nextLong() : random.nextLong();
+      int outcome = inningOutcomes.sample(leadoff, randomBits);
+      gameScore += InningOutcomeTable.getRuns(outcome);
+      leadoff = InningOutcomeTable.getNextLeadoff(outcome);
+    }
+    return gameScore;
+  }
+
+  private static void logPlateAppearance(HitGenerator hitGenerator, int playerIndex, int numBases, int outs,
+      int score) {
+    String message =
+        StringUtils.padRight(hitGenerator.getPlayer(playerIndex).getName(), NAME_PADDING) +
+            "\t hit:" + mapBasesToHitType(numBases) +
+            "\t outs:" + outs +
+            "\t score:" + score;
+    Logger.log(message);
+  }
+
+  private static void logGameScore(int gameScore) {
+    Logger.log("Runs Scored: " + gameScore);
+    Logger.log("=============================================================");
   }
 
   private static String mapBasesToHitType(int bases) {
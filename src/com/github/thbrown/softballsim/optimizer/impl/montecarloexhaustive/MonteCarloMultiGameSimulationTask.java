@@ -2,7 +2,9 @@ package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
 
 import java.util.concurrent.Callable;
 import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.lineupindexer.LineupEquivalenceEnum;
 import com.github.thbrown.softballsim.util.Logger;
+import com.github.thbrown.softballsim.util.SplitMix64;
 
 /**
  * Wraps the MonteCarloGameSimulation in a Callable so it can be run in a separate thread. Also
@@ -15,9 +17,28 @@ public class MonteCarloMultiGameSimulationTask implements Callable<TaskResult> {
   private int inningsPerGame;
 
   private HitGenerator hitGenerator;
+  private SplitMix64 random;
+  private CommonRandomNumbers commonRandomNumbers;
+  private GameSimulationStrategy simulation;
+  private LineupEquivalenceEnum equivalence;
 
   public MonteCarloMultiGameSimulationTask(BattingLineup lineup, long numberOfGamesToSimulate, int inningsPerGame,
       HitGenerator hitGenerator) {
+    this(lineup, numberOfGamesToSimulate, inningsPerGame, hitGenerator, null, null, GameSimulationStrategy.BATCHED,
+        LineupEquivalenceEnum.NONE);
+  }
+
+  /**
+   * @param random - stream this lineup's games are drawn from, or null to use ThreadLocalRandom.
+   * @param commonRandomNumbers - if not null, game i of every lineup is simulated with the same random
+   *        numbers (see {@link CommonRandomNumbers}) and random is ignored.
+   * @param simulation - how independent games are simulated, ignored when commonRandomNumbers is set
+   * @param equivalence - every lineup in the given lineup's class is simulated and the best one is
+   *        returned
+   */
+  public MonteCarloMultiGameSimulationTask(BattingLineup lineup, long numberOfGamesToSimulate, int inningsPerGame,
+      HitGenerator hitGenerator, SplitMix64 random, CommonRandomNumbers commonRandomNumbers,
+      GameSimulationStrategy simulation, LineupEquivalenceEnum equivalence) {
     if (lineup == null) {
       Logger.log("NULL LINEUP");
     }
@@ -25,6 +46,10 @@ public class MonteCarloMultiGameSimulationTask implements Callable<TaskResult> {
     this.numberOfGamesToSimulate = numberOfGamesToSimulate;
     this.inningsPerGame = inningsPerGame;
     this.hitGenerator = hitGenerator;
+    this.random = random;
+    this.commonRandomNumbers = commonRandomNumbers;
+    this.simulation = simulation;
+    this.equivalence = equivalence;
   }
 
   public TaskResult call() {
@@ -32,17 +57,42 @@ public class MonteCarloMultiGameSimulationTask implements Callable<TaskResult> {
   }
 
   public TaskResult run() {
-    // Simulate *numberOfGamesToSimulate* games, average the runs scored, return the result of the
-    // simulation
-    double totalScore = 0;
-    for (int i = 0; i < numberOfGamesToSimulate; i++) {
-      double gameScore = MonteCarloGameSimulation.simulateGame(lineup, inningsPerGame, hitGenerator);
-      totalScore += gameScore;
-    }
-    double meanScore = totalScore / numberOfGamesToSimulate;
+    int[] plateAppearances = commonRandomNumbers == null ? null : new int[hitGenerator.getPlayerCount()];
+    return simulateClass(lineup, equivalence, numberOfGamesToSimulate, inningsPerGame, hitGenerator, random,
+        commonRandomNumbers, simulation, plateAppearances);
+  }
 
-    TaskResult result = new TaskResult(meanScore, lineup);
-    return result;
+  /**
+   * Simulates *games* games for every lineup in the given lineup's class and averages the runs
+   * scored. Every lineup in the class plays the same games, random is copied for each of them, so
+   * the lineups are compared on equal terms.
+   *
+   * @param plateAppearances - scratch space for common random numbers, may be null if they're not used
+   * @return the best lineup in the class and its mean score. A class of one gives back the same
+   *         lineup instance it was passed.
+   */
+  static TaskResult simulateClass(BattingLineup lineup, LineupEquivalenceEnum equivalence, long games,
+      int inningsPerGame, HitGenerator hitGenerator, SplitMix64 random, CommonRandomNumbers commonRandomNumbers,
+      GameSimulationStrategy simulation, int[] plateAppearances) {
+    TaskResult best = null;
+    for (BattingLineup candidate : equivalence.getEquivalentLineups(lineup)) {
+      int[] battingOrder = hitGenerator.getBattingOrder(candidate);
+      double totalScore = 0;
+      if (commonRandomNumbers != null) {
+        for (int i = 0; i < games; i++) {
+          totalScore += MonteCarloGameSimulation.simulateGame(battingOrder, inningsPerGame, hitGenerator,
+              commonRandomNumbers, i, plateAppearances);
+        }
+      } else {
+        SplitMix64 candidateRandom = random == null ? null : random.copy();
+        totalScore = simulation.simulateGames(battingOrder, inningsPerGame, hitGenerator, games, candidateRandom);
+      }
+      double meanScore = totalScore / games;
+      if (best == null || meanScore > best.getScore()) {
+        best = new TaskResult(meanScore, candidate);
+      }
+    }
+    return best;
   }
 
 }
@@ -0,0 +1,132 @@
+package com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive;
+
+/**
+ * Samples plate appearance results from a lookup table whose length is a power of two, so a sample
+ * is a single masked array read.
+ * 
+ * Each result gets a share of the table proportional to how often the player got that result. When
+ * the player's plate appearance count doesn't divide the table size, shares are rounded (largest
+ * remainder first) and the sampled probabilities are off by at most 1/tableSize. Results the player
+ * has actually gotten always keep at least one entry.
+ */
+public class QuantizedHitSampler implements HitSampler {
+
+  private final byte[] table;
+  private final int mask;
+
+  /**
+   * @param outcomeCounts - Number of times the player got each result, indexed by number of bases.
+   * @param tableBits - log2 of the table size.
+   */
+  public QuantizedHitSampler(int[] outcomeCounts, int tableBits) {
+    int size = 1 << tableBits;
+    long total = 0;
+    int nonZeroOutcomes = 0;
+    for (int count : outcomeCounts) {
+      total += count;
+      nonZeroOutcomes += count > 0 ? 1 : 0;
+    }
+    if (total <= 0) {
+      throw new IllegalArgumentException("Can't sample from a player with no plate appearances");
+    }
+    if (nonZeroOutcomes > size) {
+      throw new IllegalArgumentException("Table of size " + size + " is too small for " + nonZeroOutcomes + " results");
+    }
+
+    // Floor of each outcome's exact share, then hand out the remaining entries by largest remainder
+    int[] entries = new int[outcomeCounts.length];
+    long[] remainders = new long[outcomeCounts.length];
+    int assigned = 0;
+    for (int i = 0; i < outcomeCounts.length; i++) {
+      long scaled = outcomeCounts[i] * (long) size;
+      entries[i] = (int) (scaled / total);
+      remainders[i] = scaled % total;
+      if (outcomeCounts[i] > 0 && entries[i] == 0) {
+        entries[i] = 1;
+        remainders[i] = 0;
+      }
+      assigned += entries[i];
+    }
+    while (assigned < size) {
+      int best = 0;
+      for (int i = 1; i < remainders.length; i++) {
+        if (remainders[i] > remainders[best]) {
+          best = i;
+        }
+      }
+      entries[best]++;
+      remainders[best] = -1;
+      assigned++;
+    }
+    while (assigned > size) {
+      // Rare results were bumped up to one entry, take the surplus back from the most common result
+      int most = 0;
+      for (int i = 1; i < entries.length; i++) {
+        if (entries[i] > entries[most]) {
+          most = i;
+        }
+      }
+      entries[most]--;
+      assigned--;
+    }
+
+    this.table = new byte[size];
+    this.mask = size - 1;
+    int position = 0;
+    for (int i = 0; i < entries.length; i++) {
+      for (int j = 0; j < entries[i]; j++) {
+        table[position++] = (byte) i;
+      }
+    }
+  }
+
+  /**
+   * @return log2 of the smallest power of two table that represents these counts exactly, or -1 if
+   *         that table would need more than 2^maxTableBits entries.
+   */
+  public static int getExactTableBits(int[] outcomeCounts, int maxTableBits) {
+    long total = 0;
+    long divisor = 0;
+    for (int count : outcomeCounts) {
+      total += count;
+      divisor = gcd(divisor, count);
+    }
+    if (total <= 0) {
+      return -1;
+    }
+    long reducedTotal = total / divisor;
+    if (Long.bitCount(reducedTotal) != 1) {
+      return -1;
+    }
+    int bits = Long.numberOfTrailingZeros(reducedTotal);
+    return bits <= maxTableBits ? bits : -1;
+  }
+
+  private static long gcd(long a, long b) {
+    while (b != 0) {
+      long temp = b;
+      b = a % b;
+      a = temp;
+    }
+    return a;
+  }
+
+  /**
+   * Builds the alias table from the entries in this table rather than the player's counts, so it has
+   * this table's rounding too. The table size is a power of two, so the alias thresholds are exact.
+   */
+  @Override
+  public AliasHitSampler toAliasHitSampler() {
+    int[] entries = new int[OUTCOME_COUNT];
+    for (byte result : table) {
+      entries[result]++;
+    }
+    return new AliasHitSampler(entries);
+  }
+
+  @Override
+  public int sample(long randomBits) {
+    return table[(int) randomBits & mask];
+  }
+
+}
@@ -0,0 +1,78 @@
+package com.github.thbrown.softballsim.optimizer.impl.successivehalving;
+
+import java.util.Map;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+public class SuccessiveHalvingArgumentParser {
+
+  public final static String ALPHA = "a";
+  public final static String GAMES = "g";
+  public final static String INNINGS = "i";
+  public final static String MAX_LINEUPS = "m";
+  public final static String SEED = "s";
+  public final static String THREADS = "t";
+
+  public final static String THREADS_DEFAULT_TOKEN = "$getLogicalCPUCores";
+
+  private final double alpha;
+  private final int games;
+  private final int innings;
+  private final int maxLineups;
+  private final long seed;
+  private final int threads;
+
+  public SuccessiveHalvingArgumentParser(Map<String, String> args) {
+    alpha = Double.parseDouble(args.get(ALPHA));
+    games = Integer.parseInt(args.get(GAMES));
+    innings = Integer.parseInt(args.get(INNINGS));
+    maxLineups = Integer.parseInt(args.get(MAX_LINEUPS));
+
+    if (games < 2) {
+      throw new IllegalArgumentException("Each lineup needs at least 2 games in the first round, got " + games);
+    }
+
+    String threadsString = args.get(THREADS);
+    if (threadsString.equals(THREADS_DEFAULT_TOKEN)) {
+      threads = Runtime.getRuntime().availableProcessors();
+    } else {
+      threads = Integer.parseInt(args.get(THREADS));
+    }
+
+    seed = SplitMix64.parseSeed(args.get(SEED));
+  }
+
+  public double getAlpha() {
+    return alpha;
+  }
+
+  /**
+   * Number of games each lineup plays in the first round.
+   */
+  public int getGames() {
+    return games;
+  }
+
+  public int getInnings() {
+    return innings;
+  }
+
+  /**
+   * If there are more possible lineups than this, the optimizer starts from a random sample of this
+   * many.
+   */
+  public int getMaxLineups() {
+    return maxLineups;
+  }
+
+  /**
+   * Seed for all the random numbers used by the optimizer. Runs with the same seed and arguments
+   * produce the same result.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+}
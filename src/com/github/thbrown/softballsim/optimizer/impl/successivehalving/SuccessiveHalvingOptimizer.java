@@ -0,0 +1,300 @@
+package com.github.thbrown.softballsim.optimizer.impl.successivehalving;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
+import com.github.thbrown.softballsim.Msg;
+import com.github.thbrown.softballsim.Result;
+import com.github.thbrown.softballsim.data.gson.DataPlayer;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.datasource.ProgressTracker;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupIndexer;
+import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
+import com.github.thbrown.softballsim.optimizer.Optimizer;
+import com.github.thbrown.softballsim.optimizer.impl.FinalScore;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.TTestTask;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.util.Logger;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+/**
+ * Races all the lineups against each other in rounds. Every surviving lineup plays the same number
+ * of games each round, then the bottom half is dropped along with any lineup that is significantly
+ * worse than the leader, and the survivors' games are doubled for the next round. Halving stops at
+ * FINALISTS lineups, after that only the significance test drops lineups. This stops once one
+ * lineup is left, or once the survivors have played so many games that whatever is left is
+ * statistically tied, in which case the leader wins.
+ *
+ * Unlike the adaptive optimizer's champion vs challenger tournament, most of the games go to the
+ * lineups that are still in contention, and each round splits into independent tasks.
+ */
+public class SuccessiveHalvingOptimizer implements Optimizer<SuccessiveHalvingResult> {
+
+  // Tasks don't depend on the thread count so a seed gives the same result on any machine
+  private static final int LINEUPS_PER_TASK = 1000;
+
+  // Lineups that are still tied after this many games are considered equal
+  private static final long MAX_GAMES_PER_LINEUP = TTestTask.MAX_ITERATIONS;
+
+  // Once this few lineups are left, they are only dropped when they're significantly worse than the
+  // leader. Halving lineups that are this close would often drop the best one on noise.
+  public static final int FINALISTS = 16;
+
+  private static final long FINAL_RESULT_GAMES = TTestTask.MAX_ITERATIONS;
+
+  // Stream keys, rounds are keyed by round number
+  private static final long LINEUP_SAMPLE_STREAM = -1;
+  private static final long FINAL_RESULT_STREAM = -2;
+
+  @Override
+  public SuccessiveHalvingResult optimize(List<String> playersInLineup, LineupTypeEnum lineupType,
+      DataStats battingData, Map<String, String> arguments, ProgressTracker progressTracker,
+      SuccessiveHalvingResult existingResult) {
+
+    // Start the timer
+    long startTimestamp = System.currentTimeMillis();
+
+    // A race can't be resumed part way, but a finished one (it has a confidence interval) doesn't
+    // need to be run again
+    if (existingResult != null && existingResult.getLineupScoreConfidenceInterval() != null) {
+      return existingResult;
+    }
+
+    // Check that the batting data we have is sufficient to run this optmizer
+    validateData(battingData, playersInLineup);
+
+    // Get the arguments as their expected types
+    SuccessiveHalvingArgumentParser parsedArguments = new SuccessiveHalvingArgumentParser(arguments);
+    final int INNINGS = parsedArguments.getInnings();
+
+    BattingLineupIndexer indexer = lineupType.getLineupIndexer(battingData, playersInLineup);
+
+    SplitMix64 random = new SplitMix64(parsedArguments.getSeed());
+    long[] lineupIndexes =
+        getStartingLineups(indexer.size(), parsedArguments.getMaxLineups(), random.getStream(LINEUP_SAMPLE_STREAM));
+
+    // Print the details before we start
+    DecimalFormat formatter = new DecimalFormat("#,###");
+    Logger.log("*********************************************************************");
+    Logger.log("Possible lineups: \t\t" + formatter.format(indexer.size()));
+    Logger.log("Lineups raced: \t\t\t" + formatter.format(lineupIndexes.length));
+    Logger.log("Innings per game: \t\t" + INNINGS);
+    Logger.log("Threads used: \t\t\t" + parsedArguments.getThreads());
+    Logger.log("Seed: \t\t\t\t" + parsedArguments.getSeed());
+    Logger.log("*********************************************************************");
+
+    /*
+     * Build a hitGenerator that can be used across threads, this way we only have to parse the stats
+     * data once. We're using the first lineup here (index 0) to get a list of players, but we could
+     * have used any lineup.
+     */
+    List<DataPlayer> someLineup = indexer.getLineup(0).asList();
+    HitGenerator hitGenerator = new HitGenerator(someLineup);
+
+    // Score totals for the lineup at the same position in lineupIndexes, every survivor has played the
+    // same number of games so nothing else is needed
+    double[] sums = new double[lineupIndexes.length];
+    double[] sumsOfSquares = new double[lineupIndexes.length];
+    int candidateCount = lineupIndexes.length;
+
+    ExecutorService executor = Executors.newFixedThreadPool(parsedArguments.getThreads());
+    long gamesPerLineup = 0;
+    long gamesThisRound = parsedArguments.getGames();
+    long simulationsRun = 0;
+    for (int round = 0;; round++) {
+      // Play this round's games
+      SplitMix64 roundRandom = random.getStream(round);
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int start = 0; start < candidateCount; start += LINEUPS_PER_TASK) {
+        int end = Math.min(start + LINEUPS_PER_TASK, candidateCount);
+        tasks.add(executor.submit(new SuccessiveHalvingTask(indexer, hitGenerator, lineupIndexes, sums,
+            sumsOfSquares, start, end, INNINGS, gamesThisRound, roundRandom.getStream(start))));
+      }
+      for (Future<?> task : tasks) {
+        try {
+          task.get();
+        } catch (InterruptedException | ExecutionException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      gamesPerLineup += gamesThisRound;
+      simulationsRun += gamesThisRound * candidateCount;
+
+      candidateCount =
+          eliminate(lineupIndexes, sums, sumsOfSquares, candidateCount, gamesPerLineup, parsedArguments.getAlpha());
+      Logger.log("Round " + round + ": " + formatter.format(candidateCount) + " lineups left after "
+          + formatter.format(gamesPerLineup) + " games each");
+
+      // The leader is always moved to the front
+      long elapsedTime = System.currentTimeMillis() - startTimestamp;
+      progressTracker.updateProgress(new SuccessiveHalvingResult(indexer.getLineup(lineupIndexes[0]),
+          sums[0] / gamesPerLineup, lineupIndexes.length, lineupIndexes.length - candidateCount, elapsedTime));
+
+      if (candidateCount == 1) {
+        break;
+      }
+      if (gamesPerLineup >= MAX_GAMES_PER_LINEUP) {
+        Logger.log(candidateCount + " lineups are statistically tied, using the one with the highest mean");
+        break;
+      }
+      gamesThisRound = Math.min(gamesPerLineup, MAX_GAMES_PER_LINEUP - gamesPerLineup);
+    }
+    executor.shutdown();
+
+    // The winner's mean is biased upward, it won because it got lucky as well as because it's good, so
+    // score it with fresh games
+    BattingLineup bestLineup = indexer.getLineup(lineupIndexes[0]);
+    StatisticalSummary finalStats = FinalScore.simulate(hitGenerator.getBattingOrder(bestLineup), INNINGS,
+        hitGenerator, FINAL_RESULT_GAMES, parsedArguments.getThreads(), random.getStream(FINAL_RESULT_STREAM));
+    simulationsRun += FINAL_RESULT_GAMES;
+    Logger.log("Simulations required: " + formatter.format(simulationsRun) + " which is "
+        + formatter.format(simulationsRun / lineupIndexes.length) + " per lineup");
+
+    long elapsedTime = System.currentTimeMillis() - startTimestamp;
+    SuccessiveHalvingResult finalResult = new SuccessiveHalvingResult(bestLineup, finalStats.getMean(),
+        FinalScore.getConfidenceInterval(finalStats), lineupIndexes.length, lineupIndexes.length, elapsedTime);
+    progressTracker.updateProgress(finalResult);
+    return finalResult;
+  }
+
+  /**
+   * Keeps the top half of the lineups by mean score (but at least FINALISTS), minus any that a
+   * t-test says are significantly worse than the leader. Survivors are moved to the front of the
+   * arrays with the leader first.
+   *
+   * @return the number of survivors
+   */
+  public static int eliminate(long[] lineupIndexes, double[] sums, double[] sumsOfSquares, int candidateCount,
+      long gamesPerLineup, double alpha) {
+    int leader = 0;
+    for (int i = 1; i < candidateCount; i++) {
+      if (sums[i] > sums[leader]) {
+        leader = i;
+      }
+    }
+    swap(lineupIndexes, sums, sumsOfSquares, 0, leader);
+
+    // Lowest sum that makes the top half, some of the lineups tied with it may not make it
+    int keep = Math.max((candidateCount + 1) / 2, Math.min(candidateCount, FINALISTS));
+    double[] sortedSums = Arrays.copyOf(sums, candidateCount);
+    Arrays.sort(sortedSums);
+    double threshold = sortedSums[candidateCount - keep];
+    int tiesToKeep = keep;
+    for (int i = 0; i < candidateCount; i++) {
+      tiesToKeep -= sums[i] > threshold ? 1 : 0;
+    }
+
+    // Every lineup has the same number of games, so Welch's t-test has about 2 * (n - 1) degrees of
+    // freedom
+    double critical =
+        new TDistribution(2 * (gamesPerLineup - 1)).inverseCumulativeProbability(1 - alpha / 2) * gamesPerLineup;
+    double leaderVariance = getVariance(sums[0], sumsOfSquares[0], gamesPerLineup);
+
+    int survivors = 0;
+    for (int i = 0; i < candidateCount; i++) {
+      if (sums[i] < threshold || (sums[i] == threshold && tiesToKeep-- <= 0)) {
+        continue;
+      }
+      // Sums are n times the means, so the critical value is scaled by n as well
+      double standardError = Math.sqrt((leaderVariance + getVariance(sums[i], sumsOfSquares[i], gamesPerLineup))
+          / gamesPerLineup);
+      if (i != 0 && sums[0] - sums[i] > critical * standardError) {
+        continue;
+      }
+      swap(lineupIndexes, sums, sumsOfSquares, survivors++, i);
+    }
+    return survivors;
+  }
+
+  private static double getVariance(double sum, double sumOfSquares, long n) {
+    return Math.max(0, (sumOfSquares - sum * sum / n) / (n - 1));
+  }
+
+  private static void swap(long[] lineupIndexes, double[] sums, double[] sumsOfSquares, int a, int b) {
+    long index = lineupIndexes[a];
+    lineupIndexes[a] = lineupIndexes[b];
+    lineupIndexes[b] = index;
+    double sum = sums[a];
+    sums[a] = sums[b];
+    sums[b] = sum;
+    double sumOfSquares = sumsOfSquares[a];
+    sumsOfSquares[a] = sumsOfSquares[b];
+    sumsOfSquares[b] = sumOfSquares;
+  }
+
+  /**
+   * @return every lineup index if there are no more than maxLineups of them, otherwise a random
+   *         sample of maxLineups distinct indexes. Either way the indexes are sorted.
+   */
+  public static long[] getStartingLineups(long lineupCount, int maxLineups, SplitMix64 random) {
+    if (lineupCount <= maxLineups) {
+      long[] lineupIndexes = new long[(int) lineupCount];
+      Arrays.setAll(lineupIndexes, i -> i);
+      return lineupIndexes;
+    }
+
+    // If most lineups are wanted, it's quicker to pick the ones to leave out
+    if (maxLineups <= lineupCount / 2) {
+      return getDistinctSample(lineupCount, maxLineups, random);
+    }
+    long[] excluded = getDistinctSample(lineupCount, (int) (lineupCount - maxLineups), random);
+    long[] lineupIndexes = new long[maxLineups];
+    int excludedPosition = 0;
+    int position = 0;
+    for (long i = 0; i < lineupCount; i++) {
+      if (excludedPosition < excluded.length && excluded[excludedPosition] == i) {
+        excludedPosition++;
+      } else {
+        lineupIndexes[position++] = i;
+      }
+    }
+    return lineupIndexes;
+  }
+
+  /**
+   * Draws until there are sampleSize distinct values in [0, bound). Each pass replaces the
+   * duplicates from the last, sampleSize is at most half of bound so this takes a few passes.
+   */
+  private static long[] getDistinctSample(long bound, int sampleSize, SplitMix64 random) {
+    long[] sample = new long[sampleSize];
+    int distinct = 0;
+    while (distinct < sampleSize) {
+      for (int i = distinct; i < sampleSize; i++) {
+        sample[i] = random.nextLong(bound);
+      }
+      Arrays.sort(sample);
+      distinct = 0;
+      for (int i = 0; i < sampleSize; i++) {
+        if (i == 0 || sample[i] != sample[i - 1]) {
+          sample[distinct++] = sample[i];
+        }
+      }
+    }
+    return sample;
+  }
+
+  private void validateData(DataStats data, List<String> playersInLineup) {
+    // All players in the lineup must have at least one plate appearance
+    for (String playerId : playersInLineup) {
+      DataPlayer player = data.getPlayerById(playerId);
+      if (player.getPlateAppearanceCount() == 0) {
+        throw new RuntimeException(Msg.PLAYER_HAS_NO_PA.args(player.getName(), player.getId()));
+      }
+    }
+  }
+
+  @Override
+  public Class<? extends Result> getResultClass() {
+    return SuccessiveHalvingResult.class;
+  }
+
+}
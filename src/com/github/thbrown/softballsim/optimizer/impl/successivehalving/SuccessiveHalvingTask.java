@@ -0,0 +1,71 @@
+package com.github.thbrown.softballsim.optimizer.impl.successivehalving;
+
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupIndexer;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BatchedGameSimulation;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.MonteCarloGameSimulation;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+/**
+ * Plays one round's games for a contiguous range of the surviving lineups. Each lineup's score
+ * totals are added to the shared arrays at that lineup's position, tasks never share a position.
+ */
+public class SuccessiveHalvingTask implements Runnable {
+
+  private final BattingLineupIndexer indexer;
+  private final HitGenerator hitGenerator;
+  private final long[] lineupIndexes;
+  private final double[] sums;
+  private final double[] sumsOfSquares;
+  private final int start;
+  private final int end;
+  private final int inningsPerGame;
+  private final long games;
+  private final SplitMix64 random;
+
+  private double squares;
+
+  /**
+   * @param start - first position in the arrays to simulate (inclusive)
+   * @param end - last position in the arrays to simulate (exclusive)
+   * @param games - number of games to play for each lineup
+   * @param random - generator all of this task's games are drawn from
+   */
+  public SuccessiveHalvingTask(BattingLineupIndexer indexer, HitGenerator hitGenerator, long[] lineupIndexes,
+      double[] sums, double[] sumsOfSquares, int start, int end, int inningsPerGame, long games, SplitMix64 random) {
+    this.indexer = indexer;
+    this.hitGenerator = hitGenerator;
+    this.lineupIndexes = lineupIndexes;
+    this.sums = sums;
+    this.sumsOfSquares = sumsOfSquares;
+    this.start = start;
+    this.end = end;
+    this.inningsPerGame = inningsPerGame;
+    this.games = games;
+    this.random = random;
+  }
+
+  @Override
+  public void run() {
+    for (int i = start; i < end; i++) {
+      int[] battingOrder = hitGenerator.getBattingOrder(indexer.getLineup(lineupIndexes[i]));
+      double sum = 0;
+      squares = 0;
+      if (games < BatchedGameSimulation.LANES) {
+        // Too few games to fill the lanes, and the early rounds would spend more time building the
+        // batched simulation's tables than playing games
+        for (long game = 0; game < games; game++) {
+          double score = MonteCarloGameSimulation.simulateGame(battingOrder, inningsPerGame, hitGenerator, random);
+          sum += score;
+          squares += score * score;
+        }
+      } else {
+        sum = BatchedGameSimulation.simulateGames(battingOrder, inningsPerGame, hitGenerator, games, random,
+            score -> squares += (double) score * score);
+      }
+      sums[i] += sum;
+      sumsOfSquares[i] += squares;
+    }
+  }
+
+}
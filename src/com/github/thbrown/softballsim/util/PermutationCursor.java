@@ -0,0 +1,89 @@
+package com.github.thbrown.softballsim.util;
+
+/**
+ * Steps through permutations in the same order as {@link CombinatoricsUtil#getIthPermutation(int,
+ * long)} without unranking each one from scratch.
+ * 
+ * Myrvold and Ruskey's unrank builds a permutation by applying one swap per digit of the rank
+ * (written in a mixed radix n, n-1, ..., 1) to the identity. Applying a position swap to the
+ * identity first is the same as relabeling two values last, so the permutation can be written as
+ * value swaps with the least significant digit outermost. Incrementing the rank then only undoes and
+ * redoes the swaps for the digits that change, which is usually just one. Each value swap is O(1)
+ * because we also keep the inverse permutation.
+ * 
+ * The cursor wraps around, so stepping past the last index returns to index 0.
+ */
+public class PermutationCursor {
+
+  private final int size;
+  private final int[] order; // position -> value
+  private final int[] inverse; // value -> position
+  private final int[] digits; // digits[j] is in [0, j] and is the swap partner for position j
+
+  public PermutationCursor(int size, long index) {
+    this.size = size;
+    this.order = new int[size];
+    this.inverse = new int[size];
+    this.digits = new int[size];
+
+    // Same index adjustment as getIthPermutation, the 0th permutation is the initial order
+    long rank = Math.floorMod(index - 1, CombinatoricsUtil.factorial(size));
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    for (int j = size - 1; j >= 0; j--) {
+      digits[j] = (int) (rank % (j + 1));
+      rank = rank / (j + 1);
+      CombinatoricsUtil.swap(j, digits[j], order);
+    }
+    for (int i = 0; i < size; i++) {
+      inverse[order[i]] = i;
+    }
+  }
+
+  /**
+   * Moves to the permutation at the next index.
+   */
+  public void next() {
+    // Digits above 'lowest' overflow back to zero, the digit at 'lowest' is incremented
+    int lowest = size - 1;
+    while (lowest >= 0 && digits[lowest] == lowest) {
+      lowest--;
+    }
+    int deepest = Math.max(lowest, 0);
+
+    // Peel off the swaps for every digit that changes, outermost first
+    for (int j = size - 1; j >= deepest; j--) {
+      swapValues(j, digits[j]);
+    }
+    for (int j = size - 1; j > lowest; j--) {
+      digits[j] = 0;
+    }
+    if (lowest >= 0) {
+      digits[lowest]++;
+    }
+
+    // Then put them back with the new digits
+    for (int j = deepest; j < size; j++) {
+      swapValues(j, digits[j]);
+    }
+  }
+
+  /**
+   * @return the current permutation. This array is reused and is updated in place by {@link #next()},
+   *         don't modify it.
+   */
+  public int[] getOrder() {
+    return order;
+  }
+
+  private void swapValues(int a, int b) {
+    int positionA = inverse[a];
+    int positionB = inverse[b];
+    order[positionA] = b;
+    order[positionB] = a;
+    inverse[a] = positionB;
+    inverse[b] = positionA;
+  }
+
+}
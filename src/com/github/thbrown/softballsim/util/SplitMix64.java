@@ -0,0 +1,128 @@
+package com.github.thbrown.softballsim.util;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Small, fast, seedable random number generator (SplitMix64, see
+ * https://prng.di.unimi.it/splitmix64.c).
+ *
+ * Optimizers that need reproducible results derive one stream per unit of work (a lineup, a task,
+ * etc...) from a single seeded root with {@link #getStream(long)}. Since each stream only depends
+ * on the root's seed and the key, the results don't depend on which thread runs the work or in
+ * what order.
+ *
+ * This extends Random so it can be passed to anything that accepts one, but unlike Random it is not
+ * thread safe. Each thread should use its own stream.
+ */
+public final class SplitMix64 extends Random {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+  private static final long STREAM_GAMMA = 0xD1B54A32D192ED03L;
+
+  /**
+   * Value of an optimizer's seed argument that asks for a random seed
+   */
+  public static final String SEED_DEFAULT_TOKEN = "$randomSeed";
+
+  private long state;
+
+  public SplitMix64(long seed) {
+    super(seed);
+  }
+
+  /**
+   * Parses an optimizer's seed argument. Optimizers share this so they all treat a missing seed the
+   * same way.
+   * 
+   * @param seedString - the argument's value, null or SEED_DEFAULT_TOKEN for a random seed
+   */
+  public static long parseSeed(String seedString) {
+    if (seedString == null || seedString.equals(SEED_DEFAULT_TOKEN)) {
+      return ThreadLocalRandom.current().nextLong();
+    }
+    try {
+      return Long.parseLong(seedString);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("The seed must be a whole number between " + Long.MIN_VALUE + " and "
+          + Long.MAX_VALUE + " or " + SEED_DEFAULT_TOKEN + ", got " + seedString, e);
+    }
+  }
+
+  /**
+   * Called by Random's constructor, so this can't depend on any other fields being initialized.
+   */
+  @Override
+  public synchronized void setSeed(long seed) {
+    super.setSeed(seed);
+    this.state = seed;
+  }
+
+  @Override
+  public long nextLong() {
+    state += GOLDEN_GAMMA;
+    return mix(state);
+  }
+
+  @Override
+  protected int next(int bits) {
+    return (int) (nextLong() >>> (64 - bits));
+  }
+
+  /**
+   * Fills the first count elements of values with the same numbers count calls to
+   * {@link #nextLong()} would return. Each value only depends on its position, so unlike a loop of
+   * nextLong() calls there's no dependency between iterations.
+   */
+  public void nextLongs(long[] values, int count) {
+    long base = state;
+    for (int i = 0; i < count; i++) {
+      values[i] = mix(base + (i + 1) * GOLDEN_GAMMA);
+    }
+    state = base + count * GOLDEN_GAMMA;
+  }
+
+  /**
+   * @return a uniformly distributed value between 0 (inclusive) and bound (exclusive)
+   */
+  public long nextLong(long bound) {
+    if (bound <= 0) {
+      throw new IllegalArgumentException("bound must be positive but was " + bound);
+    }
+    // Reject values from the incomplete range at the top so every result is equally likely
+    long limit = Long.MAX_VALUE - (Long.MAX_VALUE % bound);
+    long value;
+    do {
+      value = nextLong() >>> 1;
+    } while (value >= limit);
+    return value % bound;
+  }
+
+  /**
+   * Gets an independent generator for the given key. This doesn't advance this generator, so the
+   * same key always gives the same stream as long as this generator hasn't been used to draw numbers
+   * in between.
+   */
+  public SplitMix64 getStream(long key) {
+    return new SplitMix64(mix(state ^ mix(key * STREAM_GAMMA + GOLDEN_GAMMA)));
+  }
+
+  /**
+   * @return a generator that draws the same numbers this one will from here on
+   */
+  public SplitMix64 copy() {
+    return new SplitMix64(state);
+  }
+
+  /**
+   * SplitMix64's finalizer, every input bit affects every output bit.
+   */
+  public static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+}
@@ -0,0 +1,58 @@
+package com.github.thbrown.softballsim;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import com.github.thbrown.softballsim.helpers.TestUtil;
+
+public class BranchAndBoundTest {
+
+  /**
+   * Skipping lineups should never change the answer, the best lineup should score exactly what the
+   * best lineup from the Markov chain optimizer does.
+   */
+  @Test
+  public void testBranchAndBound() throws Exception {
+    final int INNINGS = 7;
+    final int LINEUP_TYPE = 1;
+    final int THREAD_COUNT = 4;
+    final String LINEUP = "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p";
+
+    String[] args = {"-O", "BRANCH_AND_BOUND", "-F", "-P", "./stats/exampleData.json", "-L", LINEUP, "-i",
+        String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-t", String.valueOf(THREAD_COUNT)};
+    Result result = SoftballSim.mainInternal(args);
+
+    TestUtil.assertNearMarkovOptimum(result.getLineup(), LINEUP, INNINGS, 1e-9);
+    Assert.assertEquals(6, result.getLineup().asList().size());
+  }
+
+  /**
+   * Nine players is too many to check against the Markov chain optimizer on every test run. The
+   * expected lineup was found by scoring all 362,880 lineups with it.
+   */
+  @Test
+  public void testNinePlayers() throws Exception {
+    final String LINEUP = "00000000000002,00000000000001,00000000000008,00000000000004,0000000000000f,"
+        + "00000000000003,00000000000005,0000000000000J,0000000000000i";
+
+    String[] args = {"-O", "BRANCH_AND_BOUND", "-F", "-P", "./stats/exampleData.json", "-L", LINEUP, "-i", "7",
+        "-t", "2"};
+    Result result = SoftballSim.mainInternal(args);
+
+    Assert.assertEquals(11.305521133, result.getLineupScore(), 1e-9);
+    Assert.assertEquals(Arrays.asList("0000000000000J", "00000000000002", "00000000000001", "0000000000000i",
+        "0000000000000f", "00000000000005", "00000000000008", "00000000000004", "00000000000003"),
+        result.getLineup().asListOfIds());
+  }
+
+  /**
+   * Running the same arguments again loads the saved result instead of searching.
+   */
+  @Test
+  public void testCachedResult() throws Exception {
+    final String LINEUP = "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z";
+    String[] args = {"-O", "BRANCH_AND_BOUND", "-P", "./stats/exampleData.json", "-L", LINEUP, "-i", "7", "-t", "1"};
+    TestUtil.assertCachedResultIsReused(args);
+  }
+
+}
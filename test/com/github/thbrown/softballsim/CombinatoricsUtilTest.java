@@ -1,5 +1,6 @@
 package com.github.thbrown.softballsim;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -9,6 +10,7 @@ import java.util.List;
 import java.util.Set;
 import org.junit.Test;
 import com.github.thbrown.softballsim.util.CombinatoricsUtil;
+import com.github.thbrown.softballsim.util.PermutationCursor;
 
 public class CombinatoricsUtilTest {
 
@@ -44,6 +46,22 @@ public class CombinatoricsUtilTest {
     }
   }
 
+  @Test
+  public void permutationCursorMatchesUnrank() {
+    for (int length = 1; length <= 6; length++) {
+      long size = CombinatoricsUtil.factorial(length);
+      for (long start : new long[] {0, 1, size / 2, size - 1}) {
+        PermutationCursor cursor = new PermutationCursor(length, start);
+        // Go past the end to make sure the cursor wraps around to index 0
+        for (long i = start; i < start + size + 2; i++) {
+          int[] expected = CombinatoricsUtil.getIthPermutation(length, i % size);
+          assertArrayEquals("length " + length + " index " + i, expected, cursor.getOrder());
+          cursor.next();
+        }
+      }
+    }
+  }
+
   @Test
   public void generateNthCombination() {
     Set<String> dupDetector = new HashSet<>();
@@ -0,0 +1,110 @@
+package com.github.thbrown.softballsim;
+
+import static org.junit.Assert.assertEquals;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.AliasHitSampler;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitSampler;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.QuantizedHitSampler;
+
+public class HitSamplerTest {
+
+  private static final int[][] OUTCOME_COUNTS = {
+      {7, 3, 1, 0, 2},
+      {1000, 523, 77, 3, 1},
+      {0, 0, 0, 0, 5},
+      {3000, 1, 0, 0, 0}};
+
+  @Test
+  public void exactQuantizedTableMatchesCounts() {
+    int[] counts = {8, 4, 2, 1, 1};
+    int bits = QuantizedHitSampler.getExactTableBits(counts, 10);
+    assertEquals(4, bits);
+
+    // Every index of the table is reachable through the low bits, so we can count entries directly
+    HitSampler sampler = new QuantizedHitSampler(counts, bits);
+    int[] entries = new int[HitSampler.OUTCOME_COUNT];
+    for (int i = 0; i < (1 << bits); i++) {
+      entries[sampler.sample(i)]++;
+    }
+    for (int i = 0; i < counts.length; i++) {
+      assertEquals(counts[i], entries[i]);
+    }
+  }
+
+  @Test
+  public void exactTableBitsRejectsNonPowerOfTwoTotals() {
+    assertEquals(-1, QuantizedHitSampler.getExactTableBits(new int[] {7, 3, 1, 0, 2}, 10));
+    assertEquals(1, QuantizedHitSampler.getExactTableBits(new int[] {3, 3, 0, 0, 0}, 10));
+    assertEquals(-1, QuantizedHitSampler.getExactTableBits(new int[] {2048, 0, 0, 0, 1}, 10));
+  }
+
+  @Test
+  public void quantizedTableKeepsRareResults() {
+    int[] counts = {3000, 1, 0, 0, 0};
+    HitSampler sampler = new QuantizedHitSampler(counts, 10);
+    int[] entries = new int[HitSampler.OUTCOME_COUNT];
+    for (int i = 0; i < 1024; i++) {
+      entries[sampler.sample(i)]++;
+    }
+    assertEquals(1023, entries[0]);
+    assertEquals(1, entries[1]);
+  }
+
+  @Test
+  public void aliasSamplerMatchesCounts() {
+    final int SAMPLES = 2000000;
+    SplittableRandom random = new SplittableRandom(42);
+    for (int[] counts : OUTCOME_COUNTS) {
+      HitSampler sampler = new AliasHitSampler(counts);
+      long[] observed = new long[HitSampler.OUTCOME_COUNT];
+      for (int i = 0; i < SAMPLES; i++) {
+        observed[sampler.sample(random.nextLong())]++;
+      }
+
+      long total = 0;
+      for (int count : counts) {
+        total += count;
+      }
+      for (int i = 0; i < counts.length; i++) {
+        double expected = (double) counts[i] / total;
+        assertEquals(expected, (double) observed[i] / SAMPLES, 0.002);
+        if (counts[i] == 0) {
+          assertEquals(0, observed[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Simulations that use flat alias tables should sample from the distribution of the sampler the
+   * player actually has, including a quantized table's rounding.
+   */
+  @Test
+  public void aliasConversionKeepsProbabilities() {
+    final double THRESHOLD_ONE = 1L << 31;
+    for (int[] counts : OUTCOME_COUNTS) {
+      QuantizedHitSampler quantized = new QuantizedHitSampler(counts, 10);
+      double[] expected = new double[HitSampler.OUTCOME_COUNT];
+      for (int i = 0; i < 1024; i++) {
+        expected[quantized.sample(i)] += 1.0 / 1024;
+      }
+
+      // Read the probabilities straight out of the alias table
+      long[] thresholds = new long[AliasHitSampler.COLUMNS];
+      int[] results = new int[AliasHitSampler.COLUMNS];
+      quantized.toAliasHitSampler().copyTable(thresholds, results, 0);
+      double[] actual = new double[HitSampler.OUTCOME_COUNT];
+      for (int column = 0; column < AliasHitSampler.COLUMNS; column++) {
+        double primaryShare = thresholds[column] / THRESHOLD_ONE;
+        actual[AliasHitSampler.sample(thresholds, results, 0, column)] += primaryShare / AliasHitSampler.COLUMNS;
+        actual[AliasHitSampler.sample(thresholds, results, 0, -1L << 3 | column)] +=
+            (1 - primaryShare) / AliasHitSampler.COLUMNS;
+      }
+      for (int i = 0; i < HitSampler.OUTCOME_COUNT; i++) {
+        assertEquals(expected[i], actual[i], 1e-12);
+      }
+    }
+  }
+
+}
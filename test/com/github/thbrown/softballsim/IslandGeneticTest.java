@@ -0,0 +1,129 @@
+package com.github.thbrown.softballsim;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import com.github.thbrown.softballsim.data.gson.DataPlayer;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.helpers.TestGsonAccessor;
+import com.github.thbrown.softballsim.helpers.TestUtil;
+import com.github.thbrown.softballsim.optimizer.impl.islandgenetic.Individual;
+import com.github.thbrown.softballsim.optimizer.impl.islandgenetic.Island;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.util.CombinatoricsUtil;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+public class IslandGeneticTest {
+
+  private static final String LINEUP = "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p";
+
+  /**
+   * There are only 720 lineups here, so a few seconds of evolution should find the best lineup
+   * according to the exact expected score from the Markov chain optimizer, or one so close that it
+   * couldn't be told apart.
+   */
+  @Test
+  public void testIslandGenetic() throws Exception {
+    final int INNINGS = 7;
+    final int LINEUP_TYPE = 1;
+    final int THREAD_COUNT = 4;
+
+    String[] args = {"-O", "ISLAND_GENETIC", "-F", "-P", "./stats/exampleData.json", "-L", LINEUP, "-i",
+        String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-t", String.valueOf(THREAD_COUNT), "-d", "5",
+        "-s", "1"};
+    Result result = SoftballSim.mainInternal(args);
+    TestUtil.assertNearMarkovOptimum(result.getLineup(), LINEUP, INNINGS, 0.05);
+  }
+
+  /**
+   * Order crossover should always give a lineup with every player exactly once, and crossing a lineup
+   * with itself should give the same lineup back.
+   */
+  @Test
+  public void testOrderCrossover() throws Exception {
+    SplitMix64 random = new SplitMix64(1);
+    for (int length = 1; length <= 12; length++) {
+      int[] identity = new int[length];
+      Arrays.setAll(identity, i -> i);
+      for (int trial = 0; trial < 1000; trial++) {
+        int[] first = shuffle(identity, random);
+        int[] second = shuffle(identity, random);
+        int[] child = Island.orderCrossover(first, second, random);
+        int[] sorted = child.clone();
+        Arrays.sort(sorted);
+        Assert.assertArrayEquals(identity, sorted);
+        Assert.assertArrayEquals(first, Island.orderCrossover(first, first.clone(), random));
+      }
+    }
+  }
+
+  /**
+   * A migrant replaces the island's worst lineup, unless the island already has a lineup with the
+   * same order.
+   */
+  @Test
+  public void testAccept() throws Exception {
+    String statsJson = new String(Files.readAllBytes(Paths.get("./stats/exampleData.json")));
+    DataStats stats = TestGsonAccessor.getInstance().getCustom().fromJson(statsJson, DataStats.class);
+    List<DataPlayer> players = new ArrayList<>();
+    for (String playerId : Arrays.asList("1OiRCCmrn16iyK", "0000000000000e", "0000000000000F", "1KDGsd6ikXY6iH",
+        "1CV6WRyspDjA7Z", "1MPJ24EEyS0g6p")) {
+      players.add(stats.getPlayerById(playerId));
+    }
+    Island island = new Island(new HitGenerator(players), 5, 7, 10, new SplitMix64(1));
+
+    // Give every lineup a different mean, the third one is the worst
+    double[] means = {3, 4, 1, 5, 2};
+    List<Individual> before = new ArrayList<>(island.getPopulation());
+    for (int i = 0; i < before.size(); i++) {
+      before.get(i).addGames((long) means[i] * 10, 10);
+    }
+
+    // A lineup with the same order is skipped, no matter how good it is
+    Individual duplicate = new Individual(before.get(3).getOrder().clone());
+    duplicate.addGames(100, 1);
+    island.accept(duplicate);
+    Assert.assertEquals(before, island.getPopulation());
+
+    // A new lineup takes the worst lineup's place, the rest stay where they were
+    int[] order = before.get(0).getOrder().clone();
+    long index = 0;
+    while (containsOrder(before, order)) {
+      order = CombinatoricsUtil.getIthPermutation(order.length, index++);
+    }
+    Individual migrant = new Individual(order);
+    migrant.addGames(1, 1);
+    island.accept(migrant);
+    List<Individual> expected = new ArrayList<>(before);
+    expected.set(2, migrant);
+    Assert.assertEquals(expected, island.getPopulation());
+  }
+
+  /**
+   * Without -F, the second run should give back the first run's cached result
+   */
+  @Test
+  public void testCachedResult() throws Exception {
+    final String LINEUP = "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z";
+    String[] args = {"-O", "ISLAND_GENETIC", "-P", "./stats/exampleData.json", "-L", LINEUP, "-i", "7", "-t", "1",
+        "-d", "1", "-s", "1"};
+    TestUtil.assertCachedResultIsReused(args);
+  }
+
+  private static int[] shuffle(int[] order, SplitMix64 random) {
+    int[] shuffled = order.clone();
+    for (int i = shuffled.length - 1; i > 0; i--) {
+      CombinatoricsUtil.swap(i, random.nextInt(i + 1), shuffled);
+    }
+    return shuffled;
+  }
+
+  private static boolean containsOrder(List<Individual> population, int[] order) {
+    return population.stream().anyMatch(individual -> Arrays.equals(individual.getOrder(), order));
+  }
+
+}
@@ -0,0 +1,128 @@
+package com.github.thbrown.softballsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.apache.commons.math3.util.Pair;
+import org.junit.Test;
+import com.github.thbrown.softballsim.data.gson.DataPlayer;
+import com.github.thbrown.softballsim.data.gson.DataStats;
+import com.github.thbrown.softballsim.helpers.TestGsonAccessor;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupCursor;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupIndexer;
+import com.github.thbrown.softballsim.lineupindexer.LineupEquivalenceEnum;
+import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
+
+public class LineupIndexerTest {
+
+  private static final List<String> PLAYERS =
+      Arrays.asList("1OiRCCmrn16iyK", "0000000000000e", "0000000000000F", "1KDGsd6ikXY6iH", "1CV6WRyspDjA7Z");
+
+  /**
+   * The cursor's reused lineup can be populated like any other lineup, and the lineups after it use
+   * the populated players too.
+   */
+  @Test
+  public void testCursorPopulateStats() throws Exception {
+    DataStats stats = getStats();
+    DataStats otherStats = getStats();
+    BattingLineupIndexer indexer = LineupTypeEnum.ORDINARY.getLineupIndexer(stats, PLAYERS);
+
+    BattingLineupCursor cursor = indexer.getCursor(3, indexer.size());
+    assertTrue(cursor.next());
+    cursor.getLineup().populateStats(otherStats);
+    assertPlayersFrom(otherStats, cursor.getLineup());
+    assertEquals(indexer.getLineup(3).asListOfIds(), cursor.getLineup().asListOfIds());
+
+    assertTrue(cursor.next());
+    assertPlayersFrom(otherStats, cursor.getLineup());
+    assertEquals(indexer.getLineup(4).asListOfIds(), cursor.getLineup().asListOfIds());
+
+    // The indexer's own players are left alone
+    assertPlayersFrom(stats, indexer.getLineup(4));
+  }
+
+  /**
+   * A fixed leadoff neighbor keeps the leadoff hitter, swaps two of the other players, and its index
+   * points back at the same lineup.
+   */
+  @Test
+  public void testRotationRandomNeighbor() throws Exception {
+    DataStats stats = getStats();
+    BattingLineupIndexer indexer = LineupEquivalenceEnum.LEADOFF.getLineupIndexer(LineupTypeEnum.ORDINARY, stats,
+        PLAYERS, PLAYERS.get(2));
+    Random random = new Random(42);
+    for (long index = 0; index < indexer.size(); index++) {
+      List<String> lineup = indexer.getLineup(index).asListOfIds();
+      Pair<Long, BattingLineup> neighbor = indexer.getRandomNeighbor(index, random);
+      List<String> neighborLineup = neighbor.getSecond().asListOfIds();
+      assertEquals(PLAYERS.get(2), neighborLineup.get(0));
+      assertEquals(indexer.getLineup(neighbor.getFirst()).asListOfIds(), neighborLineup);
+
+      int differences = 0;
+      for (int i = 0; i < lineup.size(); i++) {
+        differences += lineup.get(i).equals(neighborLineup.get(i)) ? 0 : 1;
+      }
+      assertEquals(2, differences);
+    }
+
+    // Only the leadoff hitter and one other player, nothing to swap
+    BattingLineupIndexer small = LineupEquivalenceEnum.ROTATION.getLineupIndexer(LineupTypeEnum.ORDINARY, stats,
+        PLAYERS.subList(0, 2), null);
+    assertNull(small.getRandomNeighbor(0, random));
+  }
+
+  /**
+   * Every lineup is led off by the chosen player, each ordering of the rest appears once, and every
+   * lineup's rotations map back to its index.
+   */
+  @Test
+  public void testLeadoffIndexer() throws Exception {
+    DataStats stats = getStats();
+    String leadoff = PLAYERS.get(3);
+    BattingLineupIndexer indexer = LineupEquivalenceEnum.LEADOFF.getLineupIndexer(LineupTypeEnum.ORDINARY, stats,
+        PLAYERS, leadoff);
+    assertEquals(24, indexer.size());
+
+    Set<List<String>> seen = new HashSet<>();
+    for (long index = 0; index < indexer.size(); index++) {
+      BattingLineup lineup = indexer.getLineup(index);
+      assertEquals(leadoff, lineup.asListOfIds().get(0));
+      assertTrue(seen.add(lineup.asListOfIds()));
+      for (BattingLineup rotation : LineupEquivalenceEnum.ROTATION.getEquivalentLineups(lineup)) {
+        assertEquals(index, indexer.getIndex(rotation));
+      }
+    }
+
+    // The leadoff hitter has to be in the lineup
+    try {
+      LineupEquivalenceEnum.LEADOFF.getLineupIndexer(LineupTypeEnum.ORDINARY, stats, PLAYERS.subList(0, 3), leadoff);
+      fail("A leadoff hitter that isn't in the lineup should be rejected");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  private static void assertPlayersFrom(DataStats stats, BattingLineup lineup) {
+    for (DataPlayer player : lineup.asList()) {
+      assertSame(stats.getPlayerById(player.getId()), player);
+    }
+  }
+
+  private static DataStats getStats() throws IOException {
+    String statsJson = new String(Files.readAllBytes(Paths.get("./stats/exampleData.json")));
+    return TestGsonAccessor.getInstance().getCustom().fromJson(statsJson, DataStats.class);
+  }
+
+}
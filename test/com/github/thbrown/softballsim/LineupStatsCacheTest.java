@@ -0,0 +1,78 @@
+package com.github.thbrown.softballsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
+import org.junit.Test;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.LineupStatsCache;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.WelfordSummaryStatistics;
+import com.github.thbrown.softballsim.util.CombinatoricsUtil;
+
+public class LineupStatsCacheTest {
+
+  private static final int PLAYERS = 6;
+
+  /**
+   * Every order of the players gets its own entry
+   */
+  @Test
+  public void testEveryOrderHasItsOwnStats() throws Exception {
+    int lineupCount = (int) CombinatoricsUtil.factorial(PLAYERS);
+    LineupStatsCache cache = new LineupStatsCache(lineupCount * 2, 0);
+    for (int i = 0; i < lineupCount; i++) {
+      cache.put(CombinatoricsUtil.getIthPermutation(PLAYERS, i), getStats(i + 1));
+    }
+    for (int i = 0; i < lineupCount; i++) {
+      assertEquals(i + 1, cache.get(CombinatoricsUtil.getIthPermutation(PLAYERS, i)).getN());
+    }
+    assertEquals(lineupCount, cache.getHits());
+    assertEquals(0, cache.getMisses());
+  }
+
+  @Test
+  public void testStatsAreCopied() throws Exception {
+    int[] order = {2, 0, 1};
+    LineupStatsCache cache = new LineupStatsCache(10, 2);
+    assertNull(cache.get(order));
+
+    WelfordSummaryStatistics stats = getStats(3);
+    cache.put(order, stats);
+    stats.addValue(1);
+    ((WelfordSummaryStatistics) cache.get(order)).addValue(1);
+    assertEquals(3, cache.get(order).getN());
+
+    // A put replaces what was there instead of adding to it
+    cache.put(order, getStats(2));
+    assertEquals(2, cache.get(order).getN());
+
+    // Too few games to keep
+    cache.put(order, getStats(1));
+    assertEquals(2, cache.get(order).getN());
+  }
+
+  @Test
+  public void testCapacity() throws Exception {
+    final int CAPACITY = 64;
+    int lineupCount = (int) CombinatoricsUtil.factorial(PLAYERS);
+    LineupStatsCache cache = new LineupStatsCache(CAPACITY, 0);
+    for (int i = 0; i < lineupCount; i++) {
+      cache.put(CombinatoricsUtil.getIthPermutation(PLAYERS, i), getStats(1));
+    }
+    int kept = 0;
+    for (int i = 0; i < lineupCount; i++) {
+      StatisticalSummary stats = cache.get(CombinatoricsUtil.getIthPermutation(PLAYERS, i));
+      kept += stats == null ? 0 : 1;
+    }
+    assertTrue(kept > 0 && kept <= CAPACITY);
+  }
+
+  private static WelfordSummaryStatistics getStats(int n) {
+    WelfordSummaryStatistics stats = new WelfordSummaryStatistics();
+    for (int i = 0; i < n; i++) {
+      stats.addValue(i);
+    }
+    return stats;
+  }
+
+}
@@ -0,0 +1,38 @@
+package com.github.thbrown.softballsim;
+
+import org.junit.Assert;
+import org.junit.Test;
+import com.github.thbrown.softballsim.optimizer.impl.markovchain.MarkovChain;
+
+public class MarkovChainTest {
+
+  @Test
+  public void testDataSourceFileSystem() throws Exception {
+    final int INNINGS = 7;
+    final int LINEUP_TYPE = 1;
+    final int THREAD_COUNT = 4;
+
+    String[] args = {"-O", "MARKOV_CHAIN", "-F", "-P", "./stats/exampleData.json", "-L",
+        "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p",
+        "-i", String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-t", String.valueOf(THREAD_COUNT)};
+
+    SoftballSim.main(args);
+  }
+
+  /**
+   * A batter that either makes an out or hits a home run (with equal probability) hits an expected
+   * 3 home runs before making 3 outs, so a team of them scores 3 runs per inning.
+   */
+  @Test
+  public void testHomerunOrOut() throws Exception {
+    final int INNINGS = 7;
+
+    // Outs, singles, doubles, triples, homeruns
+    int[][] outcomeCounts = {{5, 0, 0, 0, 5}, {1, 0, 0, 0, 1}};
+    MarkovChain markovChain = new MarkovChain(outcomeCounts);
+
+    double expectedRuns = markovChain.getExpectedRuns(new int[] {0, 1}, INNINGS);
+    Assert.assertEquals(3.0 * INNINGS, expectedRuns, 1e-9);
+  }
+
+}
@@ -1,19 +1,34 @@
 package com.github.thbrown.softballsim;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummaryValues;
 import org.junit.Test;
 import com.github.thbrown.softballsim.data.gson.DataStats;
 import com.github.thbrown.softballsim.datasource.network.DataSourceNetworkCommandData;
 import com.github.thbrown.softballsim.datasource.network.NetworkHelper;
 import com.github.thbrown.softballsim.helpers.TestGsonAccessor;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupIndexer;
+import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
+import com.github.thbrown.softballsim.optimizer.impl.markovchain.MarkovChain;
+import com.github.thbrown.softballsim.optimizer.impl.FinalScore;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.SignificanceTestEnum;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.TTestTask;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
 import com.github.thbrown.softballsim.server.Server;
 import com.github.thbrown.softballsim.server.ServerCommandHooks;
 import com.github.thbrown.softballsim.server.ServerComplete;
 import com.github.thbrown.softballsim.server.ServerReady;
 import com.github.thbrown.softballsim.util.Logger;
+import com.github.thbrown.softballsim.util.SplitMix64;
 
 public class MonteCarloAdaptiveTest {
 
@@ -37,6 +52,153 @@ public class MonteCarloAdaptiveTest {
     SoftballSim.main(args);
   }
 
+  @Test
+  public void testMonteCarloAdaptiveCommonRandomNumbers() throws Exception {
+    final int INNINGS = 7;
+    final double ALPHA = .001;
+    final int LINEUP_TYPE = 2;
+    final int THREAD_COUNT = 8;
+    final String LINEUP = "1OiRCCmrn16iyK,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p,Devon,Jordyn";
+
+    String[] args = {"-O", "MONTE_CARLO_ADAPTIVE", "-L", LINEUP, "-a", String.valueOf(ALPHA), "-i",
+        String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-t", String.valueOf(THREAD_COUNT), "-F", "-P",
+        "./stats/exampleData.json", "-c"};
+
+    SoftballSim.main(args);
+  }
+
+  @Test
+  public void testMonteCarloAdaptiveSprt() throws Exception {
+    final int INNINGS = 7;
+    final double ALPHA = .001;
+    final int LINEUP_TYPE = 2;
+    final int THREAD_COUNT = 8;
+    final String LINEUP = "1OiRCCmrn16iyK,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p,Devon,Jordyn";
+
+    String[] args = {"-O", "MONTE_CARLO_ADAPTIVE", "-L", LINEUP, "-a", String.valueOf(ALPHA), "-i",
+        String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-t", String.valueOf(THREAD_COUNT), "-F", "-P",
+        "./stats/exampleData.json", "-m", "SPRT", "-d", "0.1"};
+    SoftballSim.main(args);
+
+    String[] crnArgs = {"-O", "MONTE_CARLO_ADAPTIVE", "-L", LINEUP, "-a", String.valueOf(ALPHA), "-i",
+        String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-t", String.valueOf(THREAD_COUNT), "-F", "-P",
+        "./stats/exampleData.json", "-m", "SPRT", "-d", "0.1", "-c"};
+    SoftballSim.main(crnArgs);
+  }
+
+  @Test
+  public void testSprtBoundary() throws Exception {
+    final double ALPHA = .01;
+    final double INDIFFERENCE = .1;
+    // log(99) / (2 * .1) = 22.98, so the test should stop once difference / variance gets past that
+    StatisticalSummary undecided = new StatisticalSummaryValues(.5, 4, 100, 0, 0, 50);
+    StatisticalSummary decidedBetter = new StatisticalSummaryValues(1, 4, 100, 0, 0, 100);
+    StatisticalSummary decidedWorse = new StatisticalSummaryValues(-1, 4, 100, 0, 0, -100);
+    StatisticalSummary noSpread = new StatisticalSummaryValues(1, 0, 100, 1, 1, 100);
+
+    assertFalse(SignificanceTestEnum.SPRT.isDifferentFromZero(undecided, ALPHA, INDIFFERENCE));
+    assertTrue(SignificanceTestEnum.SPRT.isDifferentFromZero(decidedBetter, ALPHA, INDIFFERENCE));
+    assertTrue(SignificanceTestEnum.SPRT.isDifferentFromZero(decidedWorse, ALPHA, INDIFFERENCE));
+    assertFalse(SignificanceTestEnum.SPRT.isDifferentFromZero(noSpread, ALPHA, INDIFFERENCE));
+
+    // Unpaired, the variances of both means add up
+    StatisticalSummary zero = new StatisticalSummaryValues(0, 2, 100, 0, 0, 0);
+    StatisticalSummary half = new StatisticalSummaryValues(.5, 2, 100, 0, 0, 50);
+    StatisticalSummary one = new StatisticalSummaryValues(1, 2, 100, 0, 0, 100);
+    assertFalse(SignificanceTestEnum.SPRT.isDifferent(zero, half, ALPHA, INDIFFERENCE));
+    assertTrue(SignificanceTestEnum.SPRT.isDifferent(zero, one, ALPHA, INDIFFERENCE));
+    assertTrue(SignificanceTestEnum.SPRT.isDifferent(one, zero, ALPHA, INDIFFERENCE));
+  }
+
+  @Test
+  public void testStoppingVariance() throws Exception {
+    final double ALPHA = .01;
+    final double INDIFFERENCE = .1;
+    final double DELTA = 1e-12;
+
+    // t-test: difference^2 / z^2 with z = 2.5758 for alpha = .01
+    double z = 2.5758293035489;
+    assertEquals(1 / (z * z), SignificanceTestEnum.TTEST.getStoppingVariance(1, ALPHA, INDIFFERENCE), DELTA);
+    assertEquals(.25 / (z * z), SignificanceTestEnum.TTEST.getStoppingVariance(-.5, ALPHA, INDIFFERENCE), DELTA);
+    assertEquals(0, SignificanceTestEnum.TTEST.getStoppingVariance(0, ALPHA, INDIFFERENCE), 0);
+
+    // SPRT: 2 * indifference * |difference| / log(99)
+    assertEquals(.2 / Math.log(99), SignificanceTestEnum.SPRT.getStoppingVariance(1, ALPHA, INDIFFERENCE), DELTA);
+    assertEquals(.1 / Math.log(99), SignificanceTestEnum.SPRT.getStoppingVariance(-.5, ALPHA, INDIFFERENCE), DELTA);
+    assertEquals(0, SignificanceTestEnum.SPRT.getStoppingVariance(0, ALPHA, INDIFFERENCE), 0);
+
+    // The SPRT stops right where the variance of the mean difference drops to the stopping variance
+    double stoppingVariance = SignificanceTestEnum.SPRT.getStoppingVariance(1, ALPHA, INDIFFERENCE);
+    StatisticalSummary justDecided = new StatisticalSummaryValues(1, stoppingVariance * 100 * .999, 100, 0, 0, 100);
+    StatisticalSummary justUndecided = new StatisticalSummaryValues(1, stoppingVariance * 100 * 1.001, 100, 0, 0, 100);
+    assertTrue(SignificanceTestEnum.SPRT.isDifferentFromZero(justDecided, ALPHA, INDIFFERENCE));
+    assertFalse(SignificanceTestEnum.SPRT.isDifferentFromZero(justUndecided, ALPHA, INDIFFERENCE));
+  }
+
+  @Test
+  public void testChunkSize() throws Exception {
+    final double INFINITE = Double.POSITIVE_INFINITY;
+
+    // Never fewer than 100 games, even when the test should already have stopped
+    assertEquals(100, TTestTask.getChunkSize(INFINITE, 0));
+    assertEquals(100, TTestTask.getChunkSize(1050, 1000));
+    assertEquals(100, TTestTask.getChunkSize(10, 1000));
+
+    // Otherwise the games still needed, but at most half of the games already played
+    assertEquals(300, TTestTask.getChunkSize(1300, 1000));
+    assertEquals(500, TTestTask.getChunkSize(1600, 1000));
+    assertEquals(500, TTestTask.getChunkSize(INFINITE, 1000));
+
+    // And never more than 10000 games
+    assertEquals(10000, TTestTask.getChunkSize(INFINITE, 100000));
+    assertEquals(10000, TTestTask.getChunkSize(500000, 100000));
+
+    // No difference and no spread gives 0 / 0, that's treated like an infinite number of games
+    double gamesNeeded = 0 / SignificanceTestEnum.TTEST.getStoppingVariance(0, .05, 0);
+    assertTrue(Double.isNaN(gamesNeeded));
+    assertEquals(100, TTestTask.getChunkSize(gamesNeeded, 0));
+    assertEquals(500, TTestTask.getChunkSize(gamesNeeded, 1000));
+
+    // Chunks stop at MAX_ITERATIONS, but at least one game is always played
+    final int MAX = TTestTask.MAX_ITERATIONS;
+    assertEquals(30, TTestTask.getChunkSize(INFINITE, MAX - 30));
+    assertEquals(1, TTestTask.getChunkSize(INFINITE, MAX));
+    assertEquals(1, TTestTask.getChunkSize(INFINITE, MAX + 50));
+  }
+
+  /**
+   * The final score shouldn't depend on the number of threads, and its confidence interval should
+   * cover the exact expected score from the Markov chain.
+   */
+  @Test
+  public void testFinalScore() throws Exception {
+    final int INNINGS = 7;
+    final int GAMES = 120003;
+    final List<String> PLAYERS =
+        Arrays.asList("1OiRCCmrn16iyK", "0000000000000e", "0000000000000F", "1KDGsd6ikXY6iH", "1CV6WRyspDjA7Z",
+            "1MPJ24EEyS0g6p");
+
+    String statsJson = new String(Files.readAllBytes(Paths.get("./stats/exampleData.json")));
+    DataStats stats = TestGsonAccessor.getInstance().getCustom().fromJson(statsJson, DataStats.class);
+    BattingLineupIndexer indexer = LineupTypeEnum.ORDINARY.getLineupIndexer(stats, PLAYERS);
+    HitGenerator hitGenerator = new HitGenerator(indexer.getLineup(0).asList());
+    int[] battingOrder = hitGenerator.getBattingOrder(indexer.getLineup(0));
+
+    StatisticalSummary oneThread =
+        FinalScore.simulate(battingOrder, INNINGS, hitGenerator, GAMES, 1, new SplitMix64(42));
+    StatisticalSummary fourThreads =
+        FinalScore.simulate(battingOrder, INNINGS, hitGenerator, GAMES, 4, new SplitMix64(42));
+    assertEquals(GAMES, oneThread.getN());
+    assertEquals(oneThread.getN(), fourThreads.getN());
+    assertEquals(oneThread.getMean(), fourThreads.getMean(), 0);
+    assertEquals(oneThread.getVariance(), fourThreads.getVariance(), 0);
+
+    double expectedScore = new MarkovChain(hitGenerator).getExpectedRuns(battingOrder, INNINGS);
+    double confidenceInterval = FinalScore.getConfidenceInterval(oneThread);
+    Logger.log("Final score " + oneThread.getMean() + " +/- " + confidenceInterval + " expected " + expectedScore);
+    assertEquals(expectedScore, oneThread.getMean(), 2 * confidenceInterval);
+  }
+
   @Test
   public void testMonteCarloAdaptiveNetwork() throws Exception {
     final int INNINGS = 7;
@@ -4,6 +4,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
+import org.junit.Assert;
 import org.junit.Test;
 import com.github.thbrown.softballsim.data.gson.DataStats;
 import com.github.thbrown.softballsim.datasource.network.DataSourceNetworkCommandData;
@@ -42,6 +43,47 @@ public class MonteCarloAnnealingTest {
     // SoftballSim.main(args3);
   }
 
+  /**
+   * Runs several chains at once at different temperatures. The result comes from the coldest one, and
+   * the same seed gives the same result even though the replicas run on different threads.
+   */
+  @Test
+  public void testMonteCarloAnnealingParallelTempering() throws Exception {
+    final int INNINGS = 7;
+    final int DURATION = 50;
+    final int LINEUP_TYPE = 1;
+    final int REPLICAS = 4;
+    final String LINEUP = "1OiRCCmrn16iyK,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p,Devon,Jordyn";
+
+    String[] args = {"-O", "MONTE_CARLO_ANNEALING", "-P", "./stats/exampleData.json", "-L", LINEUP, "-i",
+        String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-d", String.valueOf(DURATION), "-r",
+        String.valueOf(REPLICAS), "-s", "1", "-F"};
+    Result result = SoftballSim.mainInternal(args);
+    Assert.assertEquals(6, result.getLineup().asList().size());
+
+    Result again = SoftballSim.mainInternal(args);
+    Assert.assertEquals(result.getLineup().asListOfIds(), again.getLineup().asListOfIds());
+    Assert.assertEquals(result.getLineupScore(), again.getLineupScore(), 0);
+  }
+
+  /**
+   * Sets the starting temperature from the lineups' exact expected scores, scored on several threads.
+   */
+  @Test
+  public void testMonteCarloAnnealingMarkovChainCalibration() throws Exception {
+    final int INNINGS = 7;
+    final int DURATION = 50;
+    final int LINEUP_TYPE = 1;
+    final int THREAD_COUNT = 4;
+    final String LINEUP = "1OiRCCmrn16iyK,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p,Devon,Jordyn";
+
+    String[] args = {"-O", "MONTE_CARLO_ANNEALING", "-P", "./stats/exampleData.json", "-L", LINEUP, "-i",
+        String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-d", String.valueOf(DURATION), "-c",
+        "MARKOV_CHAIN", "-t", String.valueOf(THREAD_COUNT), "-s", "1", "-F"};
+    Result result = SoftballSim.mainInternal(args);
+    Assert.assertEquals(6, result.getLineup().asList().size());
+  }
+
   @Test
   public void testMonteCarloAnnealingNetwork() throws Exception {
     final int INNINGS = 7;
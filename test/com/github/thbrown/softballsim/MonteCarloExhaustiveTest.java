@@ -2,8 +2,13 @@ package com.github.thbrown.softballsim;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.junit.Assert;
 import org.junit.Test;
 import com.github.thbrown.softballsim.server.ServerCommandHooks;
 import com.github.thbrown.softballsim.server.ServerComplete;
@@ -13,7 +18,17 @@ import com.github.thbrown.softballsim.data.gson.DataStats;
 import com.github.thbrown.softballsim.datasource.network.DataSourceNetworkCommandData;
 import com.github.thbrown.softballsim.datasource.network.NetworkHelper;
 import com.github.thbrown.softballsim.helpers.TestGsonAccessor;
+import com.github.thbrown.softballsim.lineupindexer.BattingLineupIndexer;
+import com.github.thbrown.softballsim.lineupindexer.LineupTypeEnum;
+import com.github.thbrown.softballsim.optimizer.impl.markovchain.MarkovChain;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BatchedGameSimulation;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.BitSlicedGameSimulation;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.CommonRandomNumbers;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.InningOutcomeTable;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.MonteCarloGameSimulation;
 import com.github.thbrown.softballsim.server.Server;
+import com.github.thbrown.softballsim.util.SplitMix64;
 
 public class MonteCarloExhaustiveTest {
 
@@ -32,6 +47,285 @@ public class MonteCarloExhaustiveTest {
     SoftballSim.main(args);
   }
 
+  @Test
+  public void testWorkStealing() throws Exception {
+    final int INNINGS = 7;
+    final int GAMES = 100;
+    final int LINEUP_TYPE = 1;
+    final int THREAD_COUNT = 4;
+
+    String[] args = {"-O", "MONTE_CARLO_EXHAUSTIVE", "-F", "-P", "./stats/exampleData.json", "-L",
+        "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p",
+        "-g", String.valueOf(GAMES), "-i", String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-t",
+        String.valueOf(THREAD_COUNT), "-w"};
+
+    SoftballSim.main(args);
+  }
+
+  /**
+   * With common random numbers every lineup plays the same games, so scoring each rotation class as
+   * its best rotation has to find the same lineup and score as searching every lineup on its own.
+   */
+  @Test
+  public void testRotationEquivalence() throws Exception {
+    final int INNINGS = 7;
+    final int GAMES = 100;
+    final int LINEUP_TYPE = 1;
+    final int THREAD_COUNT = 4;
+
+    Result expected = null;
+    for (String equivalence : new String[] {"NONE", "ROTATION"}) {
+      String[] args = {"-O", "MONTE_CARLO_EXHAUSTIVE", "-F", "-P", "./stats/exampleData.json", "-L",
+          "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p",
+          "-g", String.valueOf(GAMES), "-i", String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-t",
+          String.valueOf(THREAD_COUNT), "-c", "-s", "7", "-e", equivalence};
+      Result result = SoftballSim.mainInternal(args);
+      if (expected == null) {
+        expected = result;
+      } else {
+        Assert.assertEquals(expected.getLineupScore(), result.getLineupScore(), 0);
+        Assert.assertEquals(expected.getLineup().asListOfIds(), result.getLineup().asListOfIds());
+      }
+    }
+  }
+
+  /**
+   * Every lineup searched with a fixed leadoff hitter starts with that player
+   */
+  @Test
+  public void testLeadoffEquivalence() throws Exception {
+    final int INNINGS = 7;
+    final int GAMES = 100;
+    final int LINEUP_TYPE = 1;
+    final int THREAD_COUNT = 4;
+
+    String[] args = {"-O", "MONTE_CARLO_EXHAUSTIVE", "-F", "-P", "./stats/exampleData.json", "-L",
+        "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p",
+        "-g", String.valueOf(GAMES), "-i", String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-t",
+        String.valueOf(THREAD_COUNT), "-e", "LEADOFF", "-a", "0000000000000F"};
+
+    Result result = SoftballSim.mainInternal(args);
+    Assert.assertEquals("0000000000000F", result.getLineup().asListOfIds().get(0));
+    Assert.assertEquals(120, result.getCountTotal());
+  }
+
+  @Test
+  public void testCommonRandomNumbers() throws Exception {
+    final int INNINGS = 7;
+    final int GAMES = 100;
+    final int LINEUP_TYPE = 1;
+    final int THREAD_COUNT = 4;
+
+    String[] args = {"-O", "MONTE_CARLO_EXHAUSTIVE", "-F", "-P", "./stats/exampleData.json", "-L",
+        "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p",
+        "-g", String.valueOf(GAMES), "-i", String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-t",
+        String.valueOf(THREAD_COUNT), "-c"};
+
+    SoftballSim.main(args);
+  }
+
+  /**
+   * The same seed should give the same result no matter how many threads are used or how the work is
+   * split between them.
+   */
+  @Test
+  public void testSeedIsReproducible() throws Exception {
+    final int INNINGS = 7;
+    final int GAMES = 100;
+    final int LINEUP_TYPE = 1;
+    final long SEED = 12345;
+
+    String[][] threadArgs = {{"-t", "1"}, {"-t", "3"}, {"-t", "4", "-w"}};
+    Result expected = null;
+    for (String[] extraArgs : threadArgs) {
+      List<String> args = new ArrayList<>(Arrays.asList("-O", "MONTE_CARLO_EXHAUSTIVE", "-F", "-P",
+          "./stats/exampleData.json", "-L", "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p",
+          "-g", String.valueOf(GAMES), "-i", String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-s",
+          String.valueOf(SEED)));
+      args.addAll(Arrays.asList(extraArgs));
+      Result result = SoftballSim.mainInternal(args.toArray(new String[0]));
+      if (expected == null) {
+        expected = result;
+      } else {
+        Assert.assertEquals(expected.getLineupScore(), result.getLineupScore(), 0);
+        Assert.assertEquals(expected.getLineup().asListOfIds(), result.getLineup().asListOfIds());
+      }
+    }
+  }
+
+  /**
+   * Every optimizer parses its seed argument with SplitMix64.parseSeed
+   */
+  @Test
+  public void testParseSeed() throws Exception {
+    Assert.assertEquals(-42, SplitMix64.parseSeed("-42"));
+    // Random seeds, these could collide but it's very unlikely
+    Assert.assertNotEquals(SplitMix64.parseSeed(null), SplitMix64.parseSeed(SplitMix64.SEED_DEFAULT_TOKEN));
+    try {
+      SplitMix64.parseSeed("1.5");
+      Assert.fail("Expected an exception");
+    } catch (IllegalArgumentException e) {
+      Assert.assertTrue(e.getMessage().contains("1.5"));
+    }
+  }
+
+  /**
+   * Replaying a game number should replay the game, and two similar lineups playing the same games
+   * should have score differences with less variance than two independent games.
+   */
+  @Test
+  public void testCommonRandomNumbersArePaired() throws Exception {
+    final int INNINGS = 7;
+    final int GAMES = 20000;
+    final List<String> PLAYERS =
+        Arrays.asList("1OiRCCmrn16iyK", "0000000000000e", "0000000000000F", "1KDGsd6ikXY6iH", "1CV6WRyspDjA7Z",
+            "1MPJ24EEyS0g6p");
+
+    String statsJson = new String(Files.readAllBytes(Paths.get("./stats/exampleData.json")));
+    DataStats stats = TestGsonAccessor.getInstance().getCustom().fromJson(statsJson, DataStats.class);
+    BattingLineupIndexer indexer = LineupTypeEnum.ORDINARY.getLineupIndexer(stats, PLAYERS);
+    HitGenerator hitGenerator = new HitGenerator(indexer.getLineup(0).asList());
+    int[] orderA = hitGenerator.getBattingOrder(indexer.getLineup(0));
+    int[] orderB = hitGenerator.getBattingOrder(indexer.getLineup(1));
+
+    CommonRandomNumbers commonRandomNumbers = new CommonRandomNumbers(42);
+    SummaryStatistics pairedDifferences = new SummaryStatistics();
+    SummaryStatistics independentDifferences = new SummaryStatistics();
+    for (int game = 0; game < GAMES; game++) {
+      double scoreA = MonteCarloGameSimulation.simulateGame(orderA, INNINGS, hitGenerator, commonRandomNumbers, game);
+      double scoreB = MonteCarloGameSimulation.simulateGame(orderB, INNINGS, hitGenerator, commonRandomNumbers, game);
+      Assert.assertEquals(scoreA,
+          MonteCarloGameSimulation.simulateGame(orderA, INNINGS, hitGenerator, commonRandomNumbers, game), 0);
+      pairedDifferences.addValue(scoreB - scoreA);
+      independentDifferences.addValue(MonteCarloGameSimulation.simulateGame(orderB, INNINGS, hitGenerator)
+          - MonteCarloGameSimulation.simulateGame(orderA, INNINGS, hitGenerator));
+    }
+    Logger.log("Paired variance " + pairedDifferences.getVariance() + " independent variance "
+        + independentDifferences.getVariance());
+    Assert.assertTrue(pairedDifferences.getVariance() < independentDifferences.getVariance() / 2);
+  }
+
+  /**
+   * The mean of the bit-sliced games should match the exact expected score from the Markov chain,
+   * including when the number of games isn't a multiple of 64.
+   */
+  @Test
+  public void testBitSlicedSimulation() throws Exception {
+    final int INNINGS = 7;
+    final int GAMES = 100003;
+    final List<String> PLAYERS =
+        Arrays.asList("1OiRCCmrn16iyK", "0000000000000e", "0000000000000F", "1KDGsd6ikXY6iH", "1CV6WRyspDjA7Z",
+            "1MPJ24EEyS0g6p");
+
+    String statsJson = new String(Files.readAllBytes(Paths.get("./stats/exampleData.json")));
+    DataStats stats = TestGsonAccessor.getInstance().getCustom().fromJson(statsJson, DataStats.class);
+    BattingLineupIndexer indexer = LineupTypeEnum.ORDINARY.getLineupIndexer(stats, PLAYERS);
+    HitGenerator hitGenerator = new HitGenerator(indexer.getLineup(0).asList());
+    int[] battingOrder = hitGenerator.getBattingOrder(indexer.getLineup(0));
+
+    double expectedScore = new MarkovChain(hitGenerator).getExpectedRuns(battingOrder, INNINGS);
+    long totalRuns = BitSlicedGameSimulation.simulateGames(battingOrder, INNINGS, hitGenerator, GAMES,
+        new SplitMix64(42));
+    Logger.log("Bit-sliced mean " + ((double) totalRuns / GAMES) + " expected " + expectedScore);
+    Assert.assertEquals(expectedScore, (double) totalRuns / GAMES, 0.1);
+
+    Assert.assertEquals(0, BitSlicedGameSimulation.simulateGames(battingOrder, 0, hitGenerator, GAMES, null));
+    Assert.assertEquals(totalRuns, BitSlicedGameSimulation.simulateGames(battingOrder, INNINGS, hitGenerator, GAMES,
+        new SplitMix64(42)));
+  }
+
+  /**
+   * Every game should be passed to the sink once and the mean should match the exact expected score
+   * from the Markov chain.
+   */
+  @Test
+  public void testBatchedSimulation() throws Exception {
+    final int INNINGS = 7;
+    final int GAMES = 100003;
+    final List<String> PLAYERS =
+        Arrays.asList("1OiRCCmrn16iyK", "0000000000000e", "0000000000000F", "1KDGsd6ikXY6iH", "1CV6WRyspDjA7Z",
+            "1MPJ24EEyS0g6p");
+
+    String statsJson = new String(Files.readAllBytes(Paths.get("./stats/exampleData.json")));
+    DataStats stats = TestGsonAccessor.getInstance().getCustom().fromJson(statsJson, DataStats.class);
+    BattingLineupIndexer indexer = LineupTypeEnum.ORDINARY.getLineupIndexer(stats, PLAYERS);
+    HitGenerator hitGenerator = new HitGenerator(indexer.getLineup(0).asList());
+    int[] battingOrder = hitGenerator.getBattingOrder(indexer.getLineup(0));
+
+    SummaryStatistics scores = new SummaryStatistics();
+    long totalRuns = BatchedGameSimulation.simulateGames(battingOrder, INNINGS, hitGenerator, GAMES,
+        new SplitMix64(42), scores::addValue);
+    Assert.assertEquals(GAMES, scores.getN());
+    Assert.assertEquals(totalRuns, scores.getSum(), 0);
+
+    double expectedScore = new MarkovChain(hitGenerator).getExpectedRuns(battingOrder, INNINGS);
+    Logger.log("Batched mean " + scores.getMean() + " expected " + expectedScore);
+    Assert.assertEquals(expectedScore, scores.getMean(), 0.1);
+    Assert.assertEquals(totalRuns, BatchedGameSimulation.simulateGames(battingOrder, INNINGS, hitGenerator, GAMES,
+        new SplitMix64(42), null));
+
+    // Filling an array should draw the same numbers as drawing them one at a time
+    SplitMix64 single = new SplitMix64(7);
+    SplitMix64 batch = new SplitMix64(7);
+    long[] values = new long[5];
+    batch.nextLongs(values, values.length);
+    for (long value : values) {
+      Assert.assertEquals(single.nextLong(), value);
+    }
+    Assert.assertEquals(single.nextLong(), batch.nextLong());
+  }
+
+  /**
+   * Games simulated one inning at a time from the inning outcome table should have the same mean as
+   * the exact expected score from the Markov chain.
+   */
+  @Test
+  public void testInningOutcomeTable() throws Exception {
+    final int INNINGS = 7;
+    final int GAMES = 100000;
+    final List<String> PLAYERS =
+        Arrays.asList("1OiRCCmrn16iyK", "0000000000000e", "0000000000000F", "1KDGsd6ikXY6iH", "1CV6WRyspDjA7Z",
+            "1MPJ24EEyS0g6p");
+
+    String statsJson = new String(Files.readAllBytes(Paths.get("./stats/exampleData.json")));
+    DataStats stats = TestGsonAccessor.getInstance().getCustom().fromJson(statsJson, DataStats.class);
+    BattingLineupIndexer indexer = LineupTypeEnum.ORDINARY.getLineupIndexer(stats, PLAYERS);
+    HitGenerator hitGenerator = new HitGenerator(indexer.getLineup(0).asList());
+    int[] battingOrder = hitGenerator.getBattingOrder(indexer.getLineup(0));
+
+    InningOutcomeTable inningOutcomes = new InningOutcomeTable(battingOrder, hitGenerator);
+    SplitMix64 random = new SplitMix64(42);
+    SummaryStatistics scores = new SummaryStatistics();
+    for (int i = 0; i < GAMES; i++) {
+      scores.addValue(MonteCarloGameSimulation.simulateGame(inningOutcomes, INNINGS, random));
+    }
+    double expectedScore = new MarkovChain(hitGenerator).getExpectedRuns(battingOrder, INNINGS);
+    Logger.log("Inning table mean " + scores.getMean() + " expected " + expectedScore);
+    Assert.assertEquals(expectedScore, scores.getMean(), 0.1);
+
+    String[] args = {"-O", "MONTE_CARLO_EXHAUSTIVE", "-F", "-P", "./stats/exampleData.json", "-L",
+        "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p", "-g", "1000", "-i",
+        String.valueOf(INNINGS), "-n"};
+    Result result = SoftballSim.mainInternal(args);
+    Assert.assertNotNull(result.getLineup());
+    Assert.assertTrue(result.getLineupScore() > 0);
+  }
+
+  @Test
+  public void testBitSlicedOptimizer() throws Exception {
+    final int INNINGS = 7;
+    final int GAMES = 1000;
+    final int LINEUP_TYPE = 1;
+
+    String[] args = {"-O", "MONTE_CARLO_EXHAUSTIVE", "-F", "-P", "./stats/exampleData.json", "-L",
+        "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p", "-g", String.valueOf(GAMES), "-i",
+        String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-b", "-w"};
+
+    Result result = SoftballSim.mainInternal(args);
+    Assert.assertNotNull(result.getLineup());
+    Assert.assertTrue(result.getLineupScore() > 0);
+  }
+
   @Test
   public void testDataSourceNetwork() throws Exception {
     final int INNINGS = 7;
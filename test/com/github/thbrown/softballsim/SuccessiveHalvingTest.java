@@ -0,0 +1,122 @@
+package com.github.thbrown.softballsim;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import com.github.thbrown.softballsim.helpers.TestUtil;
+import com.github.thbrown.softballsim.optimizer.impl.successivehalving.SuccessiveHalvingOptimizer;
+import com.github.thbrown.softballsim.util.SplitMix64;
+
+public class SuccessiveHalvingTest {
+
+  /**
+   * The winner of the race should be as good as the best lineup according to the exact expected
+   * score from the Markov chain optimizer, or so close that it couldn't be told apart.
+   */
+  @Test
+  public void testSuccessiveHalving() throws Exception {
+    final int INNINGS = 7;
+    final int LINEUP_TYPE = 1;
+    final int THREAD_COUNT = 4;
+    final String LINEUP = "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z,1MPJ24EEyS0g6p";
+
+    String[] args = {"-O", "SUCCESSIVE_HALVING", "-F", "-P", "./stats/exampleData.json", "-L", LINEUP, "-i",
+        String.valueOf(INNINGS), "-T", String.valueOf(LINEUP_TYPE), "-t", String.valueOf(THREAD_COUNT), "-s", "1"};
+    Result result = SoftballSim.mainInternal(args);
+    TestUtil.assertNearMarkovOptimum(result.getLineup(), LINEUP, INNINGS, 0.05);
+  }
+
+  /**
+   * Lineups are halved each round, but never below FINALISTS. Here they're too noisy for the t-test
+   * to drop any, so only the halving does.
+   */
+  @Test
+  public void testEliminate() throws Exception {
+    final long GAMES = 100;
+    final double VARIANCE = 25;
+    final int FINALISTS = SuccessiveHalvingOptimizer.FINALISTS;
+
+    for (int candidateCount : new int[] {1, FINALISTS / 2, FINALISTS, FINALISTS + 1, 2 * FINALISTS + 8, 101}) {
+      long[] lineupIndexes = new long[candidateCount];
+      double[] sums = new double[candidateCount];
+      double[] sumsOfSquares = new double[candidateCount];
+      for (int i = 0; i < candidateCount; i++) {
+        // Lineup index i has mean 1 + i / 1000, they're shuffled below so the leader isn't already first
+        lineupIndexes[i] = i;
+        sums[i] = GAMES * (1 + i / 1000.0);
+        sumsOfSquares[i] = (GAMES - 1) * VARIANCE + sums[i] * sums[i] / GAMES;
+      }
+      shuffle(lineupIndexes, sums, sumsOfSquares, new SplitMix64(candidateCount));
+
+      int survivors = SuccessiveHalvingOptimizer.eliminate(lineupIndexes, sums, sumsOfSquares, candidateCount, GAMES,
+          .05);
+      int expected = Math.max((candidateCount + 1) / 2, Math.min(candidateCount, FINALISTS));
+      Assert.assertEquals(expected, survivors);
+
+      // The leader comes first, the survivors are the best lineups, and every sum moved with its lineup
+      Assert.assertEquals(candidateCount - 1, lineupIndexes[0]);
+      for (int i = 0; i < candidateCount; i++) {
+        Assert.assertEquals(GAMES * (1 + lineupIndexes[i] / 1000.0), sums[i], 0);
+        if (i < survivors) {
+          Assert.assertTrue(lineupIndexes[i] >= candidateCount - survivors);
+        }
+      }
+    }
+  }
+
+  /**
+   * Starting lineups are sorted and distinct, whether they're all the lineups, a sample, or
+   * everything but a sample.
+   */
+  @Test
+  public void testGetStartingLineups() throws Exception {
+    SplitMix64 random = new SplitMix64(1);
+    long[][] countsAndMaxes = {{50, 100}, {100, 100}, {1000, 10}, {1000, 500}, {1000, 501}, {1000, 999},
+        {3628800, 1000}};
+    for (long[] countAndMax : countsAndMaxes) {
+      long lineupCount = countAndMax[0];
+      int maxLineups = (int) countAndMax[1];
+      long[] lineupIndexes = SuccessiveHalvingOptimizer.getStartingLineups(lineupCount, maxLineups, random);
+      Assert.assertEquals(Math.min(lineupCount, maxLineups), lineupIndexes.length);
+      for (int i = 0; i < lineupIndexes.length; i++) {
+        Assert.assertTrue(lineupIndexes[i] >= 0 && lineupIndexes[i] < lineupCount);
+        if (i > 0) {
+          Assert.assertTrue(lineupIndexes[i - 1] < lineupIndexes[i]);
+        }
+      }
+    }
+
+    // The same stream gives the same sample
+    Assert.assertArrayEquals(SuccessiveHalvingOptimizer.getStartingLineups(1000, 10, new SplitMix64(5)),
+        SuccessiveHalvingOptimizer.getStartingLineups(1000, 10, new SplitMix64(5)));
+    Assert.assertFalse(Arrays.equals(SuccessiveHalvingOptimizer.getStartingLineups(1000, 10, new SplitMix64(5)),
+        SuccessiveHalvingOptimizer.getStartingLineups(1000, 10, new SplitMix64(6))));
+  }
+
+  /**
+   * Without -F, the second run should give back the first run's cached result
+   */
+  @Test
+  public void testCachedResult() throws Exception {
+    final String LINEUP = "1OiRCCmrn16iyK,Oscar,Molly,Nelly,1CV6WRyspDjA7Z";
+    String[] args = {"-O", "SUCCESSIVE_HALVING", "-P", "./stats/exampleData.json", "-L", LINEUP, "-i", "7", "-t",
+        "1", "-s", "1"};
+    TestUtil.assertCachedResultIsReused(args);
+  }
+
+  private static void shuffle(long[] lineupIndexes, double[] sums, double[] sumsOfSquares, SplitMix64 random) {
+    for (int i = lineupIndexes.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      long index = lineupIndexes[i];
+      lineupIndexes[i] = lineupIndexes[j];
+      lineupIndexes[j] = index;
+      double sum = sums[i];
+      sums[i] = sums[j];
+      sums[j] = sum;
+      double sumOfSquares = sumsOfSquares[i];
+      sumsOfSquares[i] = sumsOfSquares[j];
+      sumsOfSquares[j] = sumOfSquares;
+    }
+  }
+
+}
@@ -0,0 +1,108 @@
+package com.github.thbrown.softballsim;
+
+import static org.junit.Assert.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.junit.Test;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloadaptive.WelfordSummaryStatistics;
+
+public class WelfordSummaryStatisticsTest {
+
+  private static final double TOLERANCE = 1e-9;
+
+  @Test
+  public void testMatchesSummaryStatistics() throws Exception {
+    Random random = new Random(1);
+    SummaryStatistics expected = new SummaryStatistics();
+    WelfordSummaryStatistics actual = new WelfordSummaryStatistics();
+    for (int i = 0; i < 10000; i++) {
+      double value = random.nextInt(25);
+      expected.addValue(value);
+      actual.addValue(value);
+    }
+    assertSameStats(expected, actual);
+  }
+
+  @Test
+  public void testMerge() throws Exception {
+    Random random = new Random(2);
+    SummaryStatistics expected = new SummaryStatistics();
+    WelfordSummaryStatistics merged = new WelfordSummaryStatistics();
+    for (int part = 0; part < 5; part++) {
+      WelfordSummaryStatistics welfordPart = new WelfordSummaryStatistics();
+      SummaryStatistics commonsPart = new SummaryStatistics();
+      for (int i = 0; i < 1000 * part; i++) {
+        double value = random.nextGaussian() * 3 + 10;
+        expected.addValue(value);
+        // Alternate between merging our own summaries and commons-math ones
+        if (part % 2 == 0) {
+          welfordPart.addValue(value);
+        } else {
+          commonsPart.addValue(value);
+        }
+      }
+      merged.merge(welfordPart);
+      merged.merge(commonsPart);
+    }
+    assertSameStats(expected, merged);
+    assertSameStats(expected, new WelfordSummaryStatistics(merged));
+  }
+
+  @Test
+  public void testEmpty() throws Exception {
+    WelfordSummaryStatistics empty = new WelfordSummaryStatistics();
+    assertEquals(0, empty.getN());
+    assertEquals(0, empty.getMean(), 0);
+    assertEquals(0, empty.getVariance(), 0);
+
+    empty.addValue(4);
+    assertEquals(4, empty.getMean(), 0);
+    assertEquals(0, empty.getVariance(), 0);
+    empty.clear();
+    assertEquals(0, empty.getN());
+  }
+
+  /**
+   * Several threads merging into the same summary shouldn't lose any values.
+   */
+  @Test
+  public void testConcurrentMerge() throws Exception {
+    final int THREADS = 4;
+    final int MERGES = 10000;
+    WelfordSummaryStatistics total = new WelfordSummaryStatistics();
+    WelfordSummaryStatistics part = new WelfordSummaryStatistics();
+    part.addValue(1);
+    part.addValue(3);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      Thread thread = new Thread(() -> {
+        for (int j = 0; j < MERGES; j++) {
+          total.merge(part);
+          total.getVariance();
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(2L * THREADS * MERGES, total.getN());
+    assertEquals(2, total.getMean(), TOLERANCE);
+    assertEquals(4.0 * THREADS * MERGES, total.getSum(), 0);
+  }
+
+  private static void assertSameStats(SummaryStatistics expected, WelfordSummaryStatistics actual) {
+    assertEquals(expected.getN(), actual.getN());
+    assertEquals(expected.getMean(), actual.getMean(), TOLERANCE);
+    assertEquals(expected.getVariance(), actual.getVariance(), TOLERANCE);
+    assertEquals(expected.getMin(), actual.getMin(), 0);
+    assertEquals(expected.getMax(), actual.getMax(), 0);
+    assertEquals(expected.getSum(), actual.getSum(), TOLERANCE);
+  }
+
+}
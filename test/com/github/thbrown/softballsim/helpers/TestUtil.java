@@ -1,9 +1,16 @@
 package com.github.thbrown.softballsim.helpers;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import org.hamcrest.CoreMatchers;
+import com.github.thbrown.softballsim.Result;
+import com.github.thbrown.softballsim.SoftballSim;
+import com.github.thbrown.softballsim.lineup.BattingLineup;
+import com.github.thbrown.softballsim.optimizer.impl.markovchain.MarkovChain;
+import com.github.thbrown.softballsim.optimizer.impl.montecarloexhaustive.HitGenerator;
+import com.github.thbrown.softballsim.util.Logger;
 
 public class TestUtil {
 
@@ -18,4 +25,34 @@ public class TestUtil {
       assertThat(target, CoreMatchers.containsString(s));
     }
   }
+
+  /**
+   * Asserts that the given lineup's exact expected score from the Markov chain is within epsilon of
+   * the best lineup's, found by running the Markov chain optimizer on the same players.
+   *
+   * @param players - comma separated player ids, as given to the -L flag
+   */
+  public static void assertNearMarkovOptimum(BattingLineup lineup, String players, int innings, double epsilon)
+      throws Exception {
+    String[] markovArgs = {"-O", "MARKOV_CHAIN", "-F", "-P", "./stats/exampleData.json", "-L", players, "-i",
+        String.valueOf(innings), "-T", "1", "-t", "4"};
+    Result best = SoftballSim.mainInternal(markovArgs);
+
+    HitGenerator hitGenerator = new HitGenerator(lineup.asList());
+    double score = new MarkovChain(hitGenerator).getExpectedRuns(hitGenerator.getBattingOrder(lineup), innings);
+    Logger.log("Lineup's expected score " + score + " best " + best.getLineupScore());
+    assertEquals(best.getLineupScore(), score, epsilon);
+  }
+
+  /**
+   * Runs the given args twice without the -F flag and asserts that the second run gives back the
+   * first run's cached result.
+   */
+  public static void assertCachedResultIsReused(String[] args) throws Exception {
+    Result first = SoftballSim.mainInternal(args);
+    Result cached = SoftballSim.mainInternal(args);
+    assertEquals(first.getLineup().asListOfIds(), cached.getLineup().asListOfIds());
+    assertEquals(first.getLineupScore(), cached.getLineupScore(), 0);
+    assertEquals(first.getLineupScoreConfidenceInterval(), cached.getLineupScoreConfidenceInterval());
+  }
 }